@@ -7,9 +7,9 @@ INSERT INTO vets VALUES (4, 'Rafael', 'Ortega');
 INSERT INTO vets VALUES (5, 'Henry', 'Stevens');
 INSERT INTO vets VALUES (6, 'Sharon', 'Jenkins');
 
-INSERT INTO specialties VALUES (1, 'radiology');
-INSERT INTO specialties VALUES (2, 'surgery');
-INSERT INTO specialties VALUES (3, 'dentistry');
+INSERT INTO specialties (id, name, office, h_open, h_close) VALUES (1, 'radiology', 'Farewell', 8, 18);
+INSERT INTO specialties (id, name, office, h_open, h_close) VALUES (2, 'surgery', 'Maryland', 8, 12);
+INSERT INTO specialties (id, name, office, h_open, h_close) VALUES (3, 'dentistry', 'Terranova', 9, 19);
 
 INSERT INTO vet_specialties VALUES (2, 1);
 INSERT INTO vet_specialties VALUES (3, 2);
@@ -25,16 +25,19 @@ INSERT INTO types VALUES (4, 'snake');
 INSERT INTO types VALUES (5, 'bird');
 INSERT INTO types VALUES (6, 'hamster');
 
-INSERT INTO owners VALUES (1, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023');
-INSERT INTO owners VALUES (2, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749');
-INSERT INTO owners VALUES (3, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763');
-INSERT INTO owners VALUES (4, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198');
-INSERT INTO owners VALUES (5, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765');
-INSERT INTO owners VALUES (6, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654');
-INSERT INTO owners VALUES (7, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387');
-INSERT INTO owners VALUES (8, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683');
-INSERT INTO owners VALUES (9, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435');
-INSERT INTO owners VALUES (10, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (1, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (2, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (3, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (4, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (5, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (6, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (7, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (8, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (9, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435');
+INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (10, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487');
+
+-- Search columns, normalized as SearchText does (these names have no accents)
+UPDATE owners SET first_name_norm = LOWER(first_name), last_name_norm = LOWER(last_name), city_norm = LOWER(city);
 
 INSERT INTO pets VALUES (1, 'Leo', '2000-09-07', 1, 1);
 INSERT INTO pets VALUES (2, 'Basil', '2002-08-06', 6, 2);
@@ -50,7 +53,14 @@ INSERT INTO pets VALUES (11, 'Freddy', '2000-03-09', 5, 9);
 INSERT INTO pets VALUES (12, 'Lucky', '2000-06-24', 2, 10);
 INSERT INTO pets VALUES (13, 'Sly', '2002-06-08', 1, 10);
 
-INSERT INTO visits VALUES (1, 7, '2010-03-04', 'rabies shot');
-INSERT INTO visits VALUES (2, 8, '2011-03-04', 'rabies shot');
-INSERT INTO visits VALUES (3, 8, '2009-06-04', 'neutered');
-INSERT INTO visits VALUES (4, 7, '2008-09-04', 'spayed');
\ No newline at end of file
+INSERT INTO visits (id, pet_id, vet_id, visit_date, description, cost) VALUES (1, 7, 2, '2010-03-04', 'rabies shot', 45.00);
+INSERT INTO visits (id, pet_id, vet_id, visit_date, description, cost) VALUES (2, 8, 2, '2011-03-04', 'rabies shot', 45.00);
+INSERT INTO visits (id, pet_id, vet_id, visit_date, description, cost) VALUES (3, 8, 3, '2009-06-04', 'neutered', 250.00);
+INSERT INTO visits (id, pet_id, vet_id, visit_date, description, cost) VALUES (4, 7, 3, '2008-09-04', 'spayed', 275.00);
+
+INSERT INTO id_sequences VALUES ('vets', 100);
+INSERT INTO id_sequences VALUES ('specialties', 100);
+INSERT INTO id_sequences VALUES ('types', 100);
+INSERT INTO id_sequences VALUES ('owners', 100);
+INSERT INTO id_sequences VALUES ('pets', 100);
+INSERT INTO id_sequences VALUES ('visits', 100);
\ No newline at end of file
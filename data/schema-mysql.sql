@@ -16,6 +16,9 @@ CREATE TABLE IF NOT EXISTS vets (
 CREATE TABLE IF NOT EXISTS specialties (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  office VARCHAR(40),
+  h_open INT,
+  h_close INT,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -40,7 +43,17 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  first_name_norm VARCHAR(30),
+  last_name_norm VARCHAR(30),
+  city_norm VARCHAR(80),
+  INDEX(last_name),
+  -- Prefix search (/owners/search) on the *_norm columns: lower case, no accents,
+  -- kept by the Owner entity. Each index serves one name prefix, alone or
+  -- after an exact city, already in the order the results are returned
+  INDEX idx_owners_last_norm (last_name_norm, first_name_norm),
+  INDEX idx_owners_first_norm (first_name_norm, last_name_norm),
+  INDEX idx_owners_city_last_norm (city_norm, last_name_norm, first_name_norm),
+  INDEX idx_owners_city_first_norm (city_norm, first_name_norm, last_name_norm)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -57,7 +70,22 @@ CREATE TABLE IF NOT EXISTS pets (
 CREATE TABLE IF NOT EXISTS visits (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   pet_id INT(4) UNSIGNED NOT NULL,
+  vet_id INT(4) UNSIGNED,
   visit_date DATE,
+  visit_time TIME,
   description VARCHAR(255),
-  FOREIGN KEY (pet_id) REFERENCES pets(id)
+  cost DECIMAL(10,2),
+  -- Serves a pet's history newest first (GET /pets/{id}/visits) without a sort step,
+  -- and the pet_id foreign key through its leading column
+  INDEX idx_visits_pet_history (pet_id, visit_date DESC, id DESC),
+  -- One booked visit per vet and slot: the last word on double bookings, whatever the
+  -- SlotCalendar of each instance believes. Visits without a time are never in conflict
+  UNIQUE INDEX uk_visits_vet_slot (vet_id, visit_date, visit_time),
+  FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE CASCADE,
+  FOREIGN KEY (vet_id) REFERENCES vets(id) ON DELETE SET NULL
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+  seq_name VARCHAR(40) NOT NULL PRIMARY KEY,
+  next_val BIGINT NOT NULL
 ) engine=InnoDB;
\ No newline at end of file
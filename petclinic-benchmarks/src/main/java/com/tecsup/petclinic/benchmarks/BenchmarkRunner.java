@@ -0,0 +1,37 @@
+package com.tecsup.petclinic.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks and always writes the results as JSON, one file per
+ * petclinic version, so runs can be compared across releases.
+ * <pre>
+ * BenchmarkRunner &lt;result.json&gt; [JMH options and benchmark regexps]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		if (args.length == 0)
+			throw new IllegalArgumentException("Usage: BenchmarkRunner <result.json> [JMH options]");
+
+		CommandLineOptions cmd = new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length));
+
+		Options options = new OptionsBuilder()
+				.parent(cmd)
+				.resultFormat(ResultFormatType.JSON)
+				.result(args[0])
+				.build();
+
+		new Runner(options).run();
+		System.out.println("Results written to " + args[0]);
+	}
+}
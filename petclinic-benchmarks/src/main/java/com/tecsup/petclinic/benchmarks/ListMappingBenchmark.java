@@ -0,0 +1,76 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.entities.Owner;
+import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.mapper.OwnerMapper;
+import com.tecsup.petclinic.mapper.VetMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OwnerMapper and VetMapper list mapping, as used by the list endpoints
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListMappingBenchmark {
+
+	@Param({"10", "200", "10000"})
+	private int size;
+
+	private final OwnerMapper ownerMapper = OwnerMapper.INSTANCE;
+	private final VetMapper vetMapper = VetMapper.INSTANCE;
+
+	private List<Owner> owners;
+	private List<Vet> vets;
+
+	@Setup
+	public void setUp() {
+		owners = new ArrayList<>(size);
+		vets = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Owner owner = new Owner();
+			owner.setId((long) i);
+			owner.setFirstName("George" + i);
+			owner.setLastName("Franklin");
+			owner.setAddress("110 W. Liberty St.");
+			owner.setCity("Madison");
+			owner.setTelephone("6085551023");
+			owners.add(owner);
+
+			Vet vet = new Vet();
+			vet.setId(i);
+			vet.setFirstName("James" + i);
+			vet.setLastName("Carter");
+			vets.add(vet);
+		}
+	}
+
+	@Benchmark
+	public List<OwnerDTO> ownersToDtoList() {
+		return ownerMapper.mapToDtoList(owners);
+	}
+
+	@Benchmark
+	public List<VetDTO> vetsToDtoList() {
+		return vetMapper.mapToDtoList(vets);
+	}
+}
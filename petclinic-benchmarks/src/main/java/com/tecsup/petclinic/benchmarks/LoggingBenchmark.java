@@ -0,0 +1,129 @@
+package com.tecsup.petclinic.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.logging.EntityDumpSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging a page of PAGE_SIZE pets the way GET /pets did (the list, then every pet at INFO,
+ * messages built by concatenation) against the sampled DEBUG dump that replaced it.
+ * Events are formatted with the Spring Boot console pattern and written to a null stream,
+ * through the appender directly (sync) or through a bounded AsyncAppender (async).
+ * Add -prof gc for the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+	static final int PAGE_SIZE = 50;
+
+	private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %t --- %-40.40logger{39} : %m%n";
+
+	@Param({"sync", "async"})
+	private String appender;
+
+	private LoggerContext context;
+	private Logger log;
+	private Logger debugLog;
+	private EntityDumpSampler sampler;
+	private List<PetDTO> page;
+
+	@Setup
+	public void setUp() {
+		context = new LoggerContext();
+
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(context);
+		encoder.setPattern(PATTERN);
+		encoder.start();
+
+		OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+		sink.setContext(context);
+		sink.setEncoder(encoder);
+		sink.setOutputStream(OutputStream.nullOutputStream());
+		sink.start();
+
+		Appender<ILoggingEvent> target = sink;
+		if (appender.equals("async")) {
+			// Same settings as logback-spring.xml
+			AsyncAppender async = new AsyncAppender();
+			async.setContext(context);
+			async.setQueueSize(8192);
+			async.setNeverBlock(true);
+			async.addAppender(sink);
+			async.start();
+			target = async;
+		}
+
+		log = context.getLogger("com.tecsup.petclinic.webs.PetController");
+		log.setLevel(Level.INFO);
+		log.addAppender(target);
+		debugLog = context.getLogger("com.tecsup.petclinic.webs.PetControllerDebug");
+		debugLog.setLevel(Level.DEBUG);
+		debugLog.addAppender(target);
+
+		sampler = new EntityDumpSampler(100, 20);
+		page = new ArrayList<>(PAGE_SIZE);
+		for (int i = 1; i <= PAGE_SIZE; i++)
+			page.add(new PetDTO(i, "pet-" + i, 1 + i % 6, 1 + i % 10, "2020-01-01"));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.stop();
+	}
+
+	/**
+	 * What findAllPets logged on every call before
+	 */
+	@Benchmark
+	public void eagerInfo() {
+		List<PetDTO> petsTO = page;
+		log.info("petsTO: " + petsTO);
+		petsTO.forEach(item -> log.info("PetTO >>  {} ", item));
+	}
+
+	/**
+	 * The sampled dump with DEBUG off, as in production
+	 */
+	@Benchmark
+	public void sampledDebugOff() {
+		sampler.dump(log, "GET /pets", page);
+	}
+
+	/**
+	 * The sampled dump with DEBUG on: one call in 100 logs 20 rows
+	 */
+	@Benchmark
+	public void sampledDebugOn() {
+		sampler.dump(debugLog, "GET /pets", page);
+	}
+}
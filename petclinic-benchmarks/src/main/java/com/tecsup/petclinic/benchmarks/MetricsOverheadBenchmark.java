@@ -0,0 +1,74 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.PetClinicApplication;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.services.PetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service and repository timers on PetService.findById over the seeded pets.
+ * metrics=off removes both timers, the difference with metrics=on is the instrumentation.
+ * cache=caffeine is the hot path (a cache hit, the service timer only),
+ * cache=none reads the database through the repository timer too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+	static final int SEEDED_PETS = 13;
+
+	@Param({"off", "on"})
+	private String metrics;
+
+	@Param({"caffeine", "none"})
+	private String cache;
+
+	private ConfigurableApplicationContext context;
+	private PetService petService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		boolean enabled = metrics.equals("on");
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("h2")
+				// Arguments, not properties(): those are defaults application.yml overrides
+				.run("--spring.cache.type=" + cache,
+						"--petclinic.metrics.service-timers=" + enabled,
+						"--management.metrics.data.repository.autotime.enabled=" + enabled,
+						"--logging.level.root=WARN");
+		petService = context.getBean(PetService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public PetDTO findById() throws Exception {
+		return petService.findById(1 + ThreadLocalRandom.current().nextInt(SEEDED_PETS));
+	}
+}
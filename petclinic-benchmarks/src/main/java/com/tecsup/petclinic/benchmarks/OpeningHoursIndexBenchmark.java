@@ -0,0 +1,98 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.SpecialtyDTO;
+import com.tecsup.petclinic.services.OpeningHoursIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpeningHoursIndex over offices clinics of SPECIALTIES specialties each, no Spring context
+ * and no database. Hours are random, one specialty in ten open past midnight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpeningHoursIndexBenchmark {
+
+	static final int SPECIALTIES = 10;
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 18, 0, 0);
+
+	@Param({"100", "1000"})
+	private int offices;
+
+	private OpeningHoursIndex index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		index = new OpeningHoursIndex(null);
+		Random random = new Random(42);
+		for (int id = 1; id <= offices * SPECIALTIES; id++) {
+			int open = random.nextInt(10) == 0 ? 18 + random.nextInt(4) : 6 + random.nextInt(4);
+			int close = open >= 18 ? random.nextInt(8) : 12 + random.nextInt(8);
+			index.put(SpecialtyDTO.builder().id(id).name("specialty " + id % SPECIALTIES)
+					.office(office((id - 1) / SPECIALTIES)).openHour(open).closeHour(close).build());
+		}
+	}
+
+	private static String office(int office) {
+		return "Office " + office;
+	}
+
+	private LocalDateTime anyTime() {
+		return DAY.plusMinutes(ThreadLocalRandom.current().nextInt(24 * 60));
+	}
+
+	/**
+	 * A kiosk poll: what its office has open now
+	 */
+	@Benchmark
+	public List<SpecialtyDTO> openAtOffice() {
+		return index.findOpen(anyTime(), office(ThreadLocalRandom.current().nextInt(offices)));
+	}
+
+	/**
+	 * Everything open now, every office: about half of all the specialties
+	 */
+	@Benchmark
+	public List<SpecialtyDTO> openEverywhere() {
+		return index.findOpen(anyTime(), null);
+	}
+
+	@Benchmark
+	public Optional<OpeningDTO> nextOpening() {
+		return index.findNextOpening(1 + ThreadLocalRandom.current().nextInt(offices * SPECIALTIES), anyTime());
+	}
+
+	/**
+	 * A specialty changing its hours, what SpecialtyServiceImpl.update does once committed
+	 */
+	@Benchmark
+	public void update() {
+		int id = 1 + ThreadLocalRandom.current().nextInt(offices * SPECIALTIES);
+		int open = 6 + ThreadLocalRandom.current().nextInt(4);
+		index.put(SpecialtyDTO.builder().id(id).name("specialty " + id % SPECIALTIES)
+				.office(office((id - 1) / SPECIALTIES)).openHour(open).closeHour(open + 8).build());
+	}
+}
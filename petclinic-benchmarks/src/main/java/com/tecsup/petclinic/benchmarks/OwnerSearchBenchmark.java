@@ -0,0 +1,136 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.PetClinicApplication;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.entities.SearchText;
+import com.tecsup.petclinic.services.OwnerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /owners/search as the reception desk uses it: a 3 letter prefix, with and
+ * without a city, against an embedded H2 seeded with scale owners.
+ * Names are built from SYLLABLES, so a prefix matches about scale / 256 owners
+ * and a prefix in one city about scale / (256 * CITIES).
+ * Sample time mode: read the p0.99 line, the target is under 20 ms at 1M owners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerSearchBenchmark {
+
+	static final int LIMIT = 20;
+
+	static final int CITIES = 50;
+
+	private static final String[] SYLLABLES = {"ba", "ce", "di", "fo", "gu", "ha", "jo", "ki",
+			"lu", "ma", "ne", "po", "ra", "si", "to", "vu"};
+
+	private static final int FIRST_ID = 1000;
+
+	private static final int SEED_BATCH = 5000;
+
+	@Param({"1000000"})
+	private int scale;
+
+	private ConfigurableApplicationContext context;
+	private OwnerService ownerService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("h2")
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false",
+						"spring.jpa.show-sql=false",
+						"logging.level.root=WARN")
+				.run();
+		ownerService = context.getBean(OwnerService.class);
+		seed(context.getBean(JdbcTemplate.class));
+	}
+
+	private void seed(JdbcTemplate jdbcTemplate) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Object[]> rows = new ArrayList<>(SEED_BATCH);
+		for (int i = 0; i < scale; i++) {
+			String firstName = capitalize(name(random, 2));
+			String lastName = capitalize(name(random, 3));
+			String city = city(random.nextInt(CITIES));
+			rows.add(new Object[]{FIRST_ID + i, firstName, lastName, city,
+					SearchText.normalize(firstName), SearchText.normalize(lastName), SearchText.normalize(city)});
+			if (rows.size() == SEED_BATCH || i == scale - 1) {
+				jdbcTemplate.batchUpdate("insert into owners (id, first_name, last_name, city,"
+						+ " first_name_norm, last_name_norm, city_norm) values (?, ?, ?, ?, ?, ?, ?)", rows);
+				rows.clear();
+			}
+		}
+		jdbcTemplate.execute("analyze");
+	}
+
+	private static String name(ThreadLocalRandom random, int syllables) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < syllables; i++)
+			name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		return name.toString();
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String city(int n) {
+		return "City " + n;
+	}
+
+	/**
+	 * A prefix of 3 letters, "bac" for instance
+	 */
+	private static String prefix(ThreadLocalRandom random) {
+		return name(random, 2).substring(0, 3).toUpperCase();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<OwnerDTO> searchByName() {
+		return ownerService.search(prefix(ThreadLocalRandom.current()), null, LIMIT);
+	}
+
+	@Benchmark
+	public List<OwnerDTO> searchByNameInCity() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return ownerService.search(prefix(random), city(random.nextInt(CITIES)).toLowerCase(), LIMIT);
+	}
+
+	@Benchmark
+	public List<OwnerDTO> searchByCity() {
+		return ownerService.search(null, city(ThreadLocalRandom.current().nextInt(CITIES)), LIMIT);
+	}
+}
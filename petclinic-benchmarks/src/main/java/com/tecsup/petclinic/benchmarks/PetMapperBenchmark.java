@@ -0,0 +1,64 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.entities.Pet;
+import com.tecsup.petclinic.mapper.PetMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PetMapper conversions, including the date parsing and formatting
+ * done on every call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetMapperBenchmark {
+
+	private final PetMapper mapper = PetMapper.INSTANCE;
+
+	private Pet pet;
+	private PetDTO petDTO;
+	private Date birthDate;
+
+	@Setup
+	public void setUp() {
+		petDTO = new PetDTO(1, "Leo", 1, 1, "2000-09-07");
+		pet = mapper.mapToEntity(petDTO);
+		birthDate = pet.getBirthDate();
+	}
+
+	@Benchmark
+	public PetDTO mapToDto() {
+		return mapper.mapToDto(pet);
+	}
+
+	@Benchmark
+	public Pet mapToEntity() {
+		return mapper.mapToEntity(petDTO);
+	}
+
+	@Benchmark
+	public Date stringToDate() {
+		return mapper.stringToDate("2000-09-07");
+	}
+
+	@Benchmark
+	public String dateToString() {
+		return mapper.dateToString(birthDate);
+	}
+}
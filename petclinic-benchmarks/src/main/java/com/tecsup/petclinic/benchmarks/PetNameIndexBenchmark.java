@@ -0,0 +1,92 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import com.tecsup.petclinic.services.PetNameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PetNameIndex suggestions over scale distinct names, no Spring context and no database.
+ * Names are NAME_SYLLABLES syllables out of SYLLABLES, added in random order.
+ * The setup prints the heap the index retains, strings included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetNameIndexBenchmark {
+
+	static final int LIMIT = 10;
+
+	static final int NAME_SYLLABLES = 5;
+
+	private static final String[] SYLLABLES = {"ba", "ce", "di", "fo", "gu", "ha", "jo", "ki",
+			"lu", "ma", "ne", "po", "ra", "si", "to", "vu"};
+
+	@Param({"1000000"})
+	private int scale;
+
+	private PetNameIndex index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		long before = usedHeap();
+		index = new PetNameIndex(null);
+		// A random permutation of the names 0..scale-1, by a multiplier coprime with 2^20
+		int space = 1 << (4 * NAME_SYLLABLES);
+		for (int i = 0; i < scale; i++)
+			index.add(name((int) ((i * 0x9E3779B1L) & (space - 1))));
+		long bytes = usedHeap() - before;
+		System.out.printf("PetNameIndex footprint: %d names retain %.1f MB, %d bytes per name, %.1f MB per million%n",
+				index.size(), bytes / 1048576.0, bytes / index.size(), bytes * (1_000_000.0 / index.size()) / 1048576.0);
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static String name(int n) {
+		StringBuilder name = new StringBuilder(2 * NAME_SYLLABLES);
+		for (int i = 0; i < NAME_SYLLABLES; i++, n >>>= 4)
+			name.append(SYLLABLES[n & 15]);
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String prefix(int letters) {
+		return name(ThreadLocalRandom.current().nextInt(1 << 20)).substring(0, letters);
+	}
+
+	@Benchmark
+	public List<NameSuggestionDTO> suggestOneLetter() {
+		return index.suggest(prefix(1), LIMIT);
+	}
+
+	@Benchmark
+	public List<NameSuggestionDTO> suggestThreeLetters() {
+		return index.suggest(prefix(3), LIMIT);
+	}
+
+	@Benchmark
+	public List<NameSuggestionDTO> suggestSixLetters() {
+		return index.suggest(prefix(6), LIMIT);
+	}
+}
@@ -0,0 +1,106 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.PetClinicApplication;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.services.PetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PetService lookups against an embedded H2 seeded with scale pets.
+ * Every name is shared by NAME_MATCHES pets. cache=none measures findById
+ * without the Caffeine cache in front of the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetServiceBenchmark {
+
+	static final int NAME_MATCHES = 10;
+
+	private static final int FIRST_ID = 1000;
+
+	private static final int SEED_BATCH = 1000;
+
+	@Param({"1000", "100000"})
+	private int scale;
+
+	@Param({"caffeine", "none"})
+	private String cache;
+
+	private ConfigurableApplicationContext context;
+	private PetService petService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("h2")
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false",
+						"spring.jpa.show-sql=false",
+						// The services log every row they read: keep the console quiet,
+						// the messages are still built before the level check
+						"logging.level.root=WARN")
+				// spring.cache.type is set in application.yml, which overrides properties()
+				.run("--spring.cache.type=" + cache);
+		petService = context.getBean(PetService.class);
+		seed(context.getBean(JdbcTemplate.class));
+	}
+
+	private void seed(JdbcTemplate jdbcTemplate) {
+		Date birthDate = Date.valueOf("2020-01-01");
+		List<Object[]> rows = new ArrayList<>(SEED_BATCH);
+		for (int i = 0; i < scale; i++) {
+			rows.add(new Object[]{FIRST_ID + i, name(i / NAME_MATCHES), birthDate, 1 + i % 6, 1 + i % 10});
+			if (rows.size() == SEED_BATCH || i == scale - 1) {
+				jdbcTemplate.batchUpdate(
+						"insert into pets (id, name, birth_date, type_id, owner_id) values (?, ?, ?, ?, ?)", rows);
+				rows.clear();
+			}
+		}
+	}
+
+	private static String name(int group) {
+		return "pet-" + group;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public PetDTO findById() throws Exception {
+		return petService.findById(FIRST_ID + ThreadLocalRandom.current().nextInt(scale));
+	}
+
+	@Benchmark
+	public List<PetDTO> findByName() {
+		return petService.findByName(name(ThreadLocalRandom.current().nextInt(scale / NAME_MATCHES)));
+	}
+}
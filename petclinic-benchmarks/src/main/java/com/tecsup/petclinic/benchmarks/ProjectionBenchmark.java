@@ -0,0 +1,127 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.PetClinicApplication;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.mapper.OwnerMapper;
+import com.tecsup.petclinic.mapper.PetMapper;
+import com.tecsup.petclinic.repositories.OwnerRepository;
+import com.tecsup.petclinic.repositories.PetRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One keyset page of pets and of owners read two ways: managed entities copied by
+ * the MapStruct mapper (the former read path), and the constructor expression
+ * queries that build the DTOs directly.
+ * Run with -prof gc to compare the bytes allocated per page (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+	private static final int ROWS = 20_000;
+
+	private static final int FIRST_ID = 1000;
+
+	private static final int SEED_BATCH = 1000;
+
+	@Param({"50", "200"})
+	private int pageSize;
+
+	private ConfigurableApplicationContext context;
+	private PetRepository petRepository;
+	private OwnerRepository ownerRepository;
+	private PetMapper petMapper;
+	private OwnerMapper ownerMapper;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("h2")
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false",
+						"spring.jpa.show-sql=false",
+						"logging.level.root=WARN")
+				.run();
+		petRepository = context.getBean(PetRepository.class);
+		ownerRepository = context.getBean(OwnerRepository.class);
+		petMapper = context.getBean(PetMapper.class);
+		ownerMapper = context.getBean(OwnerMapper.class);
+		seed(context.getBean(JdbcTemplate.class));
+	}
+
+	private void seed(JdbcTemplate jdbcTemplate) {
+		Date birthDate = Date.valueOf("2020-01-01");
+		List<Object[]> pets = new ArrayList<>(SEED_BATCH);
+		List<Object[]> owners = new ArrayList<>(SEED_BATCH);
+		for (int i = 0; i < ROWS; i++) {
+			pets.add(new Object[]{FIRST_ID + i, "pet-" + i, birthDate, 1 + i % 6, 1 + i % 10});
+			owners.add(new Object[]{FIRST_ID + i, "First" + i, "Last" + i, i + " Main St.", "Madison", "608555" + i});
+			if (pets.size() == SEED_BATCH || i == ROWS - 1) {
+				jdbcTemplate.batchUpdate(
+						"insert into pets (id, name, birth_date, type_id, owner_id) values (?, ?, ?, ?, ?)", pets);
+				jdbcTemplate.batchUpdate("insert into owners (id, first_name, last_name, address, city, telephone)"
+						+ " values (?, ?, ?, ?, ?, ?)", owners);
+				pets.clear();
+				owners.clear();
+			}
+		}
+	}
+
+	private int after() {
+		return FIRST_ID + ThreadLocalRandom.current().nextInt(ROWS - pageSize);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<PetDTO> petsEntityMapper() {
+		return petMapper.mapToDtoList(petRepository.findByIdGreaterThanOrderByIdAsc(after(), Limit.of(pageSize)));
+	}
+
+	@Benchmark
+	public List<PetDTO> petsProjection() {
+		return petRepository.findPageAfter(after(), Limit.of(pageSize));
+	}
+
+	@Benchmark
+	public List<OwnerDTO> ownersEntityMapper() {
+		return ownerMapper.mapToDtoList(ownerRepository.findByIdGreaterThanOrderByIdAsc((long) after(), Limit.of(pageSize)));
+	}
+
+	@Benchmark
+	public List<OwnerDTO> ownersProjection() {
+		return ownerRepository.findPageAfter((long) after(), Limit.of(pageSize));
+	}
+}
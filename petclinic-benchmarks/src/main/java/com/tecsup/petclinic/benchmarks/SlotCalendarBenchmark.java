@@ -0,0 +1,66 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.repositories.VisitRepository;
+import com.tecsup.petclinic.services.SlotCalendar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking attempts per second on the SlotCalendar of one popular vet, THREADS
+ * receptionists at once, no database: the day is read once from a stub.
+ * Each won slot is released right away so the contention never runs out; slots=1 has
+ * everybody after the same slot, slots=48 spreads them over the whole day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(SlotCalendarBenchmark.THREADS)
+@Fork(1)
+public class SlotCalendarBenchmark {
+
+	static final int THREADS = 4;
+
+	private static final LocalDate DAY = LocalDate.of(2026, 10, 20);
+
+	@Param({"1", "48"})
+	private int slots;
+
+	private SlotCalendar calendar;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// No visit booked yet: findBookedTimes, the only call, finds none
+		VisitRepository visits = (VisitRepository) Proxy.newProxyInstance(VisitRepository.class.getClassLoader(),
+				new Class<?>[]{VisitRepository.class}, (proxy, method, args) -> List.of());
+		calendar = new SlotCalendar(visits, 1000, Duration.ofHours(1));
+	}
+
+	@Benchmark
+	public boolean bookAndCancel() {
+		int slot = ThreadLocalRandom.current().nextInt(slots);
+		boolean booked = calendar.claim(1, DAY, slot);
+		if (booked)
+			calendar.release(1, DAY, slot);
+		return booked;
+	}
+}
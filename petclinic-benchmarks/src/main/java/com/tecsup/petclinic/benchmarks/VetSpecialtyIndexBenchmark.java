@@ -0,0 +1,89 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.services.VetSpecialtyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VetSpecialtyIndex matching over scale vets, no Spring context and no database.
+ * Each vet has each of SPECIALTIES specialties with probability 1/5, except the last
+ * one, only given to vets without the first: matching both scans every vet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VetSpecialtyIndexBenchmark {
+
+	static final int LIMIT = 50;
+
+	static final int SPECIALTIES = 20;
+
+	@Param({"1000", "100000"})
+	private int scale;
+
+	private VetSpecialtyIndex index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		index = new VetSpecialtyIndex(null);
+		Random random = new Random(42);
+		for (int vet = 1; vet <= scale; vet++) {
+			List<String> specialties = new ArrayList<>();
+			for (int s = 0; s < SPECIALTIES - 1; s++)
+				if (random.nextInt(5) == 0)
+					specialties.add(specialty(s));
+			if (!specialties.contains(specialty(0)) && random.nextInt(5) == 0)
+				specialties.add(specialty(SPECIALTIES - 1));
+			index.put(vet, specialties);
+		}
+	}
+
+	private static String specialty(int s) {
+		return "specialty " + s;
+	}
+
+	/**
+	 * Two specialties out of the first SPECIALTIES - 1, one vet in 25 has both
+	 */
+	@Benchmark
+	public List<Integer> allOfTwo() {
+		int first = ThreadLocalRandom.current().nextInt(SPECIALTIES - 2);
+		return index.findAll(List.of(specialty(first), specialty(first + 1)), LIMIT);
+	}
+
+	/**
+	 * Three specialties, one vet in 125 has them all
+	 */
+	@Benchmark
+	public List<Integer> allOfThree() {
+		int first = ThreadLocalRandom.current().nextInt(SPECIALTIES - 3);
+		return index.findAll(List.of(specialty(first), specialty(first + 1), specialty(first + 2)), LIMIT);
+	}
+
+	/**
+	 * No vet has both: every vet is checked
+	 */
+	@Benchmark
+	public List<Integer> noMatch() {
+		return index.findAll(List.of(specialty(0), specialty(SPECIALTIES - 1)), LIMIT);
+	}
+}
@@ -0,0 +1,63 @@
+package com.tecsup.petclinic.benchmarks;
+
+import com.tecsup.petclinic.repositories.VisitRepository;
+import com.tecsup.petclinic.services.VetSpecialtyIndex;
+import com.tecsup.petclinic.services.VetWorkload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Least loaded vet assignments per second, THREADS receptionists at once giving visits to
+ * the vets of one specialty, no database: every assignment finds the vets in the
+ * VetSpecialtyIndex and sums their workload counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(VetWorkloadBenchmark.THREADS)
+@Fork(1)
+public class VetWorkloadBenchmark {
+
+	static final int THREADS = 4;
+
+	@Param({"10", "100"})
+	private int vets;
+
+	private VetWorkload workload;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		VetSpecialtyIndex index = new VetSpecialtyIndex(null);
+		for (int vet = 1; vet <= vets; vet++)
+			index.put(vet, List.of("surgery"));
+		// No visit stored yet: countVisitsByVetFrom, the only call, finds none
+		VisitRepository visits = (VisitRepository) Proxy.newProxyInstance(VisitRepository.class.getClassLoader(),
+				new Class<?>[]{VisitRepository.class}, (proxy, method, args) -> List.of());
+		workload = new VetWorkload(visits, index, Duration.ZERO);
+		workload.reconcile();
+	}
+
+	@Benchmark
+	public Optional<Integer> assign() {
+		return workload.assign("surgery");
+	}
+}
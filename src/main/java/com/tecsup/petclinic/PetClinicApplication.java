@@ -2,13 +2,17 @@ package com.tecsup.petclinic;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 
 /**
- * 
+ * The cache advice runs just outside the transaction advice: a cache hit opens
+ * no transaction and takes no connection, and @CachePut stores committed results only.
  * @author jgomezm
  *
  */
 @SpringBootApplication
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
 public class PetClinicApplication {
 
 	/**
@@ -0,0 +1,77 @@
+package com.tecsup.petclinic.cli;
+
+import com.tecsup.petclinic.dtos.ImportReportDTO;
+import com.tecsup.petclinic.services.ImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line import, for files too large to upload:
+ * <pre>
+ * java -jar petclinic.jar --import.owners=owners.csv --import.pets=pets.csv
+ * </pre>
+ * Owners are imported first so the pets can reference them.
+ * The application exits once the import is done.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class CsvImportRunner implements ApplicationRunner {
+
+    static final String OWNERS_OPTION = "import.owners";
+
+    static final String PETS_OPTION = "import.pets";
+
+    private ImportService importService;
+    private ConfigurableApplicationContext context;
+
+    public CsvImportRunner(ImportService importService, ConfigurableApplicationContext context) {
+        this.importService = importService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!args.containsOption(OWNERS_OPTION) && !args.containsOption(PETS_OPTION))
+            return;
+
+        boolean ok = true;
+        for (String file : files(args, OWNERS_OPTION)) {
+            try (InputStream in = Files.newInputStream(Path.of(file))) {
+                ok &= report(file, importService.importOwners(in));
+            }
+        }
+        for (String file : files(args, PETS_OPTION)) {
+            try (InputStream in = Files.newInputStream(Path.of(file))) {
+                ok &= report(file, importService.importPets(in));
+            }
+        }
+
+        int exitCode = ok ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private List<String> files(ApplicationArguments args, String option) {
+        List<String> values = args.getOptionValues(option);
+        return values == null ? List.of() : values;
+    }
+
+    private boolean report(String file, ImportReportDTO report) {
+        log.info("{}: {} rows read, {} imported, {} rejected in {} ms ({} rows/s)", file,
+                report.getRowsRead(), report.getRowsImported(), report.getRowsRejected(),
+                report.getElapsedMillis(), report.getRowsPerSecond());
+        report.getErrors().forEach(error -> log.warn("{} line {}: {}", file, error.getLine(), error.getMessage()));
+        return report.isCompleted() && report.getRowsRejected() == 0;
+    }
+
+}
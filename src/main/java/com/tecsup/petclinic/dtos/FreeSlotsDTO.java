@@ -0,0 +1,26 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Free appointment times (HH:mm) of a vet on a day
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class FreeSlotsDTO {
+
+    private Integer vetId;
+
+    private String date;
+
+    private List<String> times;
+
+}
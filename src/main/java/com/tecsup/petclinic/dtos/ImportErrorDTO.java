@@ -0,0 +1,22 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A CSV row rejected by an import
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ImportErrorDTO {
+
+    private long line;
+
+    private String message;
+
+}
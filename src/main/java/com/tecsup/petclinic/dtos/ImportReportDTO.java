@@ -0,0 +1,35 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import.
+ * errors holds at most the first rejected rows, rowsRejected counts all of them.
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ImportReportDTO {
+
+    private long rowsRead;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private boolean completed;
+
+    private long elapsedMillis;
+
+    private long rowsPerSecond;
+
+    private List<ImportErrorDTO> errors;
+
+}
@@ -0,0 +1,30 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of the visit ingestion queue and counters since startup
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class IngestionStatsDTO {
+
+    private int capacity;
+
+    private int queued;
+
+    private long batches;
+
+    private long rowsWritten;
+
+    private long rowsFailed;
+
+    private long rowsRejected;
+
+}
@@ -0,0 +1,20 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One typeahead suggestion: a pet name and how many pets bear it
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class NameSuggestionDTO {
+
+    private String name;
+
+    private int pets;
+
+}
@@ -0,0 +1,31 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next opening of a specialty: opensAt is the time asked for when it is open then.
+ * Both times are null for a specialty without opening hours.
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OpeningDTO {
+
+    private Integer specialtyId;
+
+    private String name;
+
+    private String office;
+
+    private boolean open;
+
+    private String opensAt;
+
+    private String closesAt;
+
+}
@@ -0,0 +1,35 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of results.
+ * hasNext tells whether another page exists after the last element of content.
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PageDTO<T> {
+
+    private List<T> content;
+
+    private boolean hasNext;
+
+    /**
+     * Build a page from a result fetched with limit + 1 rows
+     * @param rows
+     * @param limit
+     * @return
+     */
+    public static <T> PageDTO<T> of(List<T> rows, int limit) {
+        if (rows.size() > limit)
+            return new PageDTO<>(rows.subList(0, limit), true);
+        return new PageDTO<>(rows, false);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A virtual thread pinned to its carrier thread, with the top of its stack
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PinnedEventDTO {
+
+    private String startTime;
+
+    private long durationMillis;
+
+    private String thread;
+
+    private List<String> stackTrace;
+
+}
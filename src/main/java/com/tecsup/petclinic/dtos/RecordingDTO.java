@@ -0,0 +1,34 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A JFR recording of the admin endpoint and its limits
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class RecordingDTO {
+
+    private long id;
+
+    private String state;
+
+    private String settings;
+
+    private String startTime;
+
+    private String stopTime;
+
+    private long maxAgeSeconds;
+
+    private long maxSizeBytes;
+
+    private long size;
+
+}
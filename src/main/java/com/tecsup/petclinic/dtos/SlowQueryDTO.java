@@ -0,0 +1,39 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A SQL statement slower than the threshold, with its bind values, the endpoint and
+ * service method that ran it and, for a select, the plan of the database
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder(toBuilder = true)
+public class SlowQueryDTO {
+
+    private String startTime;
+
+    private long elapsedMillis;
+
+    private String endpoint;
+
+    private String serviceMethod;
+
+    private String thread;
+
+    private String sql;
+
+    private List<String> parameters;
+
+    private int batchSize;
+
+    private String plan;
+
+}
@@ -0,0 +1,28 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Slow-query log threshold, count and most recent entries
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class SlowQueryStatsDTO {
+
+    private boolean enabled;
+
+    private long thresholdMillis;
+
+    private long slowCount;
+
+    private List<SlowQueryDTO> recent;
+
+}
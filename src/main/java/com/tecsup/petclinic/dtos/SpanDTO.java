@@ -0,0 +1,38 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * One finished span of a trace, parentSpanId is null for the root
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class SpanDTO {
+
+    private String traceId;
+
+    private String spanId;
+
+    private String parentSpanId;
+
+    private String name;
+
+    private String kind;
+
+    private String startTime;
+
+    private long durationMicros;
+
+    private String status;
+
+    private Map<String, String> attributes;
+
+}
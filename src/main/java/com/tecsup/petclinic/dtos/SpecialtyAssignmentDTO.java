@@ -0,0 +1,27 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a specialty assignment: the vets with their specialties, and the
+ * vet_specialties rows it inserted and deleted, zero for a vet left as it was
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class SpecialtyAssignmentDTO {
+
+    private List<VetDTO> vets;
+
+    private int inserted;
+
+    private int deleted;
+
+}
@@ -0,0 +1,24 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Specialty ids to give to a vet and to take from it, for PATCH /vets/{id}/specialties
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class SpecialtyChangesDTO {
+
+    private List<Integer> add;
+
+    private List<Integer> remove;
+
+}
@@ -6,7 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * DTO for Specialty entity
+ * DTO for Specialty entity.
+ * Open every day from openHour to closeHour (0 to 24), past midnight when closeHour < openHour.
  * @author jgomezm
  */
 @NoArgsConstructor
@@ -19,4 +20,10 @@ public class SpecialtyDTO {
 
     private String name;
 
+    private String office;
+
+    private Integer openHour;
+
+    private Integer closeHour;
+
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request execution mode, in-flight limit and virtual thread pinning
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ThreadStatsDTO {
+
+    private boolean virtualThreads;
+
+    private int maxInFlight;
+
+    private int inFlight;
+
+    private long rejected;
+
+    private boolean pinningMonitor;
+
+    private long pinnedCount;
+
+    private List<PinnedEventDTO> recentPinned;
+
+}
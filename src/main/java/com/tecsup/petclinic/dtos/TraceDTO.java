@@ -0,0 +1,31 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The spans of one trace still in memory, by start time.
+ * name, startTime and durationMicros are those of its root span.
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class TraceDTO {
+
+    private String traceId;
+
+    private String name;
+
+    private String startTime;
+
+    private long durationMicros;
+
+    private List<SpanDTO> spans;
+
+}
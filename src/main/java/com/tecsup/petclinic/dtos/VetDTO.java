@@ -1,18 +1,22 @@
 package com.tecsup.petclinic.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
- * DTO for Vet entity
+ * DTO for Vet entity.
+ * specialties holds the names of the vet's specialties when they were asked for, else null.
  * @author jgomezm
  */
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class VetDTO {
 
     private Integer id;
@@ -21,4 +25,14 @@ public class VetDTO {
 
     private String lastName;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> specialties;
+
+    /**
+     * Without specialties, for the projection queries of VetRepository
+     */
+    public VetDTO(Integer id, String firstName, String lastName) {
+        this(id, firstName, lastName, null);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The complete list of specialty ids of a vet, one entry of PUT /vets/specialties
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class VetSpecialtiesDTO {
+
+    private Integer vetId;
+
+    private List<Integer> specialtyIds;
+
+}
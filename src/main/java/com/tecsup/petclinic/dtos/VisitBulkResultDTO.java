@@ -0,0 +1,24 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk visit submission: the stored visits with their ids, and the rejected ones
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class VisitBulkResultDTO {
+
+    private List<VisitDTO> visits;
+
+    private List<VisitErrorDTO> errors;
+
+}
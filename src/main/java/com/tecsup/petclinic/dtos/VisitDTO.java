@@ -1,2 +1,56 @@
-package com.tecsup.petclinic.dtos;public class VisitDTO {
+package com.tecsup.petclinic.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for Visit entity.
+ * visitTime (HH:mm) is the booked slot of an appointment, null for other visits.
+ * specialtyId is only read, never stored: a new visit without vetId goes to the least
+ * loaded vet of the specialty.
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class VisitDTO {
+
+    private Long id;
+
+    private Integer petId;
+
+    private String visitDate;
+
+    private String description;
+
+    private Integer vetId;
+
+    private BigDecimal cost;
+
+    private String visitTime;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer specialtyId;
+
+    /**
+     * Without time, for visits recorded without an appointment
+     */
+    public VisitDTO(Long id, Integer petId, String visitDate, String description, Integer vetId, BigDecimal cost) {
+        this(id, petId, visitDate, description, vetId, cost, null, null);
+    }
+
+    /**
+     * As stored, read by VisitRepository.VISIT_DTO
+     */
+    public VisitDTO(Long id, Integer petId, String visitDate, String description, Integer vetId, BigDecimal cost,
+                    String visitTime) {
+        this(id, petId, visitDate, description, vetId, cost, visitTime, null);
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.tecsup.petclinic.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A visit of a bulk submission that was not stored, by its position in the request
+ * @author jgomezm
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class VisitErrorDTO {
+
+    private int index;
+
+    private String message;
+
+}
@@ -1,9 +1,12 @@
 package com.tecsup.petclinic.entities;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.util.Set;
@@ -19,7 +22,9 @@ import java.util.Set;
 public class Owner {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "owners_seq")
+	@TableGenerator(name = "owners_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "owners", allocationSize = 50)
 	private Long id;
 
 	@Column(name = "first_name")
@@ -37,6 +42,31 @@ public class Owner {
 	@Column(name = "telephone")
 	private String telephone;
 
+	// Normalized copies searched by /owners/search, see SearchText.
+	// Only written by normalize(), never exposed
+	@Column(name = "first_name_norm")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private String firstNameNorm;
+
+	@Column(name = "last_name_norm")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private String lastNameNorm;
+
+	@Column(name = "city_norm")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private String cityNorm;
+
+	@PrePersist
+	@PreUpdate
+	void normalize() {
+		this.firstNameNorm = SearchText.normalize(firstName);
+		this.lastNameNorm = SearchText.normalize(lastName);
+		this.cityNorm = SearchText.normalize(city);
+	}
+
 //	@OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
 //	@ToString.Exclude
 //	// @EqualsAndHashCode.Exclude
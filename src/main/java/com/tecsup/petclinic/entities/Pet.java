@@ -1,14 +1,11 @@
 package com.tecsup.petclinic.entities;
 
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import lombok.ToString;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.*;
 import java.util.Date;
-import java.util.Set;
 
 /**
  * 
@@ -21,7 +18,9 @@ import java.util.Set;
 public class Pet {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "pets_seq")
+	@TableGenerator(name = "pets_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "pets", allocationSize = 50)
 	private Integer id;
 
 	@Column(name = "name")
@@ -37,11 +36,8 @@ public class Pet {
 	@Column(name = "birth_date")
 	private Date birthDate;
 
-
-	@OneToMany(mappedBy = "pet", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-	@ToString.Exclude
-	//@EqualsAndHashCode.Exclude
-	private Set<Visit> visits;
+	// No visits collection: a pet's history is read in pages through
+	// VisitRepository, and the visits rows are removed by ON DELETE CASCADE
 
 //	@ManyToOne(fetch = FetchType.LAZY)
 //	@JoinColumn(name = "type_id")
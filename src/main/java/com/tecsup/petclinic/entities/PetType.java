@@ -5,23 +5,31 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.util.Date;
 import java.util.Set;
 
 /**
- * 
+ * Reference data, never written by the application: immutable, so cached read-only in the second-level cache
  * @author jgomezm
  *
  */
 @NoArgsConstructor
 @Entity(name = "types")
 @Data
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "types")
 public class PetType {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "types_seq")
+	@TableGenerator(name = "types_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "types", allocationSize = 50)
 	private Integer id;
 
 	@Column(name = "name")
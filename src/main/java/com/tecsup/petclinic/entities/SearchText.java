@@ -0,0 +1,45 @@
+package com.tecsup.petclinic.entities;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized form of the text columns searched by prefix:
+ * trimmed, lower case, without accents and with single spaces,
+ * so that "  José " and "jose" share one index entry.
+ * @author jgomezm
+ */
+public final class SearchText {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	private SearchText() {
+	}
+
+	/**
+	 * Normalize a value, or a search term to compare with normalized values
+	 * @param text
+	 * @return null for null
+	 */
+	public static String normalize(String text) {
+		if (text == null)
+			return null;
+		String plain = MARKS.matcher(Normalizer.normalize(text.trim(), Normalizer.Form.NFD)).replaceAll("");
+		return SPACES.matcher(plain).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * LIKE pattern matching every value starting with prefix, with its own
+	 * wildcards escaped. To be used with escape '!', which unlike a backslash
+	 * reads the same in H2 and MySQL string literals.
+	 * @param prefix a normalized prefix
+	 * @return
+	 */
+	public static String startsWith(String prefix) {
+		return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+	}
+
+}
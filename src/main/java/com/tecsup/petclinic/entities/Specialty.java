@@ -5,28 +5,45 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
 /**
- * 
+ * Reference data, rarely written: cached in the second-level cache, a write
+ * invalidates the entry after the commit
  * @author jgomezm
  *
  */
 @NoArgsConstructor
 @Entity(name = "specialties")
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "specialties")
 public class Specialty {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "specialties_seq")
+	@TableGenerator(name = "specialties_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "specialties", allocationSize = 50)
 	private Integer id;
 
 	@Column(name = "name")
 	private String name;
 
+	@Column(name = "office")
+	private String office;
+
+	// Opening hours, whole hours of the day; past midnight when closeHour < openHour
+	@Column(name = "h_open")
+	private Integer openHour;
+
+	@Column(name = "h_close")
+	private Integer closeHour;
+
 	@ManyToMany(mappedBy = "specialties", fetch = FetchType.LAZY)
 	@ToString.Exclude
-	//@EqualsAndHashCode.Exclude
+	@EqualsAndHashCode.Exclude
 	private Set<Vet> vets;
 }
\ No newline at end of file
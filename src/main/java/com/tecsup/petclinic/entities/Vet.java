@@ -2,7 +2,10 @@ package com.tecsup.petclinic.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
@@ -17,7 +20,9 @@ import java.util.Set;
 public class Vet {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "vets_seq")
+	@TableGenerator(name = "vets_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "vets", allocationSize = 50)
 	private Integer id;
 
 	@Column(name = "first_name")
@@ -32,6 +37,9 @@ public class Vet {
 			joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id")
 	)
+	// Caches the specialty ids of each vet, the specialties themselves come from their own region
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "vets-specialties")
+	@EqualsAndHashCode.Exclude
 	private Set<Specialty> specialties;
 
 }
\ No newline at end of file
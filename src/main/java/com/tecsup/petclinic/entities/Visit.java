@@ -2,10 +2,13 @@ package com.tecsup.petclinic.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 /**
  * 
@@ -18,17 +21,30 @@ import java.time.LocalDate;
 public class Visit {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "visits_seq")
+	@TableGenerator(name = "visits_seq", table = "id_sequences", pkColumnName = "seq_name",
+			valueColumnName = "next_val", pkColumnValue = "visits", allocationSize = 50)
 	private Long id;
 
 	@Column(name = "visit_date")
 	private LocalDate visitDate;
 
+	// Start of the booked slot, null for visits recorded without an appointment
+	@Column(name = "visit_time")
+	private LocalTime visitTime;
+
 	@Column(name = "description")
 	private String description;
 
+	@Column(name = "vet_id")
+	private Integer vetId;
+
+	@Column(name = "cost")
+	private BigDecimal cost;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "pet_id")
-	//@ToString.Exclude
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Pet pet;
 }
\ No newline at end of file
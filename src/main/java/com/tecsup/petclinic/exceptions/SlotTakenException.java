@@ -0,0 +1,15 @@
+package com.tecsup.petclinic.exceptions;
+
+/**
+ * Exception for an appointment refused because its vet is already booked at that time
+ * @author jgomezm
+ */
+public class SlotTakenException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public SlotTakenException(String message) {
+        super(message);
+    }
+
+}
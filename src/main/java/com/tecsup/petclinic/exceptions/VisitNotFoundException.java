@@ -1,2 +1,15 @@
-package com.tecsup.petclinic.exceptions;public class VisitNotFoundException {
+package com.tecsup.petclinic.exceptions;
+
+/**
+ * Exception for Visit not found
+ * @author jgomezm
+ */
+public class VisitNotFoundException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public VisitNotFoundException(String message) {
+        super(message);
+    }
+
 }
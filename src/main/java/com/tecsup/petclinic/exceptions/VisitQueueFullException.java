@@ -0,0 +1,15 @@
+package com.tecsup.petclinic.exceptions;
+
+/**
+ * Exception for a visit submission refused because the ingestion queue is full
+ * @author jgomezm
+ */
+public class VisitQueueFullException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public VisitQueueFullException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.tecsup.petclinic.jfr;
+
+import com.tecsup.petclinic.dtos.PageDTO;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Entity id and row count of a service or repository call, read from its
+ * arguments and result once the event is known to be recorded
+ * @author jgomezm
+ */
+final class EventFields {
+
+    private EventFields() {
+    }
+
+    /**
+     * The first argument of findById, deleteById, delete(id) and the like, 0 otherwise
+     */
+    static long entityId(Method method, Object[] args) {
+        if (args.length == 0 || !(args[0] instanceof Number id))
+            return 0;
+        String name = method.getName();
+        return name.endsWith("ById") || name.equals("delete") ? id.longValue() : 0;
+    }
+
+    static int rows(Object result) {
+        if (result == null)
+            return 0;
+        if (result instanceof Collection<?> collection)
+            return collection.size();
+        if (result instanceof PageDTO<?> page)
+            return page.getContent() == null ? 0 : page.getContent().size();
+        if (result instanceof Slice<?> slice)
+            return slice.getNumberOfElements();
+        if (result instanceof Optional<?> optional)
+            return optional.isPresent() ? 1 : 0;
+        return 1;
+    }
+
+}
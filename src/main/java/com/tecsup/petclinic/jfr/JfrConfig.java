@@ -0,0 +1,61 @@
+package com.tecsup.petclinic.jfr;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Service;
+
+/**
+ * JFR events of the requests, service calls and repository calls. They cost one
+ * isEnabled check each until a recording enables them, from the admin endpoint
+ * or -XX:StartFlightRecording.
+ * @author jgomezm
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.jfr", name = "events", havingValue = "true", matchIfMissing = true)
+public class JfrConfig {
+
+    @Bean
+    public RequestEventFilter requestEventFilter() {
+        return new RequestEventFilter();
+    }
+
+    /**
+     * Outside the metrics timer, so the event spans everything a caller waits for
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceEventAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true),
+                new ServiceEventInterceptor());
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 4);
+        return advisor;
+    }
+
+    /**
+     * Adds the RepositoryEventInterceptor to the proxy of every Spring Data repository
+     */
+    @Bean
+    public static BeanPostProcessor repositoryEventPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean)
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new RepositoryEventInterceptor(
+                                    repositoryInformation.getRepositoryInterface(), repositoryInformation.getDomainType()))));
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.tecsup.petclinic.jfr;
+
+import com.tecsup.petclinic.dtos.RecordingDTO;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Starts and stops the one JFR recording of the admin endpoint. The recording
+ * keeps its data on disk and drops the oldest beyond max-age or max-size, so it
+ * can be left running; stopping it writes the .jfr file that is downloaded.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class RecordingManager {
+
+    static final String RECORDING_NAME = "petclinic";
+
+    private final Path file;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private Recording recording;
+    private String settings;
+    private RecordingDTO last;
+
+    public RecordingManager(@Value("${petclinic.jfr.directory:${java.io.tmpdir}}") Path directory,
+                            @Value("${petclinic.jfr.max-age:30m}") Duration maxAge,
+                            @Value("${petclinic.jfr.max-size:250MB}") DataSize maxSize) {
+        this.file = directory.resolve(RECORDING_NAME + "-" + ProcessHandle.current().pid() + ".jfr");
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Start recording with one of the JDK settings, default (about 1% overhead) or profile
+     * @param settings
+     * @return
+     * @throws IOException when there are no such settings
+     * @throws IllegalStateException when a recording is running already
+     */
+    public synchronized RecordingDTO start(String settings) throws IOException, ParseException {
+        if (recording != null)
+            throw new IllegalStateException("Recording " + recording.getId() + " is running");
+
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize.toBytes());
+        started.start();
+        recording = started;
+        this.settings = settings;
+        last = null;
+        log.info("JFR recording {} started with {} settings", started.getId(), settings);
+        return describe(started, settings, 0);
+    }
+
+    /**
+     * Stop the running recording and write it to the file downloaded by {@link #dump()}
+     * @return the stopped recording, empty when none was running
+     */
+    public synchronized Optional<RecordingDTO> stop() throws IOException {
+        if (recording == null)
+            return Optional.empty();
+        Recording stopped = recording;
+        recording = null;
+        try {
+            stopped.stop();
+            stopped.dump(file);
+            last = describe(stopped, settings, Files.size(file));
+        } finally {
+            stopped.close();
+        }
+        log.info("JFR recording {} stopped, {} bytes written to {}", last.getId(), last.getSize(), file);
+        return Optional.of(last);
+    }
+
+    /**
+     * The .jfr file of the last stopped recording; while one runs, a snapshot of it
+     * @return empty when nothing has been recorded yet
+     */
+    public synchronized Optional<Path> dump() throws IOException {
+        if (recording != null)
+            recording.dump(file);
+        else if (last == null)
+            return Optional.empty();
+        return Optional.of(file);
+    }
+
+    /**
+     * The running recording, else the last stopped one, else none
+     */
+    public synchronized Optional<RecordingDTO> status() {
+        if (recording != null)
+            return Optional.of(describe(recording, settings, 0));
+        return Optional.ofNullable(last);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (recording != null)
+            recording.close();
+        Files.deleteIfExists(file);
+    }
+
+    private RecordingDTO describe(Recording recording, String settings, long size) {
+        return RecordingDTO.builder()
+                .id(recording.getId())
+                .state(recording.getState().name())
+                .settings(settings)
+                .startTime(recording.getStartTime() == null ? null : recording.getStartTime().toString())
+                .stopTime(recording.getStopTime() == null ? null : recording.getStopTime().toString())
+                .maxAgeSeconds(maxAge.toSeconds())
+                .maxSizeBytes(maxSize.toBytes())
+                .size(size)
+                .build();
+    }
+
+}
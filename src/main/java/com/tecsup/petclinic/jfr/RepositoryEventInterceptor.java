@@ -0,0 +1,48 @@
+package com.tecsup.petclinic.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Emits a RepositoryQueryEvent around every call to one Spring Data repository,
+ * added to the repository proxy by JfrConfig
+ * @author jgomezm
+ */
+public class RepositoryEventInterceptor implements MethodInterceptor {
+
+    private final String repository;
+    private final String entityType;
+
+    public RepositoryEventInterceptor(Class<?> repositoryInterface, Class<?> domainType) {
+        this.repository = repositoryInterface.getSimpleName();
+        this.entityType = domainType.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        if (!event.isEnabled())
+            return invocation.proceed();
+
+        event.begin();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            event.exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = repository;
+                event.method = invocation.getMethod().getName();
+                event.entityType = entityType;
+                event.entityId = EventFields.entityId(invocation.getMethod(), invocation.getArguments());
+                event.rows = EventFields.rows(result);
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.tecsup.petclinic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to a Spring Data repository
+ * @author jgomezm
+ */
+@Name(RepositoryQueryEvent.NAME)
+@Label("Repository Query")
+@Category({"PetClinic", "Repository"})
+@Description("A call to a Spring Data repository method")
+@StackTrace(false)
+public class RepositoryQueryEvent extends jdk.jfr.Event {
+
+    static final String NAME = "petclinic.RepositoryQuery";
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id the query is about, 0 when it is not about one entity")
+    long entityId;
+
+    @Label("Rows")
+    @Description("Elements returned: the size of a list or page, 1 for an entity, 0 for none")
+    int rows;
+
+    @Label("Exception")
+    String exception;
+
+}
@@ -0,0 +1,39 @@
+package com.tecsup.petclinic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP request, from the filter chain to the response status
+ * @author jgomezm
+ */
+@Name(RequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"PetClinic", "Web"})
+@Description("A REST request served by one of the controllers")
+@StackTrace(false)
+public class RequestEvent extends jdk.jfr.Event {
+
+    static final String NAME = "petclinic.Request";
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    @Description("URI template of the handler, e.g. /pets/{id}, or the URI when none matched")
+    String path;
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Entity Id")
+    @Description("The {id} path variable, 0 when there is none")
+    long entityId;
+
+    @Label("Status")
+    int status;
+
+}
@@ -0,0 +1,42 @@
+package com.tecsup.petclinic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to a service bean, cache lookup and transaction included
+ * @author jgomezm
+ */
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Category({"PetClinic", "Service"})
+@Description("A call to a service bean")
+@StackTrace(false)
+public class ServiceCallEvent extends jdk.jfr.Event {
+
+    static final String NAME = "petclinic.ServiceCall";
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id the call is about, 0 when it is not about one entity")
+    long entityId;
+
+    @Label("Rows")
+    @Description("Elements returned: the size of a list or page, 1 for an entity, 0 for none")
+    int rows;
+
+    @Label("Exception")
+    String exception;
+
+}
@@ -0,0 +1,51 @@
+package com.tecsup.petclinic.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Emits a ServiceCallEvent around every call to a service bean. Without a recording
+ * that enables the event, the call proceeds after one isEnabled check; the names,
+ * entity id and rows are only read for an event that is committed.
+ * @author jgomezm
+ */
+public class ServiceEventInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled())
+            return invocation.proceed();
+
+        event.begin();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            event.exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String service = ClassUtils.getUserClass(invocation.getThis().getClass()).getSimpleName();
+                event.service = service;
+                event.method = invocation.getMethod().getName();
+                event.entityType = entityType(service);
+                event.entityId = EventFields.entityId(invocation.getMethod(), invocation.getArguments());
+                event.rows = EventFields.rows(result);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * PetServiceImpl is about Pet
+     */
+    static String entityType(String service) {
+        int end = service.indexOf("Service");
+        return end > 0 ? service.substring(0, end) : service;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.tecsup.petclinic.logging;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs the rows returned by an endpoint at DEBUG, for one call in every dump-every
+ * of that endpoint and at most dump-max-rows rows. While DEBUG is off a call costs
+ * one level check: no message, string or counter is touched.
+ * @author jgomezm
+ */
+@Component
+public class EntityDumpSampler {
+
+    private final int every;
+    private final int maxRows;
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+    public EntityDumpSampler(@Value("${petclinic.logging.dump-every:100}") int every,
+                             @Value("${petclinic.logging.dump-max-rows:20}") int maxRows) {
+        this.every = Math.max(every, 1);
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Log the rows if DEBUG is enabled on log and this call is sampled
+     * @param log logger of the caller
+     * @param endpoint sampling key, e.g. "GET /pets"
+     * @param rows
+     */
+    public void dump(Logger log, String endpoint, List<?> rows) {
+        if (!log.isDebugEnabled())
+            return;
+        AtomicLong counter = calls.get(endpoint);
+        if (counter == null)
+            counter = calls.computeIfAbsent(endpoint, key -> new AtomicLong());
+        if (counter.getAndIncrement() % every != 0)
+            return;
+        List<?> shown = rows.size() > maxRows ? rows.subList(0, maxRows) : rows;
+        log.debug("{} returned {} rows, first {}: {}", endpoint, rows.size(), shown.size(), shown);
+    }
+
+}
@@ -2,14 +2,17 @@ package com.tecsup.petclinic.mapper;
 
 import com.tecsup.petclinic.dtos.PetDTO;
 import com.tecsup.petclinic.entities.Pet;
-import lombok.extern.slf4j.Slf4j;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValueMappingStrategy;
 import org.mapstruct.factory.Mappers;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.Date;
 import java.util.List;
 
@@ -23,21 +26,25 @@ public interface PetMapper {
 	@Mapping(source = "birthDate", target = "birthDate")
 	Pet mapToEntity(PetDTO petTO);
 
-    default Date stringToDate(String dateStr) {
-        System.out.println("Converting string to date: " + dateStr);
-
-        if (dateStr == null || dateStr.isEmpty()) {
-            return null;
-        }
-
-        Date date = null;
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-        try {
-            date = dateFormat.parse(dateStr);
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return date;
+	// Copy the DTO onto a managed pet
+	@Mapping(source = "birthDate", target = "birthDate")
+	void updateEntity(PetDTO petTO, @MappingTarget Pet pet);
+
+	// Months and days with or without the leading zero, as 2024-1-5
+	DateTimeFormatter BIRTH_DATE = DateTimeFormatter.ofPattern("uuuu-M-d").withResolverStyle(ResolverStyle.STRICT);
+
+	// yyyy-M-d at midnight in the default time zone; a malformed date maps to null
+	default Date stringToDate(String dateStr) {
+
+		if (dateStr == null || dateStr.isEmpty()) {
+			return null;
+		}
+
+		try {
+			return Date.from(LocalDate.parse(dateStr, BIRTH_DATE).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		} catch (DateTimeParseException e) {
+			return null;
+		}
 	}
 
 	@Mapping(source = "birthDate", target = "birthDate")
@@ -45,12 +52,14 @@ public interface PetMapper {
 
 	default String dateToString(Date date) {
 
-		if (date != null ) {
-			SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-			return dateFormat.format(date);
-		} else {
+		if (date == null) {
 			return "";
 		}
+		// java.sql.Date has no time part and does not support toInstant
+		LocalDate day = date instanceof java.sql.Date sqlDate
+				? sqlDate.toLocalDate()
+				: LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+		return day.toString();
 
 	}
 
@@ -3,6 +3,8 @@ package com.tecsup.petclinic.mapper;
 import com.tecsup.petclinic.dtos.VetDTO;
 import com.tecsup.petclinic.entities.Vet;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValueMappingStrategy;
 import org.mapstruct.factory.Mappers;
 
@@ -17,8 +19,15 @@ public interface VetMapper {
 
     VetMapper INSTANCE = Mappers.getMapper(VetMapper.class);
 
+    @Mapping(target = "specialties", ignore = true)
     Vet mapToEntity(VetDTO vetDTO);
 
+    // Copy the DTO onto a managed vet, its specialties are left as they are
+    @Mapping(target = "specialties", ignore = true)
+    void updateEntity(VetDTO vetDTO, @MappingTarget Vet vet);
+
+    // Never reads the lazy specialties, VetService fills them when asked for
+    @Mapping(target = "specialties", ignore = true)
     VetDTO mapToDto(Vet vet);
 
     List<VetDTO> mapToDtoList(List<Vet> vetList);
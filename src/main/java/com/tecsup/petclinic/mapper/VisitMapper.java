@@ -1,2 +1,35 @@
-package com.tecsup.petclinic.mapper;public class VisitMapper {
+package com.tecsup.petclinic.mapper;
+
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.entities.Visit;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.NullValueMappingStrategy;
+import org.mapstruct.factory.Mappers;
+
+import java.util.List;
+
+/**
+ * Mapper for Visit entity.
+ * The pet is mapped as a reference holding only its id, the pet row is never read.
+ * @author jgomezm
+ */
+@Mapper(componentModel = "spring", nullValueMappingStrategy = NullValueMappingStrategy.RETURN_DEFAULT)
+public interface VisitMapper {
+
+    VisitMapper INSTANCE = Mappers.getMapper(VisitMapper.class);
+
+    @Mapping(source = "petId", target = "pet.id")
+    @Mapping(target = "visitTime", dateFormat = "HH:mm")
+    Visit mapToEntity(VisitDTO visitDTO);
+
+    @Mapping(source = "pet.id", target = "petId")
+    @Mapping(target = "visitTime", dateFormat = "HH:mm")
+    @Mapping(target = "specialtyId", ignore = true)
+    VisitDTO mapToDto(Visit visit);
+
+    List<VisitDTO> mapToDtoList(List<Visit> visitList);
+
+    List<Visit> mapToEntityList(List<VisitDTO> visitDTOList);
+
 }
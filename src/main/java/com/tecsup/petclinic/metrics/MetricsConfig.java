@@ -0,0 +1,41 @@
+package com.tecsup.petclinic.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+/**
+ * Latency timers of the service beans. Controllers are timed by Spring MVC
+ * (http.server.requests) and repositories by Spring Data (spring.data.repository.invocations);
+ * histograms and SLO buckets of the three are set under management.metrics.distribution.
+ * @author jgomezm
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.metrics", name = "service-timers", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    /**
+     * Runs inside the tracing (LOWEST_PRECEDENCE - 5) and JFR (LOWEST_PRECEDENCE - 4) advice,
+     * which are left out of the timings, and outside the SQL monitor, cache lookup and
+     * transaction: a call is timed including its queries, cache lookup and commit
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceTimerAdvisor(ObjectProvider<MeterRegistry> registry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true),
+                new ServiceTimerInterceptor(registry));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 3);
+        return advisor;
+    }
+
+}
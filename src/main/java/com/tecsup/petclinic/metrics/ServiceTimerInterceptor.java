@@ -0,0 +1,66 @@
+package com.tecsup.petclinic.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to a service bean as petclinic.service{service, method, exception}.
+ * The timer of a successful call is looked up once per method and kept, so the hot
+ * path is a map read, two nanoTime calls and the record; failures build their timer
+ * with the exception tag on each call.
+ * @author jgomezm
+ */
+public class ServiceTimerInterceptor implements MethodInterceptor {
+
+    static final String METRIC_NAME = "petclinic.service";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * The registry is resolved at the first call: the advisor is created before the
+     * registry and its meter filters (histograms, SLOs) are configured
+     * @param registry
+     */
+    public ServiceTimerInterceptor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            timer(invocation, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        Timer timer = timers.get(invocation.getMethod());
+        if (timer == null)
+            timer = timers.computeIfAbsent(invocation.getMethod(), method -> timer(invocation, NO_EXCEPTION));
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Timer timer(MethodInvocation invocation, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Calls to the service beans")
+                .tag("service", ClassUtils.getUserClass(invocation.getThis().getClass()).getSimpleName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .register(registry.getObject());
+    }
+
+}
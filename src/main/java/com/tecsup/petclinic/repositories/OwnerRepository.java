@@ -1,7 +1,11 @@
 package com.tecsup.petclinic.repositories;
 
+import com.tecsup.petclinic.dtos.OwnerDTO;
 import com.tecsup.petclinic.entities.Owner;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +17,10 @@ import java.util.List;
 @Repository
 public interface OwnerRepository extends JpaRepository<Owner, Long> {
 
+    // Select clause building OwnerDTO rows directly, without loading Owner entities
+    String OWNER_DTO = "select new com.tecsup.petclinic.dtos.OwnerDTO(o.id, o.firstName, o.lastName,"
+            + " o.address, o.city, o.telephone) from owners o";
+
     // Find owners by first name
     List<Owner> findByFirstName(String firstName);
 
@@ -22,6 +30,41 @@ public interface OwnerRepository extends JpaRepository<Owner, Long> {
     // Find owners by city
     List<Owner> findByCity(String city);
 
+    // Find the next keyset page of owners, seeking on the primary key
+    List<Owner> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Find the next keyset page of owners as DTOs
+    @Query(OWNER_DTO + " where o.id > :after order by o.id")
+    List<OwnerDTO> findPageAfter(@Param("after") Long after, Limit limit);
+
+    // Find the next keyset page of owner ids only
+    @Query("select o.id from owners o where o.id > :after order by o.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    // Prefix searches on the normalized columns, ranked by the index they read:
+    // idx_owners_last_norm, idx_owners_first_norm and their city_norm variants.
+    // The prefix is a LIKE pattern built by SearchText.startsWith. cityNorm is constant
+    // where it leads the order by, it is there so H2 reads the index in order as MySQL does
+
+    @Query(OWNER_DTO + " where o.lastNameNorm like :prefix escape '!'"
+            + " order by o.lastNameNorm, o.firstNameNorm, o.id")
+    List<OwnerDTO> searchByLastName(@Param("prefix") String prefix, Limit limit);
+
+    @Query(OWNER_DTO + " where o.firstNameNorm like :prefix escape '!'"
+            + " order by o.firstNameNorm, o.lastNameNorm, o.id")
+    List<OwnerDTO> searchByFirstName(@Param("prefix") String prefix, Limit limit);
+
+    @Query(OWNER_DTO + " where o.cityNorm = :city and o.lastNameNorm like :prefix escape '!'"
+            + " order by o.cityNorm, o.lastNameNorm, o.firstNameNorm, o.id")
+    List<OwnerDTO> searchByLastNameInCity(@Param("prefix") String prefix, @Param("city") String city, Limit limit);
+
+    @Query(OWNER_DTO + " where o.cityNorm = :city and o.firstNameNorm like :prefix escape '!'"
+            + " order by o.cityNorm, o.firstNameNorm, o.lastNameNorm, o.id")
+    List<OwnerDTO> searchByFirstNameInCity(@Param("prefix") String prefix, @Param("city") String city, Limit limit);
+
+    @Query(OWNER_DTO + " where o.cityNorm = :city order by o.cityNorm, o.lastNameNorm, o.firstNameNorm, o.id")
+    List<OwnerDTO> searchByCity(@Param("city") String city, Limit limit);
+
     @Override
     List<Owner> findAll();
 
@@ -2,10 +2,14 @@ package com.tecsup.petclinic.repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import com.tecsup.petclinic.dtos.PetDTO;
 import com.tecsup.petclinic.entities.Pet;
 
 /**
@@ -17,6 +21,11 @@ import com.tecsup.petclinic.entities.Pet;
 public interface PetRepository 
 	extends JpaRepository<Pet, Integer> {
 
+	// Select clause building PetDTO rows directly, without loading Pet entities.
+	// birthDate is formatted as PetMapper does, "" when missing
+	String PET_DTO = "select new com.tecsup.petclinic.dtos.PetDTO(p.id, p.name, p.typeId, p.ownerId,"
+			+ " coalesce(format(p.birthDate as 'yyyy-MM-dd'), '')) from pets p";
+
 	// Fetch pets by name
 	List<Pet> findByName(String name);
 
@@ -26,6 +35,17 @@ public interface PetRepository
 	// Fetch pets by ownerId
 	List<Pet> findByOwnerId(int ownerId);
 
+	// Fetch the next keyset page of pets, seeking on the primary key
+	List<Pet> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+	// Fetch the next keyset page of pets as DTOs
+	@Query(PET_DTO + " where p.id > :after order by p.id")
+	List<PetDTO> findPageAfter(@Param("after") Integer after, Limit limit);
+
+	// Fetch every distinct name with its number of pets, rows are (name, count)
+	@Query("select p.name, count(p) from pets p group by p.name")
+	List<Object[]> countByName();
+
 	// Fetch pets by Id
 
 	@Override
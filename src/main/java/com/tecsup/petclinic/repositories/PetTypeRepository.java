@@ -0,0 +1,19 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.entities.PetType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for PetType entity
+ * @author jgomezm
+ */
+@Repository
+public interface PetTypeRepository extends JpaRepository<PetType, Integer> {
+
+    @Override
+    List<PetType> findAll();
+
+}
@@ -1,7 +1,11 @@
 package com.tecsup.petclinic.repositories;
 
 import com.tecsup.petclinic.entities.Specialty;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,9 +17,13 @@ import java.util.List;
 @Repository
 public interface SpecialtyRepository extends JpaRepository<Specialty, Integer> {
 
-    // Find specialties by name
+    // Find specialties by name, the result ids are kept in the query cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Specialty> findByName(String name);
 
+    // Find the next keyset page of specialties, seeking on the primary key
+    List<Specialty> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
     @Override
     List<Specialty> findAll();
 
@@ -1,17 +1,25 @@
 package com.tecsup.petclinic.repositories;
 
+import com.tecsup.petclinic.dtos.VetDTO;
 import com.tecsup.petclinic.entities.Vet;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
- * Repository for Vet entity
+ * Repository for Vet entity, with direct access to vet_specialties (VetSpecialtyRows)
  * @author jgomezm
  */
 @Repository
-public interface VetRepository extends JpaRepository<Vet, Integer> {
+public interface VetRepository extends JpaRepository<Vet, Integer>, VetSpecialtyRows {
+
+    // Select clause building VetDTO rows directly, without loading Vet entities
+    String VET_DTO = "select new com.tecsup.petclinic.dtos.VetDTO(v.id, v.firstName, v.lastName) from vets v";
 
     // Find vets by first name
     List<Vet> findByFirstName(String firstName);
@@ -19,6 +27,22 @@ public interface VetRepository extends JpaRepository<Vet, Integer> {
     // Find vets by last name
     List<Vet> findByLastName(String lastName);
 
+    // Find the next keyset page of vets as DTOs, seeking on the primary key
+    @Query(VET_DTO + " where v.id > :after order by v.id")
+    List<VetDTO> findPageAfter(@Param("after") Integer after, Limit limit);
+
+    // Find the vets with the given ids as DTOs, in id order
+    @Query(VET_DTO + " where v.id in :ids order by v.id")
+    List<VetDTO> findDtosByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Specialty names of the given vets, one [vetId, name] row per vet and specialty
+    @Query("select v.id, s.name from vets v join v.specialties s where v.id in :ids order by v.id, s.name")
+    List<Object[]> findSpecialtyNamesByVetIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Specialty names of every vet, one [vetId, name] row per vet and specialty
+    @Query("select v.id, s.name from vets v join v.specialties s order by v.id")
+    List<Object[]> findAllSpecialtyNames();
+
     @Override
     List<Vet> findAll();
 
@@ -0,0 +1,47 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.dtos.VetDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Direct access to the vet_specialties join table, so specialties are assigned
+ * row by row instead of loading and rewriting Vet.specialties.
+ * Part of VetRepository, implemented with JDBC in VetSpecialtyRowsImpl.
+ * @author jgomezm
+ */
+public interface VetSpecialtyRows {
+
+    /**
+     * Lock the rows of the vets until the transaction ends, in id order so two
+     * assignments never wait on each other
+     * @return the vets that exist, without specialties
+     */
+    List<VetDTO> lockVets(Collection<Integer> vetIds);
+
+    /**
+     * @return the specialty ids of each of the vets having at least one
+     */
+    Map<Integer, Set<Integer>> findSpecialtyIds(Collection<Integer> vetIds);
+
+    /**
+     * Insert one vet_specialties row per vet and specialty, in one batch
+     * @return rows inserted
+     */
+    int insertSpecialtyRows(Map<Integer, ? extends Collection<Integer>> specialtyIds);
+
+    /**
+     * Delete one vet_specialties row per vet and specialty, in one batch
+     * @return rows deleted
+     */
+    int deleteSpecialtyRows(Map<Integer, ? extends Collection<Integer>> specialtyIds);
+
+    /**
+     * Drop the cached Vet.specialties of the vets from the second-level cache
+     */
+    void evictSpecialties(Collection<Integer> vetIds);
+
+}
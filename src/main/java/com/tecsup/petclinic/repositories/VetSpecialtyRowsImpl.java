@@ -0,0 +1,91 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.entities.Vet;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JDBC implementation of VetSpecialtyRows. The statements run on the connection of
+ * the current JPA transaction; they bypass Hibernate, which is why the cached
+ * collections are evicted by name, a native query would evict every region.
+ * @author jgomezm
+ */
+public class VetSpecialtyRowsImpl implements VetSpecialtyRows {
+
+    static final String SPECIALTIES_ROLE = Vet.class.getName() + ".specialties";
+
+    private static final String LOCK_VETS =
+            "select id, first_name, last_name from vets where id in (:ids) order by id for update";
+
+    private static final String SPECIALTY_IDS =
+            "select vet_id, specialty_id from vet_specialties where vet_id in (:ids)";
+
+    private static final String INSERT_ROW =
+            "insert into vet_specialties (vet_id, specialty_id) values (?, ?)";
+
+    private static final String DELETE_ROW =
+            "delete from vet_specialties where vet_id = ? and specialty_id = ?";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public VetSpecialtyRowsImpl(NamedParameterJdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public List<VetDTO> lockVets(Collection<Integer> vetIds) {
+        return jdbcTemplate.query(LOCK_VETS, Map.of("ids", vetIds),
+                (rs, row) -> new VetDTO(rs.getInt(1), rs.getString(2), rs.getString(3)));
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> findSpecialtyIds(Collection<Integer> vetIds) {
+        Map<Integer, Set<Integer>> specialtyIds = new HashMap<>();
+        jdbcTemplate.query(SPECIALTY_IDS, Map.of("ids", vetIds), rs -> {
+            specialtyIds.computeIfAbsent(rs.getInt(1), vetId -> new TreeSet<>()).add(rs.getInt(2));
+        });
+        return specialtyIds;
+    }
+
+    @Override
+    public int insertSpecialtyRows(Map<Integer, ? extends Collection<Integer>> specialtyIds) {
+        return batch(INSERT_ROW, specialtyIds);
+    }
+
+    @Override
+    public int deleteSpecialtyRows(Map<Integer, ? extends Collection<Integer>> specialtyIds) {
+        return batch(DELETE_ROW, specialtyIds);
+    }
+
+    private int batch(String sql, Map<Integer, ? extends Collection<Integer>> specialtyIds) {
+        List<Object[]> rows = new ArrayList<>();
+        specialtyIds.forEach((vetId, ids) -> ids.forEach(specialtyId -> rows.add(new Object[]{vetId, specialtyId})));
+        if (rows.isEmpty())
+            return 0;
+        int changed = 0;
+        // A driver rewriting the batch may answer SUCCESS_NO_INFO: the row was written
+        for (int count : jdbcTemplate.getJdbcTemplate().batchUpdate(sql, rows))
+            changed += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        return changed;
+    }
+
+    @Override
+    public void evictSpecialties(Collection<Integer> vetIds) {
+        org.hibernate.Cache cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        for (Integer vetId : vetIds)
+            cache.evictCollectionData(SPECIALTIES_ROLE, vetId);
+    }
+
+}
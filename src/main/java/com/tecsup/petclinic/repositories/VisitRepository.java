@@ -1,2 +1,55 @@
-package com.tecsup.petclinic.repositories;public class VisitRepository {
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.entities.Visit;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for Visit entity
+ * @author jgomezm
+ */
+@Repository
+public interface VisitRepository extends JpaRepository<Visit, Long> {
+
+    // Select clause building VisitDTO rows directly, without loading Visit entities.
+    // v.pet.id is the pet_id column, no join
+    String VISIT_DTO = "select new com.tecsup.petclinic.dtos.VisitDTO(v.id, v.pet.id,"
+            + " format(v.visitDate as 'yyyy-MM-dd'), v.description, v.vetId, v.cost,"
+            + " format(v.visitTime as 'HH:mm')) from visits v";
+
+    // Find the next keyset page of visits as DTOs, seeking on the primary key
+    @Query(VISIT_DTO + " where v.id > :after order by v.id")
+    List<VisitDTO> findPageAfter(@Param("after") Long after, Limit limit);
+
+    // First page of a pet's history, newest first, read in idx_visits_pet_history order.
+    // pet.id is constant here, leading the order by with it lets H2 skip the sort as MySQL does
+    @Query(VISIT_DTO + " where v.pet.id = :petId order by v.pet.id, v.visitDate desc, v.id desc")
+    List<VisitDTO> findHistory(@Param("petId") Integer petId, Limit limit);
+
+    // Next page of a pet's history, seeking past the (visitDate, id) of the last visit read
+    @Query(VISIT_DTO + " where v.pet.id = :petId"
+            + " and (v.visitDate < :date or (v.visitDate = :date and v.id < :id))"
+            + " order by v.pet.id, v.visitDate desc, v.id desc")
+    List<VisitDTO> findHistoryBefore(@Param("petId") Integer petId, @Param("date") LocalDate date,
+                                     @Param("id") Long id, Limit limit);
+
+    // Booked times of the vets on a day, [vetId, visitTime] rows, for the SlotCalendar
+    @Query("select v.vetId, v.visitTime from visits v"
+            + " where v.visitDate = :date and v.vetId in :vetIds and v.visitTime is not null")
+    List<Object[]> findBookedTimes(@Param("date") LocalDate date, @Param("vetIds") Collection<Integer> vetIds);
+
+    // Visits of each vet from a day on, [vetId, count] rows, for reconciling the VetWorkload.
+    // Read from uk_visits_vet_slot, led by (vet_id, visit_date), without the table rows
+    @Query("select v.vetId, count(v) from visits v"
+            + " where v.vetId is not null and v.visitDate >= :from group by v.vetId")
+    List<Object[]> countVisitsByVetFrom(@Param("from") LocalDate from);
+
 }
@@ -0,0 +1,39 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.FreeSlotsDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.SlotTakenException;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
+import com.tecsup.petclinic.exceptions.VetNotFoundException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for appointments, visits booked on a slot of a vet's day
+ * @author jgomezm
+ */
+public interface AppointmentService {
+
+    /**
+     * Book a visit on a free slot of its vet
+     * @param visitDTO with vetId, visitDate and visitTime, a future slot start
+     * @return the stored visit
+     * @throws VetNotFoundException
+     * @throws PetNotFoundException
+     * @throws SlotTakenException
+     */
+    VisitDTO book(VisitDTO visitDTO) throws VetNotFoundException, PetNotFoundException, SlotTakenException;
+
+    /**
+     * Find the free slots of the vets of a specialty on a day, within its opening hours
+     * @param specialtyId
+     * @param date
+     * @param limit vets at most
+     * @return vets with at least one free slot, ordered by id
+     * @throws SpecialtyNotFoundException
+     */
+    List<FreeSlotsDTO> findFreeSlots(Integer specialtyId, LocalDate date, int limit) throws SpecialtyNotFoundException;
+
+}
@@ -0,0 +1,140 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.FreeSlotsDTO;
+import com.tecsup.petclinic.dtos.SpecialtyDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.SlotTakenException;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
+import com.tecsup.petclinic.exceptions.VetNotFoundException;
+import com.tecsup.petclinic.mapper.VisitMapper;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service implementation for appointments.
+ * A booking claims its slot in the SlotCalendar first, without a lock, then inserts the
+ * visit in a transaction of its own, the save's: a slot taken by another instance is only
+ * seen by uk_visits_vet_slot at that insert, and must not leave a transaction to roll back.
+ * Vets and pets are checked through the cached findById of their services, and a stored
+ * booking counts in the VetWorkload of its vet.
+ * @author jgomezm
+ */
+@Service
+@Slf4j
+public class AppointmentServiceImpl implements AppointmentService {
+
+    VisitRepository visitRepository;
+    VisitMapper visitMapper;
+    VetService vetService;
+    PetService petService;
+    SlotCalendar slotCalendar;
+    VetSpecialtyIndex vetSpecialtyIndex;
+    OpeningHoursIndex openingHoursIndex;
+    VetWorkload vetWorkload;
+
+    public AppointmentServiceImpl(VisitRepository visitRepository, VisitMapper visitMapper, VetService vetService,
+                                  PetService petService, SlotCalendar slotCalendar, VetSpecialtyIndex vetSpecialtyIndex,
+                                  OpeningHoursIndex openingHoursIndex, VetWorkload vetWorkload) {
+        this.visitRepository = visitRepository;
+        this.visitMapper = visitMapper;
+        this.vetService = vetService;
+        this.petService = petService;
+        this.slotCalendar = slotCalendar;
+        this.vetSpecialtyIndex = vetSpecialtyIndex;
+        this.openingHoursIndex = openingHoursIndex;
+        this.vetWorkload = vetWorkload;
+    }
+
+    @Override
+    public VisitDTO book(VisitDTO visitDTO) throws VetNotFoundException, PetNotFoundException, SlotTakenException {
+        VisitServiceImpl.validate(visitDTO);
+        if (visitDTO.getVetId() == null)
+            throw new IllegalArgumentException("vetId is required");
+        LocalDate date = LocalDate.parse(visitDTO.getVisitDate());
+        int slot = slot(visitDTO.getVisitTime());
+        if (!LocalDateTime.of(date, SlotCalendar.time(slot)).isAfter(LocalDateTime.now()))
+            throw new IllegalArgumentException("appointments must be in the future");
+        int vetId = visitDTO.getVetId();
+        vetService.findById(vetId);
+        petService.findById(visitDTO.getPetId());
+
+        if (!slotCalendar.claim(vetId, date, slot))
+            throw new SlotTakenException("Slot already booked...!");
+        VisitDTO visit = new VisitDTO(null, visitDTO.getPetId(), visitDTO.getVisitDate(), visitDTO.getDescription(),
+                vetId, visitDTO.getCost(), SlotCalendar.time(slot).toString());
+        VisitDTO booked;
+        try {
+            booked = visitMapper.mapToDto(visitRepository.save(visitMapper.mapToEntity(visit)));
+        } catch (DataIntegrityViolationException e) {
+            // Booked elsewhere: the slot stays claimed here too
+            if (SlotCalendar.isSlotConflict(e))
+                throw new SlotTakenException("Slot already booked...!");
+            slotCalendar.release(vetId, date, slot);
+            throw e;
+        } catch (RuntimeException e) {
+            slotCalendar.release(vetId, date, slot);
+            throw e;
+        }
+        vetWorkload.add(vetId, date, 1);
+        return booked;
+    }
+
+    @Override
+    public List<FreeSlotsDTO> findFreeSlots(Integer specialtyId, LocalDate date, int limit)
+            throws SpecialtyNotFoundException {
+        SpecialtyDTO specialty = openingHoursIndex.find(specialtyId)
+                .orElseThrow(() -> new SpecialtyNotFoundException("Record not found...!"));
+        boolean[] hours = openingHoursIndex.openHours(specialtyId)
+                .orElseThrow(() -> new SpecialtyNotFoundException("Record not found...!"));
+
+        // Slots within the opening hours, still to come
+        LocalDateTime now = LocalDateTime.now();
+        long open = 0;
+        for (int slot = 0; slot < SlotCalendar.SLOTS; slot++)
+            if (hours[slot * SlotCalendar.SLOT_MINUTES / 60] && LocalDateTime.of(date, SlotCalendar.time(slot)).isAfter(now))
+                open |= 1L << slot;
+        if (open == 0 || specialty.getName() == null)
+            return List.of();
+
+        List<Integer> vetIds = vetSpecialtyIndex.findAll(List.of(specialty.getName()), limit);
+        Map<Integer, Long> booked = slotCalendar.booked(vetIds, date);
+        List<FreeSlotsDTO> free = new ArrayList<>();
+        for (Integer vetId : vetIds) {
+            long slots = open & ~booked.getOrDefault(vetId, 0L);
+            if (slots == 0)
+                continue;
+            List<String> times = new ArrayList<>(Long.bitCount(slots));
+            for (long word = slots; word != 0; word &= word - 1)
+                times.add(SlotCalendar.time(Long.numberOfTrailingZeros(word)).toString());
+            free.add(new FreeSlotsDTO(vetId, date.toString(), times));
+        }
+        log.debug("findFreeSlots {} {}: {} of {} vets free", specialty.getName(), date, free.size(), vetIds.size());
+        return free;
+    }
+
+    private static int slot(String visitTime) {
+        if (visitTime == null)
+            throw new IllegalArgumentException("visitTime is required");
+        int slot;
+        try {
+            slot = SlotCalendar.slot(LocalTime.parse(visitTime));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("visitTime must be HH:mm");
+        }
+        if (slot < 0)
+            throw new IllegalArgumentException("visitTime must start a " + SlotCalendar.SLOT_MINUTES + " minute slot");
+        return slot;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.tecsup.petclinic.services;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: one record in memory at a time.
+ * Quoted fields may hold commas, doubled quotes and line breaks.
+ * A record longer than maxRecordChars fails the read instead of growing the heap.
+ * @author jgomezm
+ */
+class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final int maxRecordChars;
+    private final StringBuilder field = new StringBuilder();
+
+    private long line;
+    private long nextLine = 1;
+
+    CsvReader(Reader reader, int maxRecordChars) {
+        this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * Line where the last record returned by next starts
+     * @return
+     */
+    long getLine() {
+        return line;
+    }
+
+    /**
+     * Read the next record
+     * @return the fields, or null at end of input
+     * @throws IOException if the input is unreadable or malformed
+     */
+    List<String> next() throws IOException {
+        int c = reader.read();
+        if (c == -1)
+            return null;
+
+        line = nextLine;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        int chars = 0;
+
+        while (true) {
+            if (c == -1) {
+                if (quoted)
+                    throw new CsvFormatException(line, "unterminated quoted field");
+                fields.add(field.toString());
+                return fields;
+            }
+            if (++chars > maxRecordChars)
+                throw new CsvFormatException(line, "record longer than " + maxRecordChars + " characters");
+
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    int n = reader.read();
+                    if (n != '"') {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (ch == '\n')
+                        nextLine++;
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                nextLine++;
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+            c = reader.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Malformed CSV input, the rest of the stream cannot be trusted
+     */
+    static class CsvFormatException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        CsvFormatException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        long getLine() {
+            return line;
+        }
+
+    }
+
+}
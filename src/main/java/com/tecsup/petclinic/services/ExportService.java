@@ -0,0 +1,41 @@
+package com.tecsup.petclinic.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service interface for the streaming export of whole tables.
+ * Rows are written to the output as they are read, so memory stays flat
+ * whatever the size of the table.
+ * @author jgomezm
+ */
+public interface ExportService {
+
+    /**
+     * Export all pets ordered by id
+     * @param out
+     * @param format
+     * @return number of rows written
+     * @throws IOException
+     */
+    long exportPets(OutputStream out, ExportFormat format) throws IOException;
+
+    /**
+     * Export all owners ordered by id
+     * @param out
+     * @param format
+     * @return number of rows written
+     * @throws IOException
+     */
+    long exportOwners(OutputStream out, ExportFormat format) throws IOException;
+
+    /**
+     * Export all visits ordered by id
+     * @param out
+     * @param format
+     * @return number of rows written
+     * @throws IOException
+     */
+    long exportVisits(OutputStream out, ExportFormat format) throws IOException;
+
+}
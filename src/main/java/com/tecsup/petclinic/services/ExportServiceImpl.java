@@ -0,0 +1,235 @@
+package com.tecsup.petclinic.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.entities.Owner;
+import com.tecsup.petclinic.entities.Pet;
+import com.tecsup.petclinic.mapper.OwnerMapper;
+import com.tecsup.petclinic.mapper.PetMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Service implementation for the streaming export.
+ * Each export reads its table through a forward-only cursor on a stateless
+ * (detached, no persistence context) read-only session and writes every row
+ * as soon as it is read.
+ * @author jgomezm
+ */
+@Service
+@Slf4j
+public class ExportServiceImpl implements ExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private static final Columns<PetDTO> PET_COLUMNS = new Columns<>(
+            new String[]{"id", "name", "typeId", "ownerId", "birthDate"},
+            pet -> new Object[]{pet.getId(), pet.getName(), pet.getTypeId(), pet.getOwnerId(), pet.getBirthDate()});
+
+    private static final Columns<OwnerDTO> OWNER_COLUMNS = new Columns<>(
+            new String[]{"id", "firstName", "lastName", "address", "city", "telephone"},
+            owner -> new Object[]{owner.getId(), owner.getFirstName(), owner.getLastName(),
+                    owner.getAddress(), owner.getCity(), owner.getTelephone()});
+
+    private static final Columns<VisitDTO> VISIT_COLUMNS = new Columns<>(
+            new String[]{"id", "petId", "vetId", "visitDate", "description", "cost"},
+            visit -> new Object[]{visit.getId(), visit.getPetId(), visit.getVetId(), visit.getVisitDate(),
+                    visit.getDescription(), visit.getCost()});
+
+    SessionFactory sessionFactory;
+    ObjectMapper objectMapper;
+    PetMapper petMapper;
+    OwnerMapper ownerMapper;
+    int fetchSize;
+
+    public ExportServiceImpl(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper,
+                             PetMapper petMapper, OwnerMapper ownerMapper,
+                             @Value("${petclinic.export.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.petMapper = petMapper;
+        this.ownerMapper = ownerMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long exportPets(OutputStream out, ExportFormat format) throws IOException {
+        return export("pets", "from pets p order by p.id", Pet.class,
+                petMapper::mapToDto, PetDTO.class, PET_COLUMNS, out, format);
+    }
+
+    @Override
+    public long exportOwners(OutputStream out, ExportFormat format) throws IOException {
+        return export("owners", "from owners o order by o.id", Owner.class,
+                ownerMapper::mapToDto, OwnerDTO.class, OWNER_COLUMNS, out, format);
+    }
+
+    @Override
+    public long exportVisits(OutputStream out, ExportFormat format) throws IOException {
+        return export("visits", "select v.id, v.pet.id, v.vetId, v.visitDate, v.description, v.cost from visits v order by v.id",
+                Object[].class, ExportServiceImpl::toVisitDto, VisitDTO.class, VISIT_COLUMNS, out, format);
+    }
+
+    private static VisitDTO toVisitDto(Object[] row) {
+        return VisitDTO.builder()
+                .id((Long) row[0])
+                .petId((Integer) row[1])
+                .vetId((Integer) row[2])
+                .visitDate(row[3] == null ? null : row[3].toString())
+                .description((String) row[4])
+                .cost((BigDecimal) row[5])
+                .build();
+    }
+
+    private <R, D> long export(String name, String hql, Class<R> rowType, Function<R, D> toDto,
+                               Class<D> dtoType, Columns<D> columns,
+                               OutputStream out, ExportFormat format) throws IOException {
+
+        long start = System.nanoTime();
+        long rows = 0;
+
+        RowWriter<D> writer = format == ExportFormat.CSV
+                ? new CsvRowWriter<>(out, columns)
+                : new JsonRowWriter<>(out, objectMapper, dtoType);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.doWork(connection -> connection.setReadOnly(true));
+            Transaction tx = session.beginTransaction();
+            try (ScrollableResults<R> results = session.createSelectionQuery(hql, rowType)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    writer.write(toDto.apply(results.get()));
+                    if (++rows % FLUSH_EVERY_ROWS == 0)
+                        writer.flush();
+                }
+                writer.flush();
+                tx.commit();
+            } finally {
+                if (tx.isActive())
+                    tx.rollback();
+            }
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        log.info("Exported {} {} rows as {} in {} ms ({} rows/s)", rows, name, format,
+                elapsedNanos / 1_000_000, rows * 1_000_000_000L / elapsedNanos);
+        return rows;
+    }
+
+    /**
+     * CSV layout of a DTO: header names and the values of one row
+     */
+    private record Columns<D>(String[] names, Function<D, Object[]> values) {
+    }
+
+    private interface RowWriter<D> {
+
+        void write(D row) throws IOException;
+
+        void flush() throws IOException;
+
+    }
+
+    /**
+     * One JSON document per line. The target stream is never closed here,
+     * it belongs to the caller.
+     */
+    private static class JsonRowWriter<D> implements RowWriter<D> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        JsonRowWriter(OutputStream out, ObjectMapper objectMapper, Class<D> type) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(D row) throws IOException {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+    }
+
+    /**
+     * RFC 4180 CSV with a header line
+     */
+    private static class CsvRowWriter<D> implements RowWriter<D> {
+
+        private final Writer writer;
+        private final Columns<D> columns;
+
+        CsvRowWriter(OutputStream out, Columns<D> columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            this.columns = columns;
+            writeLine(columns.names());
+        }
+
+        @Override
+        public void write(D row) throws IOException {
+            writeLine(columns.values().apply(row));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    writer.write(',');
+                if (values[i] != null)
+                    writeField(values[i].toString());
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+    }
+
+}
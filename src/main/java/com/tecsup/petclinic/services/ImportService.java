@@ -0,0 +1,31 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.ImportReportDTO;
+
+import java.io.InputStream;
+
+/**
+ * Service interface for the bulk CSV import of owners and pets.
+ * The input is parsed as a stream and written in chunked transactions,
+ * so the size of the file does not matter.
+ * @author jgomezm
+ */
+public interface ImportService {
+
+    /**
+     * Import owners.
+     * Columns: firstName, lastName, address, city, telephone (id is ignored)
+     * @param in
+     * @return
+     */
+    ImportReportDTO importOwners(InputStream in);
+
+    /**
+     * Import pets. ownerId and typeId must reference existing rows.
+     * Columns: name, typeId, ownerId, birthDate (id is ignored)
+     * @param in
+     * @return
+     */
+    ImportReportDTO importPets(InputStream in);
+
+}
@@ -0,0 +1,303 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.ImportErrorDTO;
+import com.tecsup.petclinic.dtos.ImportReportDTO;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.entities.PetType;
+import com.tecsup.petclinic.mapper.OwnerMapper;
+import com.tecsup.petclinic.mapper.PetMapper;
+import com.tecsup.petclinic.repositories.OwnerRepository;
+import com.tecsup.petclinic.repositories.PetRepository;
+import com.tecsup.petclinic.repositories.PetTypeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service implementation for the bulk CSV import.
+ * Rows are parsed one at a time, validated, and buffered up to chunk-size rows;
+ * every chunk is written with saveAll in its own transaction, so memory stays
+ * bounded by one chunk whatever the size of the file.
+ * References to owners and types are checked against bitsets of the existing ids,
+ * loaded once per import, instead of one lookup per row.
+ * Imported pet names are added to the PetNameIndex chunk by chunk, once committed.
+ * @author jgomezm
+ */
+@Service
+@Slf4j
+public class ImportServiceImpl implements ImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int OWNER_ID_PAGE = 10_000;
+
+    OwnerRepository ownerRepository;
+    PetRepository petRepository;
+    PetTypeRepository petTypeRepository;
+    PetNameIndex petNameIndex;
+    OwnerMapper ownerMapper;
+    PetMapper petMapper;
+    TransactionTemplate transactionTemplate;
+    int chunkSize;
+    int maxRecordChars;
+
+    public ImportServiceImpl(OwnerRepository ownerRepository, PetRepository petRepository,
+                             PetTypeRepository petTypeRepository, PetNameIndex petNameIndex,
+                             OwnerMapper ownerMapper, PetMapper petMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${petclinic.import.chunk-size:500}") int chunkSize,
+                             @Value("${petclinic.import.max-record-chars:8192}") int maxRecordChars) {
+        this.ownerRepository = ownerRepository;
+        this.petRepository = petRepository;
+        this.petTypeRepository = petTypeRepository;
+        this.petNameIndex = petNameIndex;
+        this.ownerMapper = ownerMapper;
+        this.petMapper = petMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    @Override
+    public ImportReportDTO importOwners(InputStream in) {
+        return importRows("owners", in, new String[]{"firstName", "lastName"},
+                this::toOwner, ownerMapper::mapToEntity, ownerRepository, owner -> { });
+    }
+
+    @Override
+    public ImportReportDTO importPets(InputStream in) {
+        BitSet typeIds = new BitSet();
+        for (PetType type : petTypeRepository.findAll())
+            typeIds.set(type.getId());
+        BitSet ownerIds = loadOwnerIds();
+
+        return importRows("pets", in, new String[]{"name", "typeId", "ownerId"},
+                row -> toPet(row, typeIds, ownerIds), petMapper::mapToEntity, petRepository,
+                pet -> petNameIndex.add(pet.getName()));
+    }
+
+    /**
+     * Walk the owner ids by keyset, only the ids are read
+     * @return
+     */
+    private BitSet loadOwnerIds() {
+        BitSet ids = new BitSet();
+        long after = 0;
+        List<Long> page;
+        do {
+            page = ownerRepository.findIdsAfter(after, Limit.of(OWNER_ID_PAGE));
+            for (Long id : page)
+                ids.set(id.intValue());
+            if (!page.isEmpty())
+                after = page.get(page.size() - 1);
+        } while (page.size() == OWNER_ID_PAGE);
+        return ids;
+    }
+
+    private OwnerDTO toOwner(Row row) {
+        return OwnerDTO.builder()
+                .firstName(row.text("firstName", 30, true))
+                .lastName(row.text("lastName", 30, true))
+                .address(row.text("address", 255, false))
+                .city(row.text("city", 80, false))
+                .telephone(row.text("telephone", 20, false))
+                .build();
+    }
+
+    private PetDTO toPet(Row row, BitSet typeIds, BitSet ownerIds) {
+        int typeId = row.id("typeId");
+        if (!typeIds.get(typeId))
+            throw new IllegalArgumentException("typeId " + typeId + " does not exist");
+        int ownerId = row.id("ownerId");
+        if (!ownerIds.get(ownerId))
+            throw new IllegalArgumentException("ownerId " + ownerId + " does not exist");
+
+        String birthDate = row.text("birthDate", 10, false);
+        if (birthDate != null) {
+            try {
+                LocalDate.parse(birthDate);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("birthDate must be yyyy-MM-dd");
+            }
+        }
+
+        return PetDTO.builder()
+                .name(row.text("name", 30, true))
+                .typeId(typeId)
+                .ownerId(ownerId)
+                .birthDate(birthDate)
+                .build();
+    }
+
+    private <D, E> ImportReportDTO importRows(String name, InputStream in, String[] required,
+                                              Function<Row, D> parse, Function<D, E> toEntity,
+                                              JpaRepository<E, ?> repository, Consumer<E> written) {
+
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        List<D> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), maxRecordChars)) {
+            Map<String, Integer> header = readHeader(reader, required);
+
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isEmpty())
+                    continue;
+                progress.read++;
+                try {
+                    chunk.add(parse.apply(new Row(header, fields)));
+                    chunkLines.add(reader.getLine());
+                } catch (IllegalArgumentException e) {
+                    progress.reject(reader.getLine(), e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, chunkLines, toEntity, repository, written, progress);
+                    log.info("Importing {}: {} rows read, {} imported, {} rejected",
+                            name, progress.read, progress.imported, progress.rejected);
+                }
+            }
+            progress.completed = true;
+        } catch (CsvReader.CsvFormatException e) {
+            progress.reject(e.getLine(), "malformed CSV, import stopped: " + e.getMessage());
+        } catch (IOException e) {
+            progress.reject(0, "unreadable input, import stopped: " + e.getMessage());
+        }
+        // Rows validated before a malformed record are still imported
+        writeChunk(chunk, chunkLines, toEntity, repository, written, progress);
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        ImportReportDTO report = progress.toReport(elapsedNanos);
+        log.info("Imported {} {} rows of {} in {} ms ({} rows/s), {} rejected",
+                report.getRowsImported(), name, report.getRowsRead(),
+                report.getElapsedMillis(), report.getRowsPerSecond(), report.getRowsRejected());
+        return report;
+    }
+
+    private Map<String, Integer> readHeader(CsvReader reader, String[] required) throws IOException {
+        List<String> names = reader.next();
+        if (names == null)
+            names = List.of();
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++)
+            header.put(names.get(i).trim(), i);
+        for (String column : required)
+            if (!header.containsKey(column))
+                throw new IllegalArgumentException("missing column " + column);
+        return header;
+    }
+
+    /**
+     * Write a chunk in one transaction. If the chunk fails, the rows are retried one
+     * transaction each, so a single bad row only rejects itself.
+     * written is called with every entity once its transaction has committed.
+     */
+    private <D, E> void writeChunk(List<D> chunk, List<Long> lines, Function<D, E> toEntity,
+                                   JpaRepository<E, ?> repository, Consumer<E> written, Progress progress) {
+        if (chunk.isEmpty())
+            return;
+        try {
+            List<E> saved = transactionTemplate.execute(status ->
+                    repository.saveAll(chunk.stream().map(toEntity).toList()));
+            saved.forEach(written);
+            progress.imported += chunk.size();
+        } catch (RuntimeException e) {
+            log.warn("Chunk of {} rows failed, retrying row by row: {}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                // Map again: the entities of the failed chunk already hold their generated ids
+                E entity = toEntity.apply(chunk.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> repository.save(entity));
+                    written.accept(entity);
+                    progress.imported++;
+                } catch (RuntimeException rowError) {
+                    progress.reject(lines.get(i), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        lines.clear();
+    }
+
+    /**
+     * A data line addressed by header name
+     */
+    private record Row(Map<String, Integer> header, List<String> fields) {
+
+        String text(String column, int maxLength, boolean required) {
+            Integer idx = header.get(column);
+            String value = idx == null || idx >= fields.size() ? null : fields.get(idx).trim();
+            if (value == null || value.isEmpty()) {
+                if (required)
+                    throw new IllegalArgumentException(column + " is required");
+                return null;
+            }
+            if (value.length() > maxLength)
+                throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+            return value;
+        }
+
+        int id(String column) {
+            String value = text(column, 10, true);
+            try {
+                int id = Integer.parseInt(value);
+                if (id < 1)
+                    throw new NumberFormatException();
+                return id;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " must be a positive integer");
+            }
+        }
+
+    }
+
+    private static class Progress {
+
+        long read;
+        long imported;
+        long rejected;
+        boolean completed;
+        final List<ImportErrorDTO> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS)
+                errors.add(new ImportErrorDTO(line, message));
+        }
+
+        ImportReportDTO toReport(long elapsedNanos) {
+            return ImportReportDTO.builder()
+                    .rowsRead(read)
+                    .rowsImported(imported)
+                    .rowsRejected(rejected)
+                    .completed(completed)
+                    .elapsedMillis(elapsedNanos / 1_000_000)
+                    .rowsPerSecond(imported * 1_000_000_000L / elapsedNanos)
+                    .errors(errors)
+                    .build();
+        }
+
+    }
+
+}
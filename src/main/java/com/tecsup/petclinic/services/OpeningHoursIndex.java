@@ -0,0 +1,273 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.SpecialtyDTO;
+import com.tecsup.petclinic.entities.Specialty;
+import com.tecsup.petclinic.repositories.SpecialtyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory opening hours of the specialties, for GET /specialties/open and
+ * GET /specialties/{id}/next-opening.
+ * Hours are whole hours, so the intervals are indexed by hour of the day: HOURS lists
+ * of the specialties open during that hour, for all offices and for each office. What
+ * is open at a time is one array read, the next opening a little arithmetic on the
+ * hours of one specialty, neither touches the database.
+ * Reads use an immutable snapshot; writes, rare, copy it and swap it in.
+ * Loaded once at startup, then kept up to date by SpecialtyServiceImpl.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class OpeningHoursIndex implements SmartInitializingSingleton {
+
+    static final int HOURS = 24;
+
+    private static final Comparator<Hours> BY_NAME = Comparator.comparing(Hours::name,
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)).thenComparing(Hours::id);
+
+    private final SpecialtyRepository specialtyRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public OpeningHoursIndex(SpecialtyRepository specialtyRepository) {
+        this.specialtyRepository = specialtyRepository;
+    }
+
+    /**
+     * Runs once every singleton exists, data.sql included, and before the web server
+     * accepts requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Rebuild the index from specialties.
+     * Writes made while it runs may be lost: only meant for startup
+     */
+    public synchronized void load() {
+        long start = System.nanoTime();
+        Map<Integer, Hours> specialties = new HashMap<>();
+        for (Specialty specialty : specialtyRepository.findAll())
+            specialties.put(specialty.getId(), new Hours(specialty.getId(), specialty.getName(),
+                    specialty.getOffice(), specialty.getOpenHour(), specialty.getCloseHour()));
+        snapshot = Snapshot.of(specialties);
+        log.info("Opening hours index loaded: {} specialties in {} ms", specialties.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Add or replace a specialty
+     */
+    public synchronized void put(SpecialtyDTO specialty) {
+        Map<Integer, Hours> specialties = new HashMap<>(snapshot.specialties);
+        specialties.put(specialty.getId(), new Hours(specialty.getId(), specialty.getName(),
+                specialty.getOffice(), specialty.getOpenHour(), specialty.getCloseHour()));
+        snapshot = snapshot.with(specialties, specialties.get(specialty.getId()),
+                snapshot.specialties.get(specialty.getId()));
+    }
+
+    public synchronized void remove(int id) {
+        Hours removed = snapshot.specialties.get(id);
+        if (removed == null)
+            return;
+        Map<Integer, Hours> specialties = new HashMap<>(snapshot.specialties);
+        specialties.remove(id);
+        snapshot = snapshot.with(specialties, null, removed);
+    }
+
+    /**
+     * Specialties open at a time
+     * @param at
+     * @param office null for every office, else ignoring case
+     * @return ordered by name
+     */
+    public List<SpecialtyDTO> findOpen(LocalDateTime at, String office) {
+        Snapshot snapshot = this.snapshot;
+        List<Hours>[] open = office == null ? snapshot.open : snapshot.openByOffice.get(office.toLowerCase(Locale.ROOT));
+        if (open == null)
+            return List.of();
+        return open[at.getHour()].stream().map(Hours::toDto).toList();
+    }
+
+    /**
+     * When a specialty opens next, from a time
+     * @return empty for an unknown specialty
+     */
+    public Optional<OpeningDTO> findNextOpening(int id, LocalDateTime at) {
+        Hours hours = snapshot.specialties.get(id);
+        if (hours == null)
+            return Optional.empty();
+        OpeningDTO opening = OpeningDTO.builder().specialtyId(hours.id).name(hours.name).office(hours.office).build();
+        if (!hours.valid())
+            return Optional.of(opening);
+
+        LocalDateTime opensAt;
+        if (hours.openAt(at.getHour())) {
+            opening.setOpen(true);
+            opensAt = at;
+        } else {
+            opensAt = at.toLocalDate().atStartOfDay().plusHours(hours.open);
+            if (!opensAt.isAfter(at))
+                opensAt = opensAt.plusDays(1);
+        }
+        LocalDateTime closesAt = opensAt.toLocalDate().atStartOfDay().plusHours(hours.close);
+        if (!closesAt.isAfter(opensAt))
+            closesAt = closesAt.plusDays(1);
+        opening.setOpensAt(opensAt.toString());
+        opening.setClosesAt(closesAt.toString());
+        return Optional.of(opening);
+    }
+
+    public Optional<SpecialtyDTO> find(int id) {
+        return Optional.ofNullable(snapshot.specialties.get(id)).map(Hours::toDto);
+    }
+
+    /**
+     * Hours of the day a specialty is open, an hour is open for all of its 60 minutes
+     * @return HOURS flags, empty for an unknown specialty
+     */
+    public Optional<boolean[]> openHours(int id) {
+        Hours hours = snapshot.specialties.get(id);
+        if (hours == null)
+            return Optional.empty();
+        boolean[] open = new boolean[HOURS];
+        for (int hour = 0; hour < HOURS; hour++)
+            open[hour] = hours.openAt(hour);
+        return Optional.of(open);
+    }
+
+    /**
+     * @return number of specialties indexed, with or without hours
+     */
+    public int size() {
+        return snapshot.specialties.size();
+    }
+
+    /**
+     * Opening hours of a specialty, without any when open or close is missing,
+     * out of range or open equals close; 0 to 24 is open all day
+     */
+    private record Hours(int id, String name, String office, Integer open, Integer close) {
+
+        boolean valid() {
+            return open != null && close != null && open >= 0 && open < HOURS && close >= 0 && close <= HOURS
+                    && !open.equals(close);
+        }
+
+        boolean openAt(int hour) {
+            if (!valid())
+                return false;
+            // close < open wraps past midnight, close 24 is midnight
+            return open < close ? hour >= open && hour < close : hour >= open || hour < close;
+        }
+
+        String officeKey() {
+            return office == null ? null : office.toLowerCase(Locale.ROOT);
+        }
+
+        SpecialtyDTO toDto() {
+            return SpecialtyDTO.builder().id(id).name(name).office(office).openHour(open).closeHour(close).build();
+        }
+
+    }
+
+    /**
+     * @param specialties every specialty, by id
+     * @param open the table of every office
+     * @param openByOffice the table of each office, by lower case office
+     */
+    private record Snapshot(Map<Integer, Hours> specialties, List<Hours>[] open, Map<String, List<Hours>[]> openByOffice) {
+
+        static final Snapshot EMPTY = of(Map.of());
+
+        static Snapshot of(Map<Integer, Hours> specialties) {
+            Map<String, List<Hours>> byOffice = new HashMap<>();
+            for (Hours hours : specialties.values())
+                if (hours.officeKey() != null)
+                    byOffice.computeIfAbsent(hours.officeKey(), office -> new ArrayList<>()).add(hours);
+            Map<String, List<Hours>[]> openByOffice = new HashMap<>();
+            byOffice.forEach((office, list) -> openByOffice.put(office, table(list)));
+            return new Snapshot(Map.copyOf(specialties), table(specialties.values()), Map.copyOf(openByOffice));
+        }
+
+        /**
+         * The snapshot after one specialty changed: only the lists of the hours it was
+         * or is open, in its tables, are copied
+         * @param added the new hours of the specialty, null when removed
+         * @param removed its former hours, null when new
+         */
+        Snapshot with(Map<Integer, Hours> specialties, Hours added, Hours removed) {
+            Set<String> offices = new HashSet<>();
+            for (Hours hours : new Hours[]{removed, added})
+                if (hours != null && hours.officeKey() != null)
+                    offices.add(hours.officeKey());
+
+            Map<String, List<Hours>[]> openByOffice = new HashMap<>(this.openByOffice);
+            for (String office : offices) {
+                List<Hours>[] table = replace(openByOffice.getOrDefault(office, EMPTY_TABLE),
+                        removed != null && office.equals(removed.officeKey()) ? removed : null,
+                        added != null && office.equals(added.officeKey()) ? added : null);
+                if (table[HOURS].isEmpty())
+                    openByOffice.remove(office);
+                else
+                    openByOffice.put(office, table);
+            }
+            return new Snapshot(Collections.unmodifiableMap(specialties), replace(open, removed, added), Map.copyOf(openByOffice));
+        }
+
+    }
+
+    /**
+     * A table holds one list per hour of the day of the specialties open then, ordered
+     * by name; the extra last list holds all of them, open or not
+     */
+    private static final List<Hours>[] EMPTY_TABLE = table(List.of());
+
+    @SuppressWarnings("unchecked")
+    private static List<Hours>[] table(Collection<Hours> specialties) {
+        List<Hours>[] table = new List[HOURS + 1];
+        for (int hour = 0; hour <= HOURS; hour++) {
+            int h = hour;
+            table[hour] = specialties.stream().filter(hours -> h == HOURS || hours.openAt(h)).sorted(BY_NAME).toList();
+        }
+        return table;
+    }
+
+    private static List<Hours>[] replace(List<Hours>[] table, Hours removed, Hours added) {
+        List<Hours>[] copy = table.clone();
+        for (int hour = 0; hour <= HOURS; hour++) {
+            boolean out = removed != null && (hour == HOURS || removed.openAt(hour));
+            boolean in = added != null && (hour == HOURS || added.openAt(hour));
+            if (!out && !in)
+                continue;
+            List<Hours> list = new ArrayList<>(copy[hour]);
+            if (out)
+                list.removeIf(hours -> hours.id == removed.id);
+            if (in) {
+                int i = Collections.binarySearch(list, added, BY_NAME);
+                list.add(i < 0 ? -i - 1 : i, added);
+            }
+            copy[hour] = Collections.unmodifiableList(list);
+        }
+        return copy;
+    }
+
+}
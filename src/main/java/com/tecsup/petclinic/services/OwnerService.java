@@ -1,5 +1,6 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.OwnerDTO;
 import com.tecsup.petclinic.entities.Owner;
 import com.tecsup.petclinic.exceptions.OwnerNotFoundException;
@@ -62,10 +63,29 @@ public interface OwnerService {
      */
     List<OwnerDTO> findByCity(String city);
 
+    /**
+     * Search owners whose last or first name starts with q, ignoring case and accents,
+     * optionally in one city. Last name matches rank before first name matches.
+     * @param q name prefix, may be empty when city is given
+     * @param city exact city, may be null
+     * @param limit maximum number of owners returned
+     * @return
+     * @throws IllegalArgumentException if neither q nor city is given
+     */
+    List<OwnerDTO> search(String q, String city, int limit);
+
     /**
      * Find all owners
      * @return
      */
     List<Owner> findAll();
 
+    /**
+     * Find a keyset page of owners ordered by id
+     * @param after id of the last row of the previous page, 0 for the first page
+     * @param limit
+     * @return
+     */
+    PageDTO<OwnerDTO> findPage(Long after, int limit);
+
 }
\ No newline at end of file
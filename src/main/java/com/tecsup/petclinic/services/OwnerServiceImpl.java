@@ -1,23 +1,36 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.OwnerDTO;
 import com.tecsup.petclinic.entities.Owner;
+import com.tecsup.petclinic.entities.SearchText;
 import com.tecsup.petclinic.exceptions.OwnerNotFoundException;
 import com.tecsup.petclinic.mapper.OwnerMapper;
 import com.tecsup.petclinic.repositories.OwnerRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
- * Service implementation for Owner
+ * Service implementation for Owner.
+ * findById is cached in "owners", create/update refresh the entry and delete evicts it.
  * @author jgomezm
  */
 @Service
 @Slf4j
+@CacheConfig(cacheNames = "owners")
 public class OwnerServiceImpl implements OwnerService {
 
     OwnerRepository ownerRepository;
@@ -29,24 +42,32 @@ public class OwnerServiceImpl implements OwnerService {
     }
 
     @Override
+    @CachePut(key = "#result.id")
+    @Transactional
     public OwnerDTO create(OwnerDTO ownerDTO) {
         Owner newOwner = ownerRepository.save(ownerMapper.mapToEntity(ownerDTO));
         return ownerMapper.mapToDto(newOwner);
     }
 
     @Override
+    @CachePut(key = "#result.id")
+    @Transactional
     public OwnerDTO update(OwnerDTO ownerDTO) {
         Owner updatedOwner = ownerRepository.save(ownerMapper.mapToEntity(ownerDTO));
         return ownerMapper.mapToDto(updatedOwner);
     }
 
     @Override
+    @CacheEvict(key = "#id")
+    @Transactional
     public void delete(Long id) throws OwnerNotFoundException {
         OwnerDTO owner = findById(id);
         ownerRepository.delete(ownerMapper.mapToEntity(owner));
     }
 
     @Override
+    @Cacheable(key = "#id")
+    @Transactional(readOnly = true)
     public OwnerDTO findById(Long id) throws OwnerNotFoundException {
         Optional<Owner> owner = ownerRepository.findById(id);
         if (!owner.isPresent())
@@ -55,35 +76,79 @@ public class OwnerServiceImpl implements OwnerService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OwnerDTO> findByFirstName(String firstName) {
         List<Owner> owners = ownerRepository.findByFirstName(firstName);
-        owners.forEach(owner -> log.info("" + owner));
+        log.debug("findByFirstName {}: {} owners", firstName, owners.size());
         return owners.stream()
                 .map(ownerMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OwnerDTO> findByLastName(String lastName) {
         List<Owner> owners = ownerRepository.findByLastName(lastName);
-        owners.forEach(owner -> log.info("" + owner));
+        log.debug("findByLastName {}: {} owners", lastName, owners.size());
         return owners.stream()
                 .map(ownerMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OwnerDTO> findByCity(String city) {
         List<Owner> owners = ownerRepository.findByCity(city);
-        owners.forEach(owner -> log.info("" + owner));
+        log.debug("findByCity {}: {} owners", city, owners.size());
         return owners.stream()
                 .map(ownerMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<OwnerDTO> search(String q, String city, int limit) {
+        String prefix = SearchText.normalize(q);
+        String cityKey = SearchText.normalize(city);
+        boolean byName = prefix != null && !prefix.isEmpty();
+        boolean byCity = cityKey != null && !cityKey.isEmpty();
+        if (!byName && !byCity)
+            throw new IllegalArgumentException("q or city is required");
+        if (!byName)
+            return ownerRepository.searchByCity(cityKey, Limit.of(limit));
+
+        String pattern = SearchText.startsWith(prefix);
+        Map<Long, OwnerDTO> ranked = new LinkedHashMap<>();
+        List<OwnerDTO> lastNames = byCity
+                ? ownerRepository.searchByLastNameInCity(pattern, cityKey, Limit.of(limit))
+                : ownerRepository.searchByLastName(pattern, Limit.of(limit));
+        lastNames.forEach(owner -> ranked.put(owner.getId(), owner));
+
+        // First name matches fill the remaining places. At most ranked.size() of them
+        // are already there, so limit rows are always enough
+        if (ranked.size() < limit) {
+            List<OwnerDTO> firstNames = byCity
+                    ? ownerRepository.searchByFirstNameInCity(pattern, cityKey, Limit.of(limit))
+                    : ownerRepository.searchByFirstName(pattern, Limit.of(limit));
+            for (OwnerDTO owner : firstNames) {
+                if (ranked.size() == limit)
+                    break;
+                ranked.putIfAbsent(owner.getId(), owner);
+            }
+        }
+        return new ArrayList<>(ranked.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Owner> findAll() {
         return ownerRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<OwnerDTO> findPage(Long after, int limit) {
+        return PageDTO.of(ownerRepository.findPageAfter(after, Limit.of(limit + 1)), limit);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import com.tecsup.petclinic.entities.SearchText;
+import com.tecsup.petclinic.repositories.PetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory prefix index over pets.name for the typeahead (GET /pets/suggest).
+ * Distinct names are kept sorted by their SearchText form, so the names starting
+ * with a prefix are one contiguous range: a suggestion is a seek plus a walk of
+ * at most limit entries, without touching the database.
+ * Loaded once at startup, then kept up to date by PetServiceImpl and the CSV import.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class PetNameIndex implements SmartInitializingSingleton {
+
+    private final PetRepository petRepository;
+
+    private volatile ConcurrentNavigableMap<String, Entry> names = new ConcurrentSkipListMap<>();
+
+    public PetNameIndex(PetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    /**
+     * Runs once every singleton exists, data.sql included, and before the web server
+     * accepts requests or the import runner writes
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Rebuild the index from the pets table, one row per distinct name.
+     * Writes made while it runs may be lost: only meant for startup
+     */
+    public void load() {
+        long start = System.nanoTime();
+        ConcurrentNavigableMap<String, Entry> loaded = new ConcurrentSkipListMap<>();
+        for (Object[] row : petRepository.countByName())
+            add(loaded, (String) row[0], ((Number) row[1]).intValue());
+        names = loaded;
+        log.info("Pet name index loaded: {} names in {} ms", loaded.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(String name) {
+        add(names, name, 1);
+    }
+
+    public void remove(String name) {
+        add(names, name, -1);
+    }
+
+    public void rename(String oldName, String newName) {
+        if (oldName != null && oldName.equals(newName))
+            return;
+        remove(oldName);
+        add(newName);
+    }
+
+    /**
+     * Names starting with prefix, ignoring case and accents, in alphabetical order
+     * @param prefix
+     * @param limit
+     * @return
+     * @throws IllegalArgumentException if the prefix is empty
+     */
+    public List<NameSuggestionDTO> suggest(String prefix, int limit) {
+        String key = SearchText.normalize(prefix);
+        if (key == null || key.isEmpty())
+            throw new IllegalArgumentException("prefix is required");
+
+        List<NameSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, 16));
+        for (Entry entry : names.subMap(key, key + Character.MAX_VALUE).values()) {
+            suggestions.add(new NameSuggestionDTO(entry.name(), entry.count()));
+            if (suggestions.size() == limit)
+                break;
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return number of distinct names
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Count delta more pets named name. Names differing only in case or accents share
+     * an entry shown with the first spelling seen; it goes when its count reaches 0
+     */
+    private static void add(ConcurrentNavigableMap<String, Entry> names, String name, int delta) {
+        String key = SearchText.normalize(name);
+        if (key == null || key.isEmpty())
+            return;
+        names.compute(key, (k, entry) -> {
+            int count = (entry == null ? 0 : entry.count()) + delta;
+            if (count <= 0)
+                return null;
+            return new Entry(entry == null ? name.trim() : entry.name(), count);
+        });
+    }
+
+    private record Entry(String name, int count) {
+    }
+
+}
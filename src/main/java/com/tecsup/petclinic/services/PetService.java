@@ -1,5 +1,7 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.PetDTO;
 import com.tecsup.petclinic.entities.Pet;
 import com.tecsup.petclinic.exceptions.PetNotFoundException;
@@ -67,4 +69,21 @@ public interface PetService {
 	 * @return
 	 */
 	List<Pet> findAll();
+
+	/**
+	 * Keyset page of pets ordered by id
+	 * @param after id of the last pet of the previous page, 0 for the first page
+	 * @param limit
+	 * @return
+	 */
+	PageDTO<PetDTO> findPage(Integer after, int limit);
+
+	/**
+	 * Pet names starting with prefix, ignoring case and accents, read from the in-memory index
+	 * @param prefix
+	 * @param limit
+	 * @return
+	 * @throws IllegalArgumentException if the prefix is empty
+	 */
+	List<NameSuggestionDTO> suggestNames(String prefix, int limit);
 }
\ No newline at end of file
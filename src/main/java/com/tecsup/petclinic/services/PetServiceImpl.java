@@ -1,32 +1,44 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.PetDTO;
 import com.tecsup.petclinic.entities.Pet;
 import com.tecsup.petclinic.exceptions.PetNotFoundException;
 import com.tecsup.petclinic.mapper.PetMapper;
 import com.tecsup.petclinic.repositories.PetRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
- * 
+ * findById is cached in "pets", create/update refresh the entry and delete evicts it.
+ * Every write is also applied to the PetNameIndex behind suggestNames, once committed.
  * @author jgomezm
  *
  */
 @Service
 @Slf4j
+@CacheConfig(cacheNames = "pets")
 public class PetServiceImpl implements PetService {
 
 	PetRepository petRepository;
 	PetMapper petMapper;
+	PetNameIndex petNameIndex;
 
-	public PetServiceImpl (PetRepository petRepository, PetMapper petMapper) {
+	public PetServiceImpl (PetRepository petRepository, PetMapper petMapper, PetNameIndex petNameIndex) {
 		this.petRepository = petRepository;
 		this.petMapper = petMapper;
+		this.petNameIndex = petNameIndex;
 	}
 
 
@@ -36,9 +48,12 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@CachePut(key = "#result.id")
+	@Transactional
 	public PetDTO create(PetDTO petDTO) {
 
 		Pet newPet = petRepository.save(petMapper.mapToEntity(petDTO));
+		AfterCommit.run(() -> petNameIndex.add(newPet.getName()));
 
 		return petMapper.mapToDto(newPet);
 	}
@@ -49,9 +64,20 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@CachePut(key = "#result.id")
+	@Transactional
 	public PetDTO update(PetDTO petDTO) {
 
-		Pet newPet = petRepository.save(petMapper.mapToEntity(petDTO));
+		// Update the managed pet in place: the select a merge would run anyway also gives
+		// the stored name, which leaves the index; the DTO already carries the new one
+		Optional<Pet> stored = petDTO.getId() == null ? Optional.empty() : petRepository.findById(petDTO.getId());
+		String oldName = stored.map(Pet::getName).orElse(null);
+
+		Pet newPet = stored.map(pet -> {
+			petMapper.updateEntity(petDTO, pet);
+			return pet;
+		}).orElseGet(() -> petRepository.save(petMapper.mapToEntity(petDTO)));
+		AfterCommit.run(() -> petNameIndex.rename(oldName, newPet.getName()));
 
 		return petMapper.mapToDto(newPet);
 
@@ -64,11 +90,14 @@ public class PetServiceImpl implements PetService {
 	 * @throws PetNotFoundException
 	 */
 	@Override
+	@CacheEvict(key = "#id")
+	@Transactional
 	public void delete(Integer id) throws PetNotFoundException{
 
 		PetDTO pet = findById(id);
 
 		petRepository.delete(this.petMapper.mapToEntity(pet));
+		AfterCommit.run(() -> petNameIndex.remove(pet.getName()));
 
 	}
 
@@ -78,6 +107,8 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@Cacheable(key = "#id")
+	@Transactional(readOnly = true)
 	public PetDTO findById(Integer id) throws PetNotFoundException {
 
 		Optional<Pet> pet = petRepository.findById(id);
@@ -94,11 +125,12 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<PetDTO> findByName(String name) {
 
 		List<Pet> pets = petRepository.findByName(name);
 
-		pets.forEach(pet -> log.info("" + pet));
+		log.debug("findByName {}: {} pets", name, pets.size());
 
 		return pets
 				.stream()
@@ -112,11 +144,12 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Pet> findByTypeId(int typeId) {
 
 		List<Pet> pets = petRepository.findByTypeId(typeId);
 
-		pets.forEach(pet -> log.info("" + pet));
+		log.debug("findByTypeId {}: {} pets", typeId, pets.size());
 
 		return pets; 
 	}
@@ -127,11 +160,12 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Pet> findByOwnerId(int ownerId) {
 
 		List<Pet> pets = petRepository.findByOwnerId(ownerId);
 
-		pets.forEach(pet -> log.info("" + pet));
+		log.debug("findByOwnerId {}: {} pets", ownerId, pets.size());
 
 		return pets;
 	}
@@ -141,9 +175,35 @@ public class PetServiceImpl implements PetService {
 	 * @return
 	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Pet> findAll() {
 		//
 		return petRepository.findAll();
 
 	}
+
+	/**
+	 *
+	 * @param after
+	 * @param limit
+	 * @return
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public PageDTO<PetDTO> findPage(Integer after, int limit) {
+
+		return PageDTO.of(petRepository.findPageAfter(after, Limit.of(limit + 1)), limit);
+	}
+
+	/**
+	 *
+	 * @param prefix
+	 * @param limit
+	 * @return
+	 */
+	@Override
+	public List<NameSuggestionDTO> suggestNames(String prefix, int limit) {
+
+		return petNameIndex.suggest(prefix, limit);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.tecsup.petclinic.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Booked slots of each vet and day, one bit per SLOT_MINUTES slot: a day is SLOTS bits
+ * of a single AtomicLong. A booking claims its bit with a compare-and-set, two bookings
+ * of the same slot never both succeed and never wait on a lock; the loser retries only
+ * when another slot of the same day changed under it.
+ * Days are read from visits on first use, several vets at once, and kept a bounded
+ * time. Each instance has its own calendar: the unique index uk_visits_vet_slot stays
+ * the final check, a booking it rejects sets the bit here too.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class SlotCalendar {
+
+    public static final int SLOT_MINUTES = 30;
+
+    public static final int SLOTS = 24 * 60 / SLOT_MINUTES;
+
+    static final String SLOT_INDEX = "uk_visits_vet_slot";
+
+    private final VisitRepository visitRepository;
+
+    private final Cache<Day, AtomicLong> days;
+
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public SlotCalendar(VisitRepository visitRepository,
+                        @Value("${petclinic.appointments.max-days:100000}") long maxDays,
+                        @Value("${petclinic.appointments.expire-after:1h}") Duration expireAfter) {
+        this.visitRepository = visitRepository;
+        this.days = Caffeine.newBuilder().maximumSize(maxDays).expireAfterAccess(expireAfter).build();
+    }
+
+    /**
+     * @return the slot starting at a time, -1 when the time is not the start of a slot
+     */
+    public static int slot(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute();
+        return time.getSecond() == 0 && time.getNano() == 0 && minutes % SLOT_MINUTES == 0 ? minutes / SLOT_MINUTES : -1;
+    }
+
+    public static LocalTime time(int slot) {
+        return LocalTime.of(slot * SLOT_MINUTES / 60, slot * SLOT_MINUTES % 60);
+    }
+
+    /**
+     * Take a free slot
+     * @return false when it was already booked
+     */
+    public boolean claim(int vetId, LocalDate date, int slot) {
+        AtomicLong day = day(vetId, date);
+        long bit = 1L << slot;
+        for (;;) {
+            long booked = day.get();
+            if ((booked & bit) != 0) {
+                conflicts.increment();
+                return false;
+            }
+            if (day.compareAndSet(booked, booked | bit)) {
+                claims.increment();
+                return true;
+            }
+            retries.increment();
+        }
+    }
+
+    /**
+     * Free a slot claimed by a booking that was not stored
+     */
+    public void release(int vetId, LocalDate date, int slot) {
+        AtomicLong day = days.getIfPresent(new Day(vetId, date.toEpochDay()));
+        if (day != null)
+            day.getAndUpdate(booked -> booked & ~(1L << slot));
+    }
+
+    /**
+     * Forget a day, read again from visits on next use: for visits changed or deleted
+     */
+    public void invalidate(Integer vetId, LocalDate date) {
+        if (vetId != null && date != null)
+            days.invalidate(new Day(vetId, date.toEpochDay()));
+    }
+
+    /**
+     * Booked slots of the vets on a day, the days not known yet read in one query
+     * @return bitset of the booked slots, by vet id
+     */
+    public Map<Integer, Long> booked(Collection<Integer> vetIds, LocalDate date) {
+        Map<Integer, Long> booked = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer vetId : vetIds) {
+            AtomicLong day = days.getIfPresent(new Day(vetId, date.toEpochDay()));
+            if (day == null)
+                missing.add(vetId);
+            else
+                booked.put(vetId, day.get());
+        }
+        if (!missing.isEmpty())
+            load(missing, date).forEach((vetId, day) -> booked.put(vetId, day.get()));
+        return booked;
+    }
+
+    /**
+     * Was the insert of a booked visit rejected by uk_visits_vet_slot
+     */
+    public static boolean isSlotConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(SLOT_INDEX);
+    }
+
+    public long getClaims() {
+        return claims.sum();
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    /**
+     * Compare-and-set attempts lost to a concurrent booking of another slot of the same day
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    private AtomicLong day(int vetId, LocalDate date) {
+        AtomicLong day = days.getIfPresent(new Day(vetId, date.toEpochDay()));
+        return day != null ? day : load(List.of(vetId), date).get(vetId);
+    }
+
+    /**
+     * Read the days from visits, outside of the cache so no other day waits on the query.
+     * When two threads load the same day the first one stored wins, the other is dropped
+     */
+    private Map<Integer, AtomicLong> load(List<Integer> vetIds, LocalDate date) {
+        Map<Integer, Long> read = new HashMap<>();
+        for (Object[] row : visitRepository.findBookedTimes(date, vetIds)) {
+            LocalTime time = (LocalTime) row[1];
+            read.merge((Integer) row[0], 1L << ((time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES), (a, b) -> a | b);
+        }
+
+        Map<Integer, AtomicLong> loaded = new HashMap<>();
+        for (Integer vetId : vetIds) {
+            AtomicLong day = new AtomicLong(read.getOrDefault(vetId, 0L));
+            AtomicLong stored = days.asMap().putIfAbsent(new Day(vetId, date.toEpochDay()), day);
+            loaded.put(vetId, stored != null ? stored : day);
+        }
+        log.debug("Slot calendar: {} days of {} loaded", vetIds.size(), date);
+        return loaded;
+    }
+
+    private record Day(int vetId, long epochDay) {
+    }
+
+}
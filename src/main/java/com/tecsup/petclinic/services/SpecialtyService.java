@@ -1,9 +1,12 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.SpecialtyDTO;
 import com.tecsup.petclinic.entities.Specialty;
 import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -54,4 +57,29 @@ public interface SpecialtyService {
      */
     List<Specialty> findAll();
 
+    /**
+     * Find a keyset page of specialties ordered by id
+     * @param after id of the last row of the previous page, 0 for the first page
+     * @param limit
+     * @return
+     */
+    PageDTO<SpecialtyDTO> findPage(Integer after, int limit);
+
+    /**
+     * Find the specialties open at a time
+     * @param at
+     * @param office null for every office
+     * @return ordered by name
+     */
+    List<SpecialtyDTO> findOpen(LocalDateTime at, String office);
+
+    /**
+     * Find when a specialty opens next
+     * @param id
+     * @param at
+     * @return
+     * @throws SpecialtyNotFoundException
+     */
+    OpeningDTO findNextOpening(Integer id, LocalDateTime at) throws SpecialtyNotFoundException;
+
 }
\ No newline at end of file
@@ -1,19 +1,26 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.SpecialtyDTO;
 import com.tecsup.petclinic.entities.Specialty;
 import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
 import com.tecsup.petclinic.mapper.SpecialtyMapper;
 import com.tecsup.petclinic.repositories.SpecialtyRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
- * Service implementation for Specialty
+ * Service implementation for Specialty.
+ * Renames and deletes are applied to the VetSpecialtyIndex once committed, every write
+ * to the OpeningHoursIndex, which answers the opening hours queries.
  * @author jgomezm
  */
 @Service
@@ -22,31 +29,56 @@ public class SpecialtyServiceImpl implements SpecialtyService {
 
     SpecialtyRepository specialtyRepository;
     SpecialtyMapper specialtyMapper;
+    VetSpecialtyIndex vetSpecialtyIndex;
+    OpeningHoursIndex openingHoursIndex;
 
-    public SpecialtyServiceImpl(SpecialtyRepository specialtyRepository, SpecialtyMapper specialtyMapper) {
+    public SpecialtyServiceImpl(SpecialtyRepository specialtyRepository, SpecialtyMapper specialtyMapper,
+                                VetSpecialtyIndex vetSpecialtyIndex, OpeningHoursIndex openingHoursIndex) {
         this.specialtyRepository = specialtyRepository;
         this.specialtyMapper = specialtyMapper;
+        this.vetSpecialtyIndex = vetSpecialtyIndex;
+        this.openingHoursIndex = openingHoursIndex;
     }
 
     @Override
+    @Transactional
     public SpecialtyDTO create(SpecialtyDTO specialtyDTO) {
+        checkHours(specialtyDTO);
         Specialty newSpecialty = specialtyRepository.save(specialtyMapper.mapToEntity(specialtyDTO));
-        return specialtyMapper.mapToDto(newSpecialty);
+        SpecialtyDTO created = specialtyMapper.mapToDto(newSpecialty);
+        AfterCommit.run(() -> openingHoursIndex.put(created));
+        return created;
     }
 
     @Override
+    @Transactional
     public SpecialtyDTO update(SpecialtyDTO specialtyDTO) {
+        checkHours(specialtyDTO);
+        // Loaded first for its old name, the merge then finds it in the persistence context
+        String oldName = specialtyDTO.getId() == null ? null
+                : specialtyRepository.findById(specialtyDTO.getId()).map(Specialty::getName).orElse(null);
         Specialty updatedSpecialty = specialtyRepository.save(specialtyMapper.mapToEntity(specialtyDTO));
-        return specialtyMapper.mapToDto(updatedSpecialty);
+        SpecialtyDTO updated = specialtyMapper.mapToDto(updatedSpecialty);
+        AfterCommit.run(() -> {
+            vetSpecialtyIndex.renameSpecialty(oldName, updated.getName());
+            openingHoursIndex.put(updated);
+        });
+        return updated;
     }
 
     @Override
+    @Transactional
     public void delete(Integer id) throws SpecialtyNotFoundException {
         SpecialtyDTO specialty = findById(id);
         specialtyRepository.delete(specialtyMapper.mapToEntity(specialty));
+        AfterCommit.run(() -> {
+            vetSpecialtyIndex.removeSpecialty(specialty.getName());
+            openingHoursIndex.remove(id);
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public SpecialtyDTO findById(Integer id) throws SpecialtyNotFoundException {
         Optional<Specialty> specialty = specialtyRepository.findById(id);
         if (!specialty.isPresent())
@@ -55,17 +87,47 @@ public class SpecialtyServiceImpl implements SpecialtyService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SpecialtyDTO> findByName(String name) {
         List<Specialty> specialties = specialtyRepository.findByName(name);
-        specialties.forEach(specialty -> log.info("" + specialty));
+        log.debug("findByName {}: {} specialties", name, specialties.size());
         return specialties.stream()
                 .map(specialtyMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Specialty> findAll() {
         return specialtyRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<SpecialtyDTO> findPage(Integer after, int limit) {
+        List<Specialty> specialties = specialtyRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        return PageDTO.of(specialtyMapper.mapToDtoList(specialties), limit);
+    }
+
+    @Override
+    public List<SpecialtyDTO> findOpen(LocalDateTime at, String office) {
+        return openingHoursIndex.findOpen(at, office);
+    }
+
+    @Override
+    public OpeningDTO findNextOpening(Integer id, LocalDateTime at) throws SpecialtyNotFoundException {
+        return openingHoursIndex.findNextOpening(id, at)
+                .orElseThrow(() -> new SpecialtyNotFoundException("Record not found...!"));
+    }
+
+    /**
+     * Hours are optional, when given they are hours of the day
+     */
+    private static void checkHours(SpecialtyDTO specialtyDTO) {
+        Integer open = specialtyDTO.getOpenHour();
+        Integer close = specialtyDTO.getCloseHour();
+        if ((open != null && (open < 0 || open > 23)) || (close != null && (close < 0 || close > 24)))
+            throw new IllegalArgumentException("Opening hours out of range: " + open + "-" + close);
+    }
+
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.SpecialtyAssignmentDTO;
+import com.tecsup.petclinic.dtos.SpecialtyChangesDTO;
 import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.dtos.VetSpecialtiesDTO;
 import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
 import com.tecsup.petclinic.exceptions.VetNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -61,4 +67,48 @@ public interface VetService {
      */
     List<Vet> findAll();
 
+    /**
+     * Find a keyset page of vets ordered by id
+     * @param after id of the last row of the previous page, 0 for the first page
+     * @param limit
+     * @return
+     */
+    PageDTO<VetDTO> findPage(Integer after, int limit);
+
+    PageDTO<VetDTO> findPageWithSpecialties(Integer after, int limit);
+
+    List<VetDTO> findBySpecialties(Collection<String> specialties, int limit);
+
+    /**
+     * Replace the specialties of a vet, writing only the rows that change
+     * @param id
+     * @param specialtyIds the complete list, empty for none
+     * @return the vet with its specialties
+     * @throws VetNotFoundException
+     * @throws SpecialtyNotFoundException
+     */
+    VetDTO assignSpecialties(Integer id, Collection<Integer> specialtyIds)
+            throws VetNotFoundException, SpecialtyNotFoundException;
+
+    /**
+     * Give specialties to a vet and take others from it, keeping the rest
+     * @param id
+     * @param changes
+     * @return the vet with its specialties
+     * @throws VetNotFoundException
+     * @throws SpecialtyNotFoundException
+     */
+    VetDTO changeSpecialties(Integer id, SpecialtyChangesDTO changes)
+            throws VetNotFoundException, SpecialtyNotFoundException;
+
+    /**
+     * Replace the specialties of many vets in one transaction, all or none
+     * @param assignments
+     * @return
+     * @throws VetNotFoundException
+     * @throws SpecialtyNotFoundException
+     */
+    SpecialtyAssignmentDTO assignSpecialties(List<VetSpecialtiesDTO> assignments)
+            throws VetNotFoundException, SpecialtyNotFoundException;
+
 }
\ No newline at end of file
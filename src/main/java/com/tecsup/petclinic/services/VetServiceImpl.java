@@ -1,52 +1,98 @@
 package com.tecsup.petclinic.services;
 
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.SpecialtyAssignmentDTO;
+import com.tecsup.petclinic.dtos.SpecialtyChangesDTO;
 import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.dtos.VetSpecialtiesDTO;
+import com.tecsup.petclinic.entities.Specialty;
 import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
 import com.tecsup.petclinic.exceptions.VetNotFoundException;
 import com.tecsup.petclinic.mapper.VetMapper;
+import com.tecsup.petclinic.repositories.SpecialtyRepository;
 import com.tecsup.petclinic.repositories.VetRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Service implementation for Vet
+ * Service implementation for Vet.
+ * findById is cached in "vets", create/update refresh the entry and delete evicts it.
+ * Vets are matched on their specialties by the VetSpecialtyIndex, deletes and specialty
+ * assignments are applied to it once committed.
+ * Assignments write vet_specialties directly, only the rows that change, then evict the
+ * cached Vet.specialties of the vets changed.
  * @author jgomezm
  */
 @Service
 @Slf4j
+@CacheConfig(cacheNames = "vets")
 public class VetServiceImpl implements VetService {
 
     VetRepository vetRepository;
     VetMapper vetMapper;
+    SpecialtyRepository specialtyRepository;
+    VetSpecialtyIndex vetSpecialtyIndex;
 
-    public VetServiceImpl(VetRepository vetRepository, VetMapper vetMapper) {
+    public VetServiceImpl(VetRepository vetRepository, VetMapper vetMapper, SpecialtyRepository specialtyRepository,
+                          VetSpecialtyIndex vetSpecialtyIndex) {
         this.vetRepository = vetRepository;
         this.vetMapper = vetMapper;
+        this.specialtyRepository = specialtyRepository;
+        this.vetSpecialtyIndex = vetSpecialtyIndex;
     }
 
     @Override
+    @CachePut(key = "#result.id")
+    @Transactional
     public VetDTO create(VetDTO vetDTO) {
         Vet newVet = vetRepository.save(vetMapper.mapToEntity(vetDTO));
         return vetMapper.mapToDto(newVet);
     }
 
     @Override
+    @CachePut(key = "#result.id")
+    @Transactional
     public VetDTO update(VetDTO vetDTO) {
-        Vet updatedVet = vetRepository.save(vetMapper.mapToEntity(vetDTO));
+        // Update the managed vet in place, merging a detached copy would load its specialties
+        Optional<Vet> stored = vetDTO.getId() == null ? Optional.empty() : vetRepository.findById(vetDTO.getId());
+        Vet updatedVet = stored.map(vet -> {
+            vetMapper.updateEntity(vetDTO, vet);
+            return vet;
+        }).orElseGet(() -> vetRepository.save(vetMapper.mapToEntity(vetDTO)));
         return vetMapper.mapToDto(updatedVet);
     }
 
     @Override
+    @CacheEvict(key = "#id")
+    @Transactional
     public void delete(Integer id) throws VetNotFoundException {
         VetDTO vet = findById(id);
         vetRepository.delete(vetMapper.mapToEntity(vet));
+        AfterCommit.run(() -> vetSpecialtyIndex.remove(id));
     }
 
     @Override
+    @Cacheable(key = "#id")
+    @Transactional(readOnly = true)
     public VetDTO findById(Integer id) throws VetNotFoundException {
         Optional<Vet> vet = vetRepository.findById(id);
         if (!vet.isPresent())
@@ -55,26 +101,183 @@ public class VetServiceImpl implements VetService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<VetDTO> findByFirstName(String firstName) {
         List<Vet> vets = vetRepository.findByFirstName(firstName);
-        vets.forEach(vet -> log.info("" + vet));
+        log.debug("findByFirstName {}: {} vets", firstName, vets.size());
         return vets.stream()
                 .map(vetMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<VetDTO> findByLastName(String lastName) {
         List<Vet> vets = vetRepository.findByLastName(lastName);
-        vets.forEach(vet -> log.info("" + vet));
+        log.debug("findByLastName {}: {} vets", lastName, vets.size());
         return vets.stream()
                 .map(vetMapper::mapToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Vet> findAll() {
         return vetRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<VetDTO> findPage(Integer after, int limit) {
+        return PageDTO.of(vetRepository.findPageAfter(after, Limit.of(limit + 1)), limit);
+    }
+
+    /**
+     * The page, then the specialties of all its vets in one more query.
+     * Fetching the collection with the page would make Hibernate apply the limit
+     * in memory, after reading every vet past the cursor.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<VetDTO> findPageWithSpecialties(Integer after, int limit) {
+        PageDTO<VetDTO> page = findPage(after, limit);
+        if (page.getContent().isEmpty())
+            return page;
+
+        Map<Integer, List<String>> specialties = new HashMap<>();
+        List<Integer> ids = page.getContent().stream().map(VetDTO::getId).toList();
+        for (Object[] row : vetRepository.findSpecialtyNamesByVetIdIn(ids))
+            specialties.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        page.getContent().forEach(vet -> vet.setSpecialties(specialties.getOrDefault(vet.getId(), List.of())));
+        return page;
+    }
+
+    /**
+     * Vets are matched in the VetSpecialtyIndex, then read in one query
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<VetDTO> findBySpecialties(Collection<String> specialties, int limit) {
+        List<Integer> ids = vetSpecialtyIndex.findAll(specialties, limit);
+        log.debug("findBySpecialties {}: {} vets", specialties, ids.size());
+        if (ids.isEmpty())
+            return List.of();
+
+        List<VetDTO> vets = vetRepository.findDtosByIdIn(ids);
+        vets.forEach(vet -> vet.setSpecialties(vetSpecialtyIndex.specialtiesOf(vet.getId())));
+        return vets;
+    }
+
+    @Override
+    @Transactional
+    public VetDTO assignSpecialties(Integer id, Collection<Integer> specialtyIds)
+            throws VetNotFoundException, SpecialtyNotFoundException {
+        Set<Integer> target = idSet(specialtyIds);
+        return assign(Map.of(id, current -> target), target).getVets().get(0);
+    }
+
+    @Override
+    @Transactional
+    public VetDTO changeSpecialties(Integer id, SpecialtyChangesDTO changes)
+            throws VetNotFoundException, SpecialtyNotFoundException {
+        Set<Integer> add = idSet(changes.getAdd());
+        Set<Integer> remove = idSet(changes.getRemove());
+        if (add.stream().anyMatch(remove::contains))
+            throw new IllegalArgumentException("Specialty both added and removed");
+
+        Set<Integer> requested = new TreeSet<>(add);
+        requested.addAll(remove);
+        return assign(Map.of(id, current -> {
+            Set<Integer> target = new TreeSet<>(current);
+            target.addAll(add);
+            target.removeAll(remove);
+            return target;
+        }), requested).getVets().get(0);
+    }
+
+    @Override
+    @Transactional
+    public SpecialtyAssignmentDTO assignSpecialties(List<VetSpecialtiesDTO> assignments)
+            throws VetNotFoundException, SpecialtyNotFoundException {
+        Map<Integer, Function<Set<Integer>, Set<Integer>>> targets = new LinkedHashMap<>();
+        Set<Integer> requested = new TreeSet<>();
+        for (VetSpecialtiesDTO assignment : assignments) {
+            if (assignment.getVetId() == null)
+                throw new IllegalArgumentException("Missing vetId");
+            Set<Integer> target = idSet(assignment.getSpecialtyIds());
+            if (targets.put(assignment.getVetId(), current -> target) != null)
+                throw new IllegalArgumentException("Vet " + assignment.getVetId() + " assigned twice");
+            requested.addAll(target);
+        }
+        return assign(targets, requested);
+    }
+
+    /**
+     * The vets are locked, then compared with their target specialties: rows are deleted
+     * and inserted for the differences only, in at most one batch each. Every vet and
+     * specialty is checked before the first write, a failed check changes nothing.
+     * @param targets the new specialty ids of each vet, from its current ones
+     * @param requested specialty ids named by the request, all must exist
+     */
+    private SpecialtyAssignmentDTO assign(Map<Integer, Function<Set<Integer>, Set<Integer>>> targets,
+                                          Set<Integer> requested)
+            throws VetNotFoundException, SpecialtyNotFoundException {
+        if (targets.isEmpty())
+            return SpecialtyAssignmentDTO.builder().vets(List.of()).build();
+
+        List<VetDTO> vets = vetRepository.lockVets(targets.keySet());
+        if (vets.size() < targets.size())
+            throw new VetNotFoundException("Record not found...!");
+        Map<Integer, Set<Integer>> current = vetRepository.findSpecialtyIds(targets.keySet());
+
+        // Names of the specialties requested and of those the vets keep
+        Set<Integer> known = new TreeSet<>(requested);
+        current.values().forEach(known::addAll);
+        Map<Integer, String> names = new HashMap<>();
+        for (Specialty specialty : specialtyRepository.findAllById(known))
+            names.put(specialty.getId(), specialty.getName());
+        if (!names.keySet().containsAll(requested))
+            throw new SpecialtyNotFoundException("Record not found...!");
+
+        Map<Integer, List<Integer>> inserts = new HashMap<>();
+        Map<Integer, List<Integer>> deletes = new HashMap<>();
+        Map<Integer, List<String>> changed = new HashMap<>();
+        for (VetDTO vet : vets) {
+            Set<Integer> before = current.getOrDefault(vet.getId(), Set.of());
+            Set<Integer> after = targets.get(vet.getId()).apply(before);
+            List<Integer> added = after.stream().filter(id -> !before.contains(id)).toList();
+            List<Integer> removed = before.stream().filter(id -> !after.contains(id)).toList();
+            if (!added.isEmpty())
+                inserts.put(vet.getId(), added);
+            if (!removed.isEmpty())
+                deletes.put(vet.getId(), removed);
+
+            vet.setSpecialties(after.stream().map(names::get).sorted().toList());
+            if (!added.isEmpty() || !removed.isEmpty())
+                changed.put(vet.getId(), vet.getSpecialties());
+        }
+
+        int deleted = vetRepository.deleteSpecialtyRows(deletes);
+        int inserted = vetRepository.insertSpecialtyRows(inserts);
+        log.debug("assignSpecialties: {} vets, {} changed, {} rows inserted, {} deleted",
+                vets.size(), changed.size(), inserted, deleted);
+        if (!changed.isEmpty())
+            AfterCommit.run(() -> {
+                vetRepository.evictSpecialties(changed.keySet());
+                changed.forEach(vetSpecialtyIndex::put);
+            });
+        return SpecialtyAssignmentDTO.builder().vets(vets).inserted(inserted).deleted(deleted).build();
+    }
+
+    private static Set<Integer> idSet(Collection<Integer> ids) {
+        Set<Integer> set = new TreeSet<>();
+        if (ids != null)
+            for (Integer id : ids) {
+                if (id == null)
+                    throw new IllegalArgumentException("Missing specialty id");
+                set.add(id);
+            }
+        return set;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.entities.SearchText;
+import com.tecsup.petclinic.repositories.VetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the specialties of each vet, for GET /vets/by-specialties.
+ * Every specialty name gets a bit, every vet the bitset of its specialties, so a vet
+ * has all the specialties asked for when its words ANDed with the words of the query
+ * give the query back: one AND per 64 specialties and vet, without touching the database.
+ * Reads use an immutable snapshot; writes, rare, copy it and swap it in.
+ * Loaded at startup, then kept up to date by VetServiceImpl and SpecialtyServiceImpl.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class VetSpecialtyIndex implements SmartInitializingSingleton {
+
+    private final VetRepository vetRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public VetSpecialtyIndex(VetRepository vetRepository) {
+        this.vetRepository = vetRepository;
+    }
+
+    /**
+     * Runs once every singleton exists, data.sql included, and before the web server
+     * accepts requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Rebuild the index from vet_specialties, at startup or on a rename to a taken name.
+     * It holds the lock of the writers, which run once their transaction has committed:
+     * a write committed before the read is in it, one committed while it runs waits and
+     * is applied on top of the new snapshot. Writes replace, so one applied twice is harmless
+     */
+    public synchronized void load() {
+        long start = System.nanoTime();
+        Map<Integer, List<String>> specialties = new LinkedHashMap<>();
+        for (Object[] row : vetRepository.findAllSpecialtyNames())
+            specialties.computeIfAbsent((Integer) row[0], vetId -> new ArrayList<>()).add((String) row[1]);
+
+        Builder builder = new Builder(Snapshot.EMPTY);
+        specialties.forEach(builder::put);
+        snapshot = builder.build();
+        log.info("Vet specialty index loaded: {} vets, {} specialties in {} ms", snapshot.vetIds.length,
+                snapshot.names.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replace the specialties of a vet, none removes it
+     * @param vetId
+     * @param names
+     */
+    public synchronized void put(int vetId, Collection<String> names) {
+        Builder builder = new Builder(snapshot);
+        builder.put(vetId, names);
+        snapshot = builder.build();
+    }
+
+    public synchronized void remove(int vetId) {
+        put(vetId, List.of());
+    }
+
+    /**
+     * Give a specialty its new name. When the new name is already the name of another
+     * specialty, the two now share it: the index is read again from vet_specialties
+     */
+    public synchronized void renameSpecialty(String oldName, String newName) {
+        Integer bit = snapshot.bit(oldName);
+        String newKey = SearchText.normalize(newName);
+        if (bit == null || newKey == null || newKey.isEmpty() || oldName.equals(newName))
+            return;
+        Integer taken = snapshot.bits.get(newKey);
+        if (taken != null && !taken.equals(bit)) {
+            load();
+            return;
+        }
+        Builder builder = new Builder(snapshot);
+        builder.bits.remove(SearchText.normalize(oldName));
+        builder.bits.put(newKey, bit);
+        builder.names.set(bit, newName);
+        snapshot = builder.build();
+    }
+
+    /**
+     * Forget a specialty: no vet has it any more, its bit is not reused
+     */
+    public synchronized void removeSpecialty(String name) {
+        Integer bit = snapshot.bit(name);
+        if (bit == null)
+            return;
+        Builder builder = new Builder(snapshot);
+        builder.bits.remove(SearchText.normalize(name));
+        builder.names.set(bit, null);
+        for (int i = 0; i < builder.specialties.size(); i++) {
+            long[] words = builder.specialties.get(i);
+            if (bit / Long.SIZE < words.length && (words[bit / Long.SIZE] & (1L << bit)) != 0) {
+                words = words.clone();
+                words[bit / Long.SIZE] &= ~(1L << bit);
+                builder.specialties.set(i, words);
+            }
+        }
+        snapshot = builder.build();
+    }
+
+    /**
+     * Vets having every one of the specialties, ignoring case and accents
+     * @param names
+     * @param limit
+     * @return at most limit vet ids, in ascending order
+     */
+    public List<Integer> findAll(Collection<String> names, int limit) {
+        Snapshot snapshot = this.snapshot;
+        long[] query = snapshot.mask(names);
+        List<Integer> vetIds = new ArrayList<>(Math.min(limit, 16));
+        if (query == null)
+            return vetIds;
+
+        for (int i = 0; i < snapshot.vetIds.length && vetIds.size() < limit; i++) {
+            long[] words = snapshot.specialties[i];
+            if (words.length < query.length)
+                continue;
+            boolean all = true;
+            for (int w = 0; w < query.length && all; w++)
+                all = (words[w] & query[w]) == query[w];
+            if (all)
+                vetIds.add(snapshot.vetIds[i]);
+        }
+        return vetIds;
+    }
+
+    /**
+     * Names of the specialties of a vet, in alphabetical order
+     */
+    public List<String> specialtiesOf(int vetId) {
+        Snapshot snapshot = this.snapshot;
+        int i = Arrays.binarySearch(snapshot.vetIds, vetId);
+        List<String> names = new ArrayList<>();
+        if (i < 0)
+            return names;
+        long[] words = snapshot.specialties[i];
+        for (int w = 0; w < words.length; w++)
+            for (long word = words[w]; word != 0; word &= word - 1)
+                names.add(snapshot.names.get(w * Long.SIZE + Long.numberOfTrailingZeros(word)));
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * @return number of vets with at least one specialty
+     */
+    public int size() {
+        return snapshot.vetIds.length;
+    }
+
+    /**
+     * @param bits bit of each specialty, by normalized name
+     * @param names specialty name of each bit, null once removed
+     * @param vetIds ascending
+     * @param specialties bitset of the vet at the same position
+     */
+    private record Snapshot(Map<String, Integer> bits, List<String> names, int[] vetIds, long[][] specialties) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), List.of(), new int[0], new long[0][]);
+
+        Integer bit(String name) {
+            String key = SearchText.normalize(name);
+            return key == null ? null : bits.get(key);
+        }
+
+        /**
+         * @return the bitset of the names, null when one of them is unknown or there are none
+         */
+        long[] mask(Collection<String> names) {
+            long[] mask = new long[0];
+            for (String name : names) {
+                Integer bit = bit(name);
+                if (bit == null)
+                    return null;
+                if (bit / Long.SIZE >= mask.length)
+                    mask = Arrays.copyOf(mask, bit / Long.SIZE + 1);
+                mask[bit / Long.SIZE] |= 1L << bit;
+            }
+            return mask.length == 0 ? null : mask;
+        }
+
+    }
+
+    /**
+     * Mutable copy of a snapshot, the bitsets are shared until replaced
+     */
+    private static class Builder {
+
+        final Map<String, Integer> bits;
+        final List<String> names;
+        final List<Integer> vetIds;
+        final List<long[]> specialties;
+
+        Builder(Snapshot snapshot) {
+            bits = new HashMap<>(snapshot.bits);
+            names = new ArrayList<>(snapshot.names);
+            vetIds = new ArrayList<>(snapshot.vetIds.length + 1);
+            for (int vetId : snapshot.vetIds)
+                vetIds.add(vetId);
+            specialties = new ArrayList<>(Arrays.asList(snapshot.specialties));
+        }
+
+        void put(int vetId, Collection<String> specialtyNames) {
+            long[] words = new long[0];
+            for (String name : specialtyNames) {
+                String key = SearchText.normalize(name);
+                if (key == null || key.isEmpty())
+                    continue;
+                int bit = bits.computeIfAbsent(key, k -> {
+                    names.add(name.trim());
+                    return names.size() - 1;
+                });
+                if (bit / Long.SIZE >= words.length)
+                    words = Arrays.copyOf(words, bit / Long.SIZE + 1);
+                words[bit / Long.SIZE] |= 1L << bit;
+            }
+
+            int i = Collections.binarySearch(vetIds, vetId);
+            if (words.length == 0) {
+                if (i >= 0) {
+                    vetIds.remove(i);
+                    specialties.remove(i);
+                }
+            } else if (i >= 0) {
+                specialties.set(i, words);
+            } else {
+                vetIds.add(-i - 1, vetId);
+                specialties.add(-i - 1, words);
+            }
+        }
+
+        Snapshot build() {
+            return new Snapshot(Map.copyOf(bits), new ArrayList<>(names),
+                    vetIds.stream().mapToInt(Integer::intValue).toArray(), specialties.toArray(new long[0][]));
+        }
+
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.repositories.VisitRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Workload of each vet, its visits from today on, for giving visits without a vet to the
+ * least loaded vet of a specialty.
+ * Each vet has LongAdders: threads counting visits of the same vet add to their own cell,
+ * with no lock and no counter row to update. The least loaded vet is found by summing the
+ * adders of the vets of the specialty, read from the VetSpecialtyIndex, without a query.
+ * A visit is counted as queued when assigned or submitted, moves to stored once committed
+ * and is given back when it is not stored or is deleted. Every reconcile-every the stored
+ * counts are corrected from visits, which also drops the days gone by; queued visits are
+ * not in visits yet and are left out. In between, the counts may drift by the visits
+ * changed outside this service.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class VetWorkload implements SmartInitializingSingleton {
+
+    /**
+     * Reconciles in a row a vet may be left out for changing during the count
+     */
+    static final int MAX_SKIPS = 3;
+
+    private final VisitRepository visitRepository;
+
+    private final VetSpecialtyIndex vetSpecialtyIndex;
+
+    private final Duration reconcileEvery;
+
+    private final Map<Integer, Load> visits = new ConcurrentHashMap<>();
+
+    private final LongAdder assignments = new LongAdder();
+
+    private ScheduledExecutorService reconciler;
+
+    public VetWorkload(VisitRepository visitRepository, VetSpecialtyIndex vetSpecialtyIndex,
+                       @Value("${petclinic.workload.reconcile-every:5m}") Duration reconcileEvery) {
+        this.visitRepository = visitRepository;
+        this.vetSpecialtyIndex = vetSpecialtyIndex;
+        this.reconcileEvery = reconcileEvery;
+    }
+
+    /**
+     * Counts read once every singleton exists, data.sql included, then corrected
+     * every reconcile-every on a thread of its own
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+        if (reconcileEvery.isZero())
+            return;
+        reconciler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "vet-workload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long every = reconcileEvery.toMillis();
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.warn("Vet workload not reconciled, counts kept", e);
+            }
+        }, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null)
+            reconciler.shutdownNow();
+    }
+
+    /**
+     * Choose the least loaded of the vets holding a specialty, and count the visit as queued
+     * at once so that concurrent assignments spread over the vets. Ties go to one of them at
+     * random
+     * @param specialty name, ignoring case and accents
+     * @return the vet id, empty when no vet holds the specialty
+     */
+    public Optional<Integer> assign(String specialty) {
+        List<Integer> vetIds = vetSpecialtyIndex.findAll(List.of(specialty), Integer.MAX_VALUE);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer chosen = null;
+        long least = Long.MAX_VALUE;
+        int ties = 0;
+        for (Integer vetId : vetIds) {
+            long load = load(vetId);
+            if (load < least) {
+                chosen = vetId;
+                least = load;
+                ties = 1;
+            } else if (load == least && random.nextInt(++ties) == 0) {
+                chosen = vetId;
+            }
+        }
+        if (chosen == null)
+            return Optional.empty();
+        queued(chosen);
+        assignments.increment();
+        return Optional.of(chosen);
+    }
+
+    /**
+     * Count a visit of the vet waiting to be stored, whatever its date
+     */
+    public void queued(Integer vetId) {
+        if (vetId != null)
+            counts(vetId).queued.increment();
+    }
+
+    /**
+     * A queued visit was committed: from then on it is a stored one
+     */
+    public void stored(Integer vetId, LocalDate date) {
+        if (vetId == null)
+            return;
+        Load load = counts(vetId);
+        if (date != null && !date.isBefore(LocalDate.now()))
+            load.stored.increment();
+        load.queued.decrement();
+    }
+
+    /**
+     * A queued visit will not be stored
+     */
+    public void dropped(Integer vetId) {
+        if (vetId != null)
+            counts(vetId).queued.decrement();
+    }
+
+    /**
+     * Count committed visits, or with a negative delta visits deleted.
+     * Visits without a vet or before today are not part of any workload
+     */
+    public void add(Integer vetId, LocalDate date, long delta) {
+        if (vetId != null && date != null && !date.isBefore(LocalDate.now()))
+            counts(vetId).stored.add(delta);
+    }
+
+    /**
+     * @return visits of the vet from today on, queued ones included
+     */
+    public long load(int vetId) {
+        Load load = visits.get(vetId);
+        return load == null ? 0 : load.stored.sum() + load.queued.sum();
+    }
+
+    /**
+     * Correct the stored counts from visits, in one grouped count.
+     * A vet whose stored count changed while the query ran is left for the next time:
+     * whether the query saw those visits cannot be told. After MAX_SKIPS of those in a row,
+     * a vet always busy, it is corrected from its count before the query anyway, off by
+     * at most the visits stored while the query ran
+     */
+    public synchronized void reconcile() {
+        long start = System.nanoTime();
+        Map<Integer, Long> counted = storedCounts();
+        Map<Integer, Long> stored = new HashMap<>();
+        for (Object[] row : visitRepository.countVisitsByVetFrom(LocalDate.now()))
+            stored.put((Integer) row[0], (Long) row[1]);
+        Map<Integer, Long> after = storedCounts();
+
+        Set<Integer> vetIds = new HashSet<>(after.keySet());
+        vetIds.addAll(stored.keySet());
+        int corrected = 0;
+        int skipped = 0;
+        for (Integer vetId : vetIds) {
+            long before = counted.getOrDefault(vetId, 0L);
+            Load load = counts(vetId);
+            if (before != after.getOrDefault(vetId, 0L) && ++load.skips < MAX_SKIPS) {
+                skipped++;
+                continue;
+            }
+            load.skips = 0;
+            long error = stored.getOrDefault(vetId, 0L) - before;
+            if (error != 0) {
+                load.stored.add(error);
+                corrected++;
+            }
+        }
+        log.info("Vet workload reconciled: {} vets, {} corrected, {} changing left in {} ms", vetIds.size(),
+                corrected, skipped, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Visits given a vet by assign
+     */
+    public long getAssignments() {
+        return assignments.sum();
+    }
+
+    private Load counts(Integer vetId) {
+        return visits.computeIfAbsent(vetId, id -> new Load());
+    }
+
+    private Map<Integer, Long> storedCounts() {
+        Map<Integer, Long> counts = new HashMap<>();
+        visits.forEach((vetId, load) -> counts.put(vetId, load.stored.sum()));
+        return counts;
+    }
+
+    /**
+     * Visits of a vet, stored from today on and queued for storing
+     */
+    private static final class Load {
+
+        final LongAdder stored = new LongAdder();
+
+        final LongAdder queued = new LongAdder();
+
+        // Reconciles left out in a row, only used by reconcile
+        int skips;
+
+    }
+
+}
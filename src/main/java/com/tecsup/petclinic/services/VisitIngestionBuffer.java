@@ -0,0 +1,238 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.IngestionStatsDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.entities.Visit;
+import com.tecsup.petclinic.exceptions.VisitQueueFullException;
+import com.tecsup.petclinic.mapper.VisitMapper;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coalesces visit submissions into batched inserts.
+ * Submissions are queued, a single writer thread takes up to max-batch of them,
+ * waiting at most max-delay after the first, and stores them in one transaction.
+ * Each submission is acknowledged (its future completed) once that transaction has committed.
+ * The queue holds at most capacity visits, a submission that does not fit is refused at once.
+ * @author jgomezm
+ */
+@Component
+@Slf4j
+public class VisitIngestionBuffer {
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final int capacity;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+
+    private final VisitRepository visitRepository;
+    private final VisitMapper visitMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsFailed = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+
+    // Submissions check accepting and queue under the read lock, accepting is turned off
+    // under the write lock: once off, nothing more gets queued
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public VisitIngestionBuffer(VisitRepository visitRepository, VisitMapper visitMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${petclinic.visits.ingest.capacity:10000}") int capacity,
+                                @Value("${petclinic.visits.ingest.max-batch:500}") int maxBatch,
+                                @Value("${petclinic.visits.ingest.max-delay:10ms}") Duration maxDelay) {
+        this(visitRepository, visitMapper, new TransactionTemplate(transactionManager), capacity, maxBatch, maxDelay);
+    }
+
+    VisitIngestionBuffer(VisitRepository visitRepository, VisitMapper visitMapper,
+                         TransactionTemplate transactionTemplate, int capacity, int maxBatch, Duration maxDelay) {
+        this.visitRepository = visitRepository;
+        this.visitMapper = visitMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "visit-writer");
+        writer.start();
+        log.info("Visit ingestion: capacity {}, batches of up to {} within {} ms",
+                capacity, maxBatch, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+    }
+
+    /**
+     * Stop accepting visits, store the ones already queued. Those the writer has not
+     * stored within 30 seconds fail
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        refuse();
+        running = false;
+        if (writer != null)
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        failQueued(new IllegalStateException("Visit ingestion stopped"));
+    }
+
+    /**
+     * Queue visits, all of them or none
+     * @param visits
+     * @return one future per visit, completed with the stored visit once committed
+     * @throws VisitQueueFullException if the queue has no room for all of them
+     */
+    public List<CompletableFuture<VisitDTO>> submit(List<VisitDTO> visits) throws VisitQueueFullException {
+        acceptingLock.readLock().lock();
+        try {
+            if (!accepting || !permits.tryAcquire(visits.size())) {
+                rowsRejected.add(visits.size());
+                throw new VisitQueueFullException("Visit queue full, retry later");
+            }
+            List<CompletableFuture<VisitDTO>> acks = new ArrayList<>(visits.size());
+            for (VisitDTO visit : visits) {
+                CompletableFuture<VisitDTO> ack = new CompletableFuture<>();
+                queue.add(new Pending(visit, ack));
+                acks.add(ack);
+            }
+            return acks;
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+    }
+
+    public IngestionStatsDTO getStats() {
+        return IngestionStatsDTO.builder()
+                .capacity(capacity)
+                .queued(capacity - permits.availablePermits())
+                .batches(batches.sum())
+                .rowsWritten(rowsWritten.sum())
+                .rowsFailed(rowsFailed.sum())
+                .rowsRejected(rowsRejected.sum())
+                .build();
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() == maxBatch || wait <= 0)
+                        break;
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // Every later poll would throw at once: the visits still queued fail now, the writer ends
+                Thread.currentThread().interrupt();
+                running = false;
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+                failQueued(e);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Visit writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+            } finally {
+                permits.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Stop accepting visits and fail the ones queued, their permits given back
+     */
+    void failQueued(Throwable cause) {
+        refuse();
+        List<Pending> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        if (queued.isEmpty())
+            return;
+        log.warn("Visit writer stopped, {} queued visits not stored", queued.size());
+        queued.forEach(pending -> pending.ack().completeExceptionally(cause));
+        permits.release(queued.size());
+    }
+
+    /**
+     * Turn accepting off once no submission is between its check and its queueing
+     */
+    private void refuse() {
+        acceptingLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Store a batch in one transaction. If it fails, every visit is retried in its
+     * own transaction so that one bad visit only fails its own submission.
+     */
+    private void write(List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Visit> saved = transactionTemplate.execute(status -> visitRepository.saveAll(
+                    batch.stream().map(pending -> visitMapper.mapToEntity(pending.visit())).toList()));
+            for (int i = 0; i < batch.size(); i++)
+                batch.get(i).ack().complete(visitMapper.mapToDto(saved.get(i)));
+            rowsWritten.add(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} visits failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    Visit visit = transactionTemplate.execute(status ->
+                            visitRepository.save(visitMapper.mapToEntity(pending.visit())));
+                    pending.ack().complete(visitMapper.mapToDto(visit));
+                    rowsWritten.increment();
+                } catch (RuntimeException rowError) {
+                    pending.ack().completeExceptionally(rowError);
+                    rowsFailed.increment();
+                }
+            }
+        }
+        batches.increment();
+        log.debug("Stored {} visits in {} us", batch.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    private record Pending(VisitDTO visit, CompletableFuture<VisitDTO> ack) {
+    }
+
+}
@@ -1,2 +1,81 @@
-package com.tecsup.petclinic.services;public class VisitService {
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.VisitBulkResultDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitQueueFullException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service interface for Visit.
+ * New visits go through the ingestion queue and are stored in batches.
+ * @author jgomezm
+ */
+public interface VisitService {
+
+    /**
+     * Submit a new visit
+     * @param visitDTO
+     * @return completed with the stored visit once it is committed
+     * @throws VisitQueueFullException if the ingestion queue is full
+     * @throws IllegalArgumentException if the visit is invalid
+     */
+    CompletableFuture<VisitDTO> submit(VisitDTO visitDTO) throws VisitQueueFullException;
+
+    /**
+     * Submit new visits, queued all together or not at all
+     * @param visitDTOs
+     * @return completed once every visit is committed or rejected
+     * @throws VisitQueueFullException if the ingestion queue has no room for all of them
+     * @throws IllegalArgumentException if a visit is invalid
+     */
+    CompletableFuture<VisitBulkResultDTO> submitAll(List<VisitDTO> visitDTOs) throws VisitQueueFullException;
+
+    /**
+     * Update an existing visit
+     * @param visitDTO
+     * @return
+     */
+    VisitDTO update(VisitDTO visitDTO);
+
+    /**
+     * Delete a visit by id
+     * @param id
+     * @throws VisitNotFoundException
+     */
+    void delete(Long id) throws VisitNotFoundException;
+
+    /**
+     * Find visit by id
+     * @param id
+     * @return
+     * @throws VisitNotFoundException
+     */
+    VisitDTO findById(Long id) throws VisitNotFoundException;
+
+    /**
+     * Find a keyset page of visits ordered by id
+     * @param after id of the last row of the previous page, 0 for the first page
+     * @param limit
+     * @return
+     */
+    PageDTO<VisitDTO> findPage(Long after, int limit);
+
+    /**
+     * Find a keyset page of the visits of a pet, newest first
+     * @param petId
+     * @param beforeDate visitDate of the last row of the previous page, null for the first page
+     * @param beforeId id of the last row of the previous page
+     * @param limit
+     * @return
+     * @throws PetNotFoundException if the pet does not exist
+     */
+    PageDTO<VisitDTO> findHistory(Integer petId, LocalDate beforeDate, Long beforeId, int limit)
+            throws PetNotFoundException;
+
 }
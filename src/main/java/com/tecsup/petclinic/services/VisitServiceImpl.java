@@ -1,2 +1,263 @@
-package com.tecsup.petclinic.services;public class VisitServiceImpl {
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.VisitBulkResultDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.dtos.VisitErrorDTO;
+import com.tecsup.petclinic.entities.Visit;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitQueueFullException;
+import com.tecsup.petclinic.mapper.VisitMapper;
+import com.tecsup.petclinic.repositories.PetRepository;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Service implementation for Visit.
+ * Visits with a time are appointments, booked through AppointmentService; once an update
+ * or delete of one commits, the days it was and is on are read again by the SlotCalendar.
+ * A new visit without a vet but with a specialty goes to the least loaded vet of the
+ * specialty, and every visit with a vet is counted in the VetWorkload until it is not
+ * stored or is deleted.
+ * @author jgomezm
+ */
+@Service
+@Slf4j
+public class VisitServiceImpl implements VisitService {
+
+    static final int MAX_DESCRIPTION = 255;
+
+    VisitRepository visitRepository;
+    PetRepository petRepository;
+    VisitMapper visitMapper;
+    VisitIngestionBuffer ingestionBuffer;
+    SlotCalendar slotCalendar;
+    VetWorkload vetWorkload;
+    OpeningHoursIndex openingHoursIndex;
+
+    public VisitServiceImpl(VisitRepository visitRepository, PetRepository petRepository,
+                            VisitMapper visitMapper, VisitIngestionBuffer ingestionBuffer, SlotCalendar slotCalendar,
+                            VetWorkload vetWorkload, OpeningHoursIndex openingHoursIndex) {
+        this.visitRepository = visitRepository;
+        this.petRepository = petRepository;
+        this.visitMapper = visitMapper;
+        this.ingestionBuffer = ingestionBuffer;
+        this.slotCalendar = slotCalendar;
+        this.vetWorkload = vetWorkload;
+        this.openingHoursIndex = openingHoursIndex;
+    }
+
+    @Override
+    public CompletableFuture<VisitDTO> submit(VisitDTO visitDTO) throws VisitQueueFullException {
+        validateSubmitted(visitDTO);
+        return enqueue(List.of(newVisit(visitDTO))).get(0);
+    }
+
+    @Override
+    public CompletableFuture<VisitBulkResultDTO> submitAll(List<VisitDTO> visitDTOs) throws VisitQueueFullException {
+        // All valid before any of them is given a vet
+        for (VisitDTO visitDTO : visitDTOs)
+            validateSubmitted(visitDTO);
+        List<VisitDTO> visits = new ArrayList<>(visitDTOs.size());
+        try {
+            for (VisitDTO visitDTO : visitDTOs)
+                visits.add(newVisit(visitDTO));
+        } catch (IllegalArgumentException e) {
+            visits.forEach(visit -> vetWorkload.dropped(visit.getVetId()));
+            throw e;
+        }
+
+        List<CompletableFuture<VisitDTO>> acks = enqueue(visits);
+
+        return CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> {
+                    VisitBulkResultDTO result = new VisitBulkResultDTO(new ArrayList<>(), new ArrayList<>());
+                    for (int i = 0; i < acks.size(); i++) {
+                        CompletableFuture<VisitDTO> ack = acks.get(i);
+                        if (ack.isCompletedExceptionally())
+                            result.getErrors().add(new VisitErrorDTO(i, failureMessage(ack)));
+                        else
+                            result.getVisits().add(ack.join());
+                    }
+                    return result;
+                });
+    }
+
+    @Override
+    @Transactional
+    public VisitDTO update(VisitDTO visitDTO) {
+        validate(visitDTO);
+        // Loaded first for the day it was on, the merge then finds it in the persistence context
+        Optional<Visit> stored = visitDTO.getId() == null ? Optional.empty() : visitRepository.findById(visitDTO.getId());
+        Integer oldVetId = stored.map(Visit::getVetId).orElse(null);
+        LocalDate oldDate = stored.map(Visit::getVisitDate).orElse(null);
+        boolean oldTime = stored.filter(visit -> visit.getVisitTime() != null).isPresent();
+
+        Visit updatedVisit = visitRepository.save(visitMapper.mapToEntity(visitDTO));
+        Integer newVetId = updatedVisit.getVetId();
+        LocalDate newDate = updatedVisit.getVisitDate();
+        boolean newTime = updatedVisit.getVisitTime() != null;
+        AfterCommit.run(() -> {
+            if (oldTime)
+                slotCalendar.invalidate(oldVetId, oldDate);
+            if (newTime)
+                slotCalendar.invalidate(newVetId, newDate);
+            vetWorkload.add(oldVetId, oldDate, -1);
+            vetWorkload.add(newVetId, newDate, 1);
+        });
+        return visitMapper.mapToDto(updatedVisit);
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) throws VisitNotFoundException {
+        Optional<Visit> visit = visitRepository.findById(id);
+        if (!visit.isPresent())
+            throw new VisitNotFoundException("Record not found...!");
+        visitRepository.delete(visit.get());
+        Integer vetId = visit.get().getVetId();
+        LocalDate date = visit.get().getVisitDate();
+        boolean appointment = visit.get().getVisitTime() != null;
+        AfterCommit.run(() -> {
+            if (appointment)
+                slotCalendar.invalidate(vetId, date);
+            vetWorkload.add(vetId, date, -1);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VisitDTO findById(Long id) throws VisitNotFoundException {
+        Optional<Visit> visit = visitRepository.findById(id);
+        if (!visit.isPresent())
+            throw new VisitNotFoundException("Record not found...!");
+        return visitMapper.mapToDto(visit.get());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<VisitDTO> findPage(Long after, int limit) {
+        return PageDTO.of(visitRepository.findPageAfter(after, Limit.of(limit + 1)), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<VisitDTO> findHistory(Integer petId, LocalDate beforeDate, Long beforeId, int limit)
+            throws PetNotFoundException {
+        List<VisitDTO> visits = beforeDate == null
+                ? visitRepository.findHistory(petId, Limit.of(limit + 1))
+                : visitRepository.findHistoryBefore(petId, beforeDate, beforeId, Limit.of(limit + 1));
+        // Only an empty page needs to tell an unknown pet from a pet without visits
+        if (visits.isEmpty() && !petRepository.existsById(petId))
+            throw new PetNotFoundException("Record not found...!");
+        return PageDTO.of(visits, limit);
+    }
+
+    /**
+     * Copy without the id, new visits always get a generated one.
+     * Without a vet, the least loaded vet of its specialty when it has one; counted as
+     * queued in the workload of its vet from here on
+     */
+    private VisitDTO newVisit(VisitDTO visitDTO) {
+        Integer vetId = visitDTO.getVetId();
+        if (vetId == null && visitDTO.getSpecialtyId() != null) {
+            String specialty = openingHoursIndex.find(visitDTO.getSpecialtyId())
+                    .orElseThrow(() -> new IllegalArgumentException("specialtyId does not reference a specialty"))
+                    .getName();
+            vetId = vetWorkload.assign(specialty)
+                    .orElseThrow(() -> new IllegalArgumentException("no vet holds specialty " + specialty));
+        } else {
+            vetWorkload.queued(vetId);
+        }
+        return new VisitDTO(null, visitDTO.getPetId(), visitDTO.getVisitDate(), visitDTO.getDescription(),
+                vetId, visitDTO.getCost());
+    }
+
+    /**
+     * Queue the visits. Each one moves from queued to stored in the workload of its vet once
+     * committed, or is dropped from it; the futures returned complete after that
+     */
+    private List<CompletableFuture<VisitDTO>> enqueue(List<VisitDTO> visits) throws VisitQueueFullException {
+        List<CompletableFuture<VisitDTO>> acks;
+        try {
+            acks = ingestionBuffer.submit(visits);
+        } catch (VisitQueueFullException e) {
+            visits.forEach(visit -> vetWorkload.dropped(visit.getVetId()));
+            throw e;
+        }
+        List<CompletableFuture<VisitDTO>> counted = new ArrayList<>(acks.size());
+        for (int i = 0; i < acks.size(); i++) {
+            VisitDTO visit = visits.get(i);
+            counted.add(acks.get(i).whenComplete((stored, error) -> {
+                if (error == null)
+                    vetWorkload.stored(visit.getVetId(), LocalDate.parse(visit.getVisitDate()));
+                else
+                    vetWorkload.dropped(visit.getVetId());
+            }));
+        }
+        return counted;
+    }
+
+    /**
+     * Visits queued for ingestion have no time, appointments are booked one by one
+     */
+    private static void validateSubmitted(VisitDTO visitDTO) {
+        validate(visitDTO);
+        if (visitDTO.getVisitTime() != null)
+            throw new IllegalArgumentException("visitTime is set by booking an appointment");
+    }
+
+    static void validate(VisitDTO visitDTO) {
+        if (visitDTO == null)
+            throw new IllegalArgumentException("visit is required");
+        if (visitDTO.getPetId() == null || visitDTO.getPetId() < 1)
+            throw new IllegalArgumentException("petId is required");
+        if (visitDTO.getVisitDate() == null)
+            throw new IllegalArgumentException("visitDate is required");
+        try {
+            LocalDate.parse(visitDTO.getVisitDate());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("visitDate must be yyyy-MM-dd");
+        }
+        if (visitDTO.getDescription() != null && visitDTO.getDescription().length() > MAX_DESCRIPTION)
+            throw new IllegalArgumentException("description is longer than " + MAX_DESCRIPTION + " characters");
+        if (visitDTO.getCost() != null && visitDTO.getCost().compareTo(BigDecimal.ZERO) < 0)
+            throw new IllegalArgumentException("cost must not be negative");
+    }
+
+    private static String failureMessage(CompletableFuture<?> ack) {
+        try {
+            ack.join();
+            return null;
+        } catch (CompletionException e) {
+            return failureMessage(e.getCause());
+        }
+    }
+
+    /**
+     * Message for the caller of a visit that could not be stored,
+     * the database error itself is only logged
+     * @param error
+     * @return
+     */
+    static String failureMessage(Throwable error) {
+        if (error instanceof DataIntegrityViolationException)
+            return "petId or vetId does not reference an existing row";
+        return "visit not stored";
+    }
+
 }
@@ -0,0 +1,223 @@
+package com.tecsup.petclinic.sql;
+
+import com.tecsup.petclinic.dtos.SlowQueryDTO;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the most recent SQL statements slower than the threshold in a bounded ring buffer.
+ * Only the time of the execute call is measured, reading the rows of a result is not.
+ * The endpoint and service method are looked up once a statement is known to be slow,
+ * so a fast statement costs one comparison. The plan of a slow select is read with
+ * EXPLAIN on a background thread, on its own connection, and added to the entry.
+ * @author jgomezm
+ */
+@Slf4j
+public class SlowQueryLog implements QueryExecutionListener {
+
+    static final String SERVICES_PACKAGE = "com.tecsup.petclinic.services.";
+
+    private static final int MAX_PARAMETER_CHARS = 100;
+
+    private static final int PENDING_EXPLAINS = 16;
+
+    private final long thresholdMillis;
+    private final int capacity;
+    private final LongAdder slow = new LongAdder();
+    private final Deque<SlowQueryDTO> recent;
+    private final ThreadPoolExecutor explainer;
+    private volatile DataSource explainDataSource;
+
+    public SlowQueryLog(Duration threshold, int capacity, boolean explain) {
+        this.thresholdMillis = threshold.toMillis();
+        this.capacity = capacity;
+        this.recent = new ArrayDeque<>(capacity);
+        this.explainer = explain ? explainer() : null;
+        log.info("Logging SQL statements slower than {} ms, keeping the last {}", thresholdMillis, capacity);
+    }
+
+    private static ThreadPoolExecutor explainer() {
+        // Plans are a diagnostic: when the queue is full they are dropped, never waited for
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(PENDING_EXPLAINS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * DataSource the EXPLAIN statements run on, the one before the statement proxy
+     * so they are neither timed nor counted
+     * @param dataSource
+     */
+    public void setExplainDataSource(DataSource dataSource) {
+        this.explainDataSource = dataSource;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (explainer != null)
+            explainer.shutdownNow();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis)
+            return;
+
+        String endpoint = currentEndpoint();
+        String serviceMethod = currentServiceMethod();
+        for (QueryInfo queryInfo : queryInfoList) {
+            slow.increment();
+            // Copied: the proxy clears the parameters of a statement when it is reused
+            List<ParameterSetOperation> parameters = queryInfo.getParametersList().isEmpty()
+                    ? List.of() : List.copyOf(queryInfo.getParametersList().get(0));
+            SlowQueryDTO entry = SlowQueryDTO.builder()
+                    .startTime(Instant.now().minusMillis(execInfo.getElapsedTime()).toString())
+                    .elapsedMillis(execInfo.getElapsedTime())
+                    .endpoint(endpoint)
+                    .serviceMethod(serviceMethod)
+                    .thread(Thread.currentThread().getName())
+                    .sql(queryInfo.getQuery())
+                    .parameters(format(parameters))
+                    .batchSize(execInfo.isBatch() ? execInfo.getBatchSize() : 0)
+                    .build();
+
+            synchronized (recent) {
+                if (recent.size() == capacity)
+                    recent.removeFirst();
+                recent.addLast(entry);
+            }
+            log.warn("Slow SQL, {} ms in {} {}: {} {}", entry.getElapsedMillis(), endpoint, serviceMethod,
+                    entry.getSql(), entry.getParameters());
+
+            if (explainer != null && queryInfo.getQuery().trim().regionMatches(true, 0, "select", 0, 6))
+                explainer.execute(() -> explain(entry, parameters));
+        }
+    }
+
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes))
+            return null;
+        HttpServletRequest request = servletAttributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    /**
+     * The innermost service frame of the current stack, proxies excluded
+     */
+    private static String currentServiceMethod() {
+        Optional<String> method = StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICES_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(SERVICES_PACKAGE.length())
+                        + "." + frame.getMethodName()));
+        return method.orElse(null);
+    }
+
+    private static List<String> format(List<ParameterSetOperation> parameters) {
+        List<String> values = new ArrayList<>(parameters.size());
+        for (ParameterSetOperation parameter : parameters) {
+            Object[] args = parameter.getArgs();
+            String value = ParameterSetOperation.isSetNullParameterOperation(parameter) || args.length < 2
+                    ? "null" : String.valueOf(args[1]);
+            if (args.length > 1 && args[1] instanceof byte[] bytes)
+                value = "<" + bytes.length + " bytes>";
+            values.add(value.length() > MAX_PARAMETER_CHARS ? value.substring(0, MAX_PARAMETER_CHARS) + "..." : value);
+        }
+        return values;
+    }
+
+    private void explain(SlowQueryDTO entry, List<ParameterSetOperation> parameters) {
+        DataSource dataSource = explainDataSource;
+        if (dataSource == null)
+            return;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + entry.getSql())) {
+            for (ParameterSetOperation parameter : parameters) {
+                Object[] args = parameter.getArgs();
+                if (!(args[0] instanceof Integer index))
+                    continue;
+                if (ParameterSetOperation.isSetNullParameterOperation(parameter))
+                    statement.setNull(index, (Integer) args[1]);
+                else
+                    statement.setObject(index, args[1]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    if (!plan.isEmpty())
+                        plan.append('\n');
+                    for (int i = 1; i <= columns; i++)
+                        plan.append(i > 1 ? " | " : "").append(rs.getString(i));
+                }
+            }
+            synchronized (recent) {
+                entry.setPlan(plan.toString());
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Unable to explain {}: {}", entry.getSql(), e.getMessage());
+        }
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public long getSlowCount() {
+        return slow.sum();
+    }
+
+    /**
+     * Copies of the entries, oldest first
+     */
+    public List<SlowQueryDTO> getRecent() {
+        synchronized (recent) {
+            return recent.stream().map(entry -> entry.toBuilder().build()).toList();
+        }
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.tecsup.petclinic.sql;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * SQL instrumentation: the DataSource is wrapped by a datasource-proxy reporting to
+ * the SlowQueryLog (on unless petclinic.sql.slow-queries.enabled is false), to the
+ * SqlStatementMonitor (off unless petclinic.sql.monitor.enabled is true), for which
+ * every HTTP request and every call to a service bean opens a scope, and to the
+ * StatementCounter of the tracing spans when there is one.
+ * @author jgomezm
+ */
+@Configuration(proxyBeanMethods = false)
+public class SqlMonitorConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(prefix = "petclinic.sql.monitor", name = "enabled", havingValue = "true")
+    public static SqlStatementMonitor sqlStatementMonitor(
+            @Value("${petclinic.sql.monitor.max-per-request:10}") int maxPerRequest,
+            @Value("${petclinic.sql.monitor.n-plus-one-threshold:3}") int nPlusOneThreshold) {
+        return new SqlStatementMonitor(maxPerRequest, nPlusOneThreshold);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "petclinic.sql.slow-queries", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public static SlowQueryLog slowQueryLog(
+            @Value("${petclinic.sql.slow-queries.threshold:100ms}") Duration threshold,
+            @Value("${petclinic.sql.slow-queries.capacity:100}") int capacity,
+            @Value("${petclinic.sql.slow-queries.explain:true}") boolean explain) {
+        return new SlowQueryLog(threshold, capacity, explain);
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> statementMonitor,
+                                                               ObjectProvider<SlowQueryLog> slowQueryLog,
+                                                               ObjectProvider<StatementCounter> statementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource))
+                    return bean;
+                SqlStatementMonitor monitor = statementMonitor.getIfAvailable();
+                SlowQueryLog slowQueries = slowQueryLog.getIfAvailable();
+                StatementCounter counter = statementCounter.getIfAvailable();
+                if (monitor == null && slowQueries == null && counter == null)
+                    return bean;
+
+                ProxyDataSourceBuilder proxy = ProxyDataSourceBuilder.create(dataSource).name(beanName);
+                if (monitor != null)
+                    proxy.listener(monitor);
+                if (slowQueries != null) {
+                    slowQueries.setExplainDataSource(dataSource);
+                    proxy.listener(slowQueries);
+                }
+                if (counter != null)
+                    proxy.listener(counter);
+                return proxy.build();
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "petclinic.sql.monitor", name = "enabled", havingValue = "true")
+    public StatementCountingFilter statementCountingFilter(SqlStatementMonitor monitor) {
+        return new StatementCountingFilter(monitor);
+    }
+
+    /**
+     * Runs outside the cache and transaction advice, so statements flushed at commit
+     * count for the call and cache hits count none
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(prefix = "petclinic.sql.monitor", name = "enabled", havingValue = "true")
+    public static Advisor sqlMonitorServiceAdvisor(SqlStatementMonitor monitor) {
+        MethodInterceptor interceptor = invocation -> {
+            String name = ClassUtils.getUserClass(invocation.getThis().getClass()).getSimpleName()
+                    + "." + invocation.getMethod().getName();
+            try (SqlStatementMonitor.Scope scope = monitor.openCall(name)) {
+                return invocation.proceed();
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true), interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return advisor;
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.tecsup.petclinic.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements run on the current thread per HTTP request and per
+ * service call. A request running more statements than its budget, or a scope
+ * running the same select n-plus-one-threshold times or more (one query per row
+ * of a previous result: the N+1 pattern), is logged as a warning.
+ * Statements run by other threads (visit writer, async exports) are not counted.
+ * @author jgomezm
+ */
+@Slf4j
+public class SqlStatementMonitor implements QueryExecutionListener {
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final int maxPerRequest;
+    private final int nPlusOneThreshold;
+    private final LongAdder flagged = new LongAdder();
+
+    public SqlStatementMonitor(int maxPerRequest, int nPlusOneThreshold) {
+        this.maxPerRequest = maxPerRequest;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        log.info("Counting SQL statements, budget {} per request, N+1 flagged at {} identical selects",
+                maxPerRequest, nPlusOneThreshold);
+    }
+
+    /**
+     * Open the scope of an HTTP request, bounded by max-per-request statements
+     * @param name
+     * @return the scope, to be closed when the request ends
+     */
+    public Scope openRequest(String name) {
+        return open(name, maxPerRequest);
+    }
+
+    /**
+     * Open the scope of a service call, its statements also count for the enclosing scopes
+     * @param name
+     * @return the scope, to be closed when the call returns
+     */
+    public Scope openCall(String name) {
+        return open(name, 0);
+    }
+
+    private Scope open(String name, int budget) {
+        Scope scope = new Scope(name, budget, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * Scopes flagged for exceeding their budget or for repeating a select
+     */
+    public long getFlagged() {
+        return flagged.sum();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Scope scope = current.get();
+        if (scope == null)
+            return;
+        for (QueryInfo queryInfo : queryInfoList) {
+            String sql = queryInfo.getQuery().trim();
+            boolean select = sql.regionMatches(true, 0, "select", 0, 6);
+            for (Scope s = scope; s != null; s = s.parent)
+                s.record(sql, select);
+        }
+    }
+
+    private void report(Scope scope) {
+        boolean overBudget = scope.budget > 0 && scope.statements > scope.budget;
+        if (overBudget) {
+            flagged.increment();
+            log.warn("{} ran {} SQL statements, over the budget of {}", scope.name, scope.statements, scope.budget);
+        }
+
+        Map.Entry<String, Integer> repeated = scope.mostRepeatedSelect();
+        if (!scope.repeatReported && repeated != null && repeated.getValue() >= nPlusOneThreshold) {
+            flagged.increment();
+            log.warn("Possible N+1 in {}: the same select ran {} times: {}",
+                    scope.name, repeated.getValue(), repeated.getKey());
+            // Reported once, where it happens, not again by every enclosing scope
+            for (Scope s = scope.parent; s != null; s = s.parent)
+                s.repeatReported = true;
+        } else if (!overBudget) {
+            log.debug("{} ran {} SQL statements", scope.name, scope.statements);
+        }
+    }
+
+    /**
+     * Statements counted between open and close on one thread
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final int budget;
+        private final Scope parent;
+        private final Map<String, Integer> selects = new HashMap<>();
+        private int statements;
+        private boolean repeatReported;
+
+        private Scope(String name, int budget, Scope parent) {
+            this.name = name;
+            this.budget = budget;
+            this.parent = parent;
+        }
+
+        private void record(String sql, boolean select) {
+            statements++;
+            if (select)
+                selects.merge(sql.toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+
+        private Map.Entry<String, Integer> mostRepeatedSelect() {
+            return selects.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null)
+                current.remove();
+            else
+                current.set(parent);
+            report(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.tecsup.petclinic.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Running count of the JDBC round-trips of each thread. A caller reads it before
+ * and after a piece of work, the difference is the statements that work ran.
+ * @author jgomezm
+ */
+public class StatementCounter implements QueryExecutionListener {
+
+    private final ThreadLocal<long[]> executed = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        executed.get()[0]++;
+    }
+
+    /**
+     * Statements executed by the current thread so far
+     */
+    public long current() {
+        return executed.get()[0];
+    }
+
+}
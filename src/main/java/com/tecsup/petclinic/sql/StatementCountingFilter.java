@@ -0,0 +1,31 @@
+package com.tecsup.petclinic.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a SqlStatementMonitor scope around every HTTP request
+ * @author jgomezm
+ */
+public class StatementCountingFilter extends OncePerRequestFilter {
+
+    private final SqlStatementMonitor monitor;
+
+    public StatementCountingFilter(SqlStatementMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        try (SqlStatementMonitor.Scope scope = monitor.openRequest(request.getMethod() + " " + request.getRequestURI())) {
+            chain.doFilter(request, response);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.tecsup.petclinic.threads;
+
+import com.tecsup.petclinic.dtos.PinnedEventDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads pinned to their carrier (blocking inside synchronized
+ * or native code, typically in a JDBC driver) for longer than the threshold.
+ * Listens to the jdk.VirtualThreadPinned JFR event in-process; on a JVM without
+ * virtual threads it does nothing.
+ * @author jgomezm
+ */
+@Component
+@ConditionalOnProperty(prefix = "petclinic.concurrency", name = "pinning-monitor", havingValue = "true")
+@Slf4j
+public class PinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int RECENT_EVENTS = 50;
+
+    private static final int STACK_DEPTH = 8;
+
+    private final Duration threshold;
+    private final LongAdder pinned = new LongAdder();
+    private final Deque<PinnedEventDTO> recent = new ArrayDeque<>(RECENT_EVENTS);
+    private RecordingStream stream;
+
+    public PinningMonitor(@Value("${petclinic.concurrency.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.info("Virtual threads need Java 21, pinning monitor disabled on Java {}", Runtime.version().feature());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null)
+            stream.close();
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinned.increment();
+        PinnedEventDTO pinnedEvent = PinnedEventDTO.builder()
+                .startTime(event.getStartTime().toString())
+                .durationMillis(event.getDuration().toMillis())
+                .thread(event.getThread() == null ? null : event.getThread().getJavaName())
+                .stackTrace(frames(event.getStackTrace()))
+                .build();
+
+        synchronized (recent) {
+            if (recent.size() == RECENT_EVENTS)
+                recent.removeFirst();
+            recent.addLast(pinnedEvent);
+        }
+        log.warn("Virtual thread pinned for {} ms at {}", pinnedEvent.getDurationMillis(), pinnedEvent.getStackTrace());
+    }
+
+    private static List<String> frames(RecordedStackTrace stackTrace) {
+        List<String> frames = new ArrayList<>();
+        if (stackTrace == null)
+            return frames;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frames.size() == STACK_DEPTH)
+                break;
+            frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                    + ":" + frame.getLineNumber());
+        }
+        return frames;
+    }
+
+    public boolean isActive() {
+        return stream != null;
+    }
+
+    public long getPinnedCount() {
+        return pinned.sum();
+    }
+
+    public List<PinnedEventDTO> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+}
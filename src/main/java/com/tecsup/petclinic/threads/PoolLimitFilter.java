@@ -0,0 +1,110 @@
+package com.tecsup.petclinic.threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the requests in flight by the size of the JDBC connection pool.
+ * With virtual threads nothing else limits concurrency: thousands of requests
+ * would queue inside Hikari and time out after connectionTimeout. Here a request
+ * waits at most acquire-timeout for a permit and is otherwise answered 503 at once.
+ * /admin endpoints are never limited.
+ * @author jgomezm
+ */
+@Component
+@ConditionalOnProperty(prefix = "petclinic.concurrency", name = "limit-enabled", havingValue = "true")
+@Slf4j
+public class PoolLimitFilter extends OncePerRequestFilter {
+
+    static final int DEFAULT_POOL_SIZE = 10;
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long acquireTimeoutMillis;
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public PoolLimitFilter(DataSource dataSource,
+                           @Value("${petclinic.concurrency.max-in-flight:0}") int maxInFlight,
+                           @Value("${petclinic.concurrency.acquire-timeout-ms:500}") long acquireTimeoutMillis) {
+        this(maxInFlight > 0 ? maxInFlight : poolSize(dataSource), acquireTimeoutMillis);
+    }
+
+    PoolLimitFilter(int maxInFlight, long acquireTimeoutMillis) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        log.info("Requests in flight limited to {}, waiting at most {} ms", maxInFlight, acquireTimeoutMillis);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class))
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            log.warn("Unable to read the connection pool size: {}", e.getMessage());
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Connection pool saturated");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.tecsup.petclinic.tracing;
+
+import com.tecsup.petclinic.dtos.SpanDTO;
+import com.tecsup.petclinic.dtos.TraceDTO;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Span exporter keeping the most recent spans in a bounded ring buffer, for
+ * GET /admin/traces where no collector can be reached. Spring Boot exports to
+ * it like to any other exporter bean (OTLP when management.otlp.tracing.endpoint
+ * is set), in batches from its own thread.
+ * @author jgomezm
+ */
+@Slf4j
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final LongAdder exported = new LongAdder();
+    private final Deque<SpanDTO> recent;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.recent = new ArrayDeque<>(capacity);
+        log.info("Keeping the last {} spans in memory", capacity);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        List<SpanDTO> converted = new ArrayList<>(spans.size());
+        for (SpanData span : spans)
+            converted.add(convert(span));
+
+        synchronized (recent) {
+            for (SpanDTO span : converted) {
+                if (recent.size() == capacity)
+                    recent.removeFirst();
+                recent.addLast(span);
+            }
+        }
+        exported.add(converted.size());
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static SpanDTO convert(SpanData span) {
+        Map<String, String> attributes = new TreeMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return SpanDTO.builder()
+                .traceId(span.getTraceId())
+                .spanId(span.getSpanId())
+                .parentSpanId(SpanId.isValid(span.getParentSpanId()) ? span.getParentSpanId() : null)
+                .name(span.getName())
+                .kind(span.getKind().name())
+                .startTime(Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString())
+                .durationMicros(TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()))
+                .status(span.getStatus().getStatusCode().name())
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    public long getExportedCount() {
+        return exported.sum();
+    }
+
+    /**
+     * The traces with spans in the buffer, most recently exported first
+     * @param limit
+     */
+    public List<TraceDTO> findTraces(int limit) {
+        Map<String, List<SpanDTO>> traces = new LinkedHashMap<>();
+        synchronized (recent) {
+            Iterator<SpanDTO> newestFirst = recent.descendingIterator();
+            while (newestFirst.hasNext()) {
+                SpanDTO span = newestFirst.next();
+                List<SpanDTO> spans = traces.get(span.getTraceId());
+                if (spans == null) {
+                    if (traces.size() == limit)
+                        continue;
+                    traces.put(span.getTraceId(), spans = new ArrayList<>());
+                }
+                spans.add(span);
+            }
+        }
+        return traces.entrySet().stream().map(trace -> trace(trace.getKey(), trace.getValue())).toList();
+    }
+
+    public Optional<TraceDTO> findTrace(String traceId) {
+        List<SpanDTO> spans = new ArrayList<>();
+        synchronized (recent) {
+            for (SpanDTO span : recent)
+                if (span.getTraceId().equals(traceId))
+                    spans.add(span);
+        }
+        return spans.isEmpty() ? Optional.empty() : Optional.of(trace(traceId, spans));
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    /**
+     * Spans by start time; the root is the span without a parent, else the earliest
+     */
+    private static TraceDTO trace(String traceId, List<SpanDTO> spans) {
+        List<SpanDTO> sorted = new ArrayList<>(spans);
+        sorted.sort(Comparator.comparing(span -> Instant.parse(span.getStartTime())));
+        SpanDTO root = sorted.stream().filter(span -> span.getParentSpanId() == null).findFirst().orElse(sorted.get(0));
+        return TraceDTO.builder()
+                .traceId(traceId)
+                .name(root.getName())
+                .startTime(root.getStartTime())
+                .durationMicros(root.getDurationMicros())
+                .spans(sorted)
+                .build();
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.tecsup.petclinic.tracing;
+
+import com.tecsup.petclinic.sql.StatementCounter;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Opens a child span, named Type.method, around a call to a controller, service
+ * or repository, tagged with the SQL statements the call ran. Only a call made
+ * within a sampled trace (an HTTP request) gets a span, anything else just proceeds.
+ * @author jgomezm
+ */
+public class LayerSpanInterceptor implements MethodInterceptor {
+
+    static final String STATEMENTS_TAG = "sql.statements";
+
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final StatementCounter counter;
+    private final String type;
+    private volatile Tracer tracer;
+
+    /**
+     * @param tracer resolved at the first call, the advisors are created before it
+     * @param counter
+     * @param type name of the spans, null for the simple name of the target class
+     */
+    public LayerSpanInterceptor(ObjectProvider<Tracer> tracer, StatementCounter counter, String type) {
+        this.tracerProvider = tracer;
+        this.counter = counter;
+        this.type = type;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer tracer = tracer();
+        Span parent = tracer.currentSpan();
+        if (parent == null || parent.isNoop())
+            return invocation.proceed();
+
+        String type = this.type != null ? this.type
+                : ClassUtils.getUserClass(invocation.getThis().getClass()).getSimpleName();
+        Span span = tracer.nextSpan()
+                .name(type + "." + invocation.getMethod().getName())
+                .tag("code.namespace", type)
+                .tag("code.function", invocation.getMethod().getName())
+                .start();
+        long before = counter.current();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.tag(STATEMENTS_TAG, counter.current() - before);
+            span.end();
+        }
+    }
+
+    private Tracer tracer() {
+        Tracer tracer = this.tracer;
+        if (tracer == null)
+            this.tracer = tracer = tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+        return tracer;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.tecsup.petclinic.tracing;
+
+import com.tecsup.petclinic.sql.StatementCounter;
+import io.micrometer.tracing.Tracer;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Tracing below the HTTP server span of Spring Boot: a span for every controller,
+ * service and repository call with its SQL statement count (off when
+ * petclinic.tracing.layer-spans is false), exported to the in-memory exporter
+ * (off when petclinic.tracing.in-memory.enabled is false) and to OTLP when
+ * management.otlp.tracing.endpoint is set. management.tracing.sampling.probability
+ * decides which requests are traced.
+ * @author jgomezm
+ */
+@Configuration(proxyBeanMethods = false)
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "petclinic.tracing.in-memory", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${petclinic.tracing.in-memory.capacity:2000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "petclinic.tracing", name = "layer-spans", havingValue = "true", matchIfMissing = true)
+    static class LayerSpans {
+
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static Advisor controllerSpanAdvisor(ObjectProvider<Tracer> tracer, StatementCounter counter) {
+            return new DefaultPointcutAdvisor(
+                    new AnnotationMatchingPointcut(RestController.class, true),
+                    new LayerSpanInterceptor(tracer, counter, null));
+        }
+
+        /**
+         * Outermost advice of a service, so its span covers the cache lookup,
+         * the transaction and the statements flushed at commit
+         */
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static Advisor serviceSpanAdvisor(ObjectProvider<Tracer> tracer, StatementCounter counter) {
+            DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                    new AnnotationMatchingPointcut(Service.class, true),
+                    new LayerSpanInterceptor(tracer, counter, null));
+            advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 5);
+            return advisor;
+        }
+
+        /**
+         * Adds a LayerSpanInterceptor named after the repository interface to the
+         * proxy of every Spring Data repository
+         */
+        @Bean
+        public static BeanPostProcessor repositorySpanPostProcessor(ObjectProvider<Tracer> tracer,
+                                                                    ObjectProvider<StatementCounter> counter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean)
+                        factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                                (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new LayerSpanInterceptor(
+                                        tracer, counter.getObject(),
+                                        repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                    return bean;
+                }
+            };
+        }
+
+    }
+
+}
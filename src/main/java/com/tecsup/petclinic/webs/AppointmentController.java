@@ -0,0 +1,71 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.FreeSlotsDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.SlotTakenException;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
+import com.tecsup.petclinic.exceptions.VetNotFoundException;
+import com.tecsup.petclinic.services.AppointmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for appointments, visits booked on a slot of a vet
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class AppointmentController {
+
+    private AppointmentService appointmentService;
+
+    public AppointmentController(AppointmentService appointmentService) {
+        this.appointmentService = appointmentService;
+    }
+
+    /**
+     * Book an appointment
+     * @param visitDTO petId, vetId, visitDate, visitTime (HH:mm, start of a slot), description, cost
+     * @return 201 with the visit, 409 if the vet is booked then, 404 for an unknown vet or pet, 400 if invalid
+     */
+    @PostMapping(value = "/appointments")
+    ResponseEntity<VisitDTO> book(@RequestBody VisitDTO visitDTO) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(appointmentService.book(visitDTO));
+        } catch (SlotTakenException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (VetNotFoundException | PetNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Free slots of the vets of a specialty on a day, within the specialty's opening hours
+     * @param id specialty id
+     * @param date yyyy-MM-dd
+     * @param limit vets at most, bounded by KeysetCursor.MAX_LIMIT
+     * @return vets with free slots, ordered by id
+     */
+    @GetMapping(value = "/specialties/{id}/free-slots")
+    ResponseEntity<List<FreeSlotsDTO>> findFreeSlots(@PathVariable Integer id,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                     @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(appointmentService.findFreeSlots(id, date, KeysetCursor.resolveLimit(limit)));
+        } catch (SpecialtyNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.tecsup.petclinic.webs;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tecsup.petclinic.dtos.CacheStatsDTO;
+import com.tecsup.petclinic.dtos.RegionStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * REST Controller exposing the statistics of the Caffeine caches
+ * and of the Hibernate second-level cache regions
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class CacheController {
+
+    private CacheManager cacheManager;
+    private Statistics statistics;
+
+    public CacheController(CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.cacheManager = cacheManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Statistics of every cache
+     * @return
+     */
+    @GetMapping(value = "/admin/caches")
+    public ResponseEntity<List<CacheStatsDTO>> findAllStats() {
+        List<CacheStatsDTO> stats = cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::toStats)
+                .filter(Objects::nonNull)
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Statistics of every second-level cache region, including the query cache.
+     * Empty unless hibernate.generate_statistics is enabled.
+     * @return
+     */
+    @GetMapping(value = "/admin/caches/hibernate")
+    public ResponseEntity<List<RegionStatsDTO>> findAllRegionStats() {
+        List<RegionStatsDTO> stats = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toRegionStats(region, statistics.getCacheRegionStatistics(region)))
+                .filter(Objects::nonNull)
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    private RegionStatsDTO toRegionStats(String region, CacheRegionStatistics stats) {
+        if (stats == null)
+            return null;
+        long lookups = stats.getHitCount() + stats.getMissCount();
+        return RegionStatsDTO.builder()
+                .region(region)
+                .hitCount(stats.getHitCount())
+                .missCount(stats.getMissCount())
+                .putCount(stats.getPutCount())
+                .hitRate(lookups == 0 ? 0 : (double) stats.getHitCount() / lookups)
+                .build();
+    }
+
+    private CacheStatsDTO toStats(Cache cache) {
+        if (!(cache instanceof CaffeineCache caffeineCache))
+            return null;
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return CacheStatsDTO.builder()
+                .name(cache.getName())
+                .size(nativeCache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.services.ExportFormat;
+import com.tecsup.petclinic.services.ExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * REST Controller for the streaming export of pets, owners and visits
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class ExportController {
+
+    private ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Export all pets
+     * @param format ndjson (default) or csv
+     * @return
+     */
+    @GetMapping(value = "/pets/export")
+    public ResponseEntity<StreamingResponseBody> exportPets(@RequestParam(defaultValue = "ndjson") String format) {
+        return stream("pets", format, exportService::exportPets);
+    }
+
+    /**
+     * Export all owners
+     * @param format ndjson (default) or csv
+     * @return
+     */
+    @GetMapping(value = "/owners/export")
+    public ResponseEntity<StreamingResponseBody> exportOwners(@RequestParam(defaultValue = "ndjson") String format) {
+        return stream("owners", format, exportService::exportOwners);
+    }
+
+    /**
+     * Export all visits
+     * @param format ndjson (default) or csv
+     * @return
+     */
+    @GetMapping(value = "/visits/export")
+    public ResponseEntity<StreamingResponseBody> exportVisits(@RequestParam(defaultValue = "ndjson") String format) {
+        return stream("visits", format, exportService::exportVisits);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, String format, Export export) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> export.write(out, exportFormat);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long write(OutputStream out, ExportFormat format) throws IOException;
+    }
+
+}
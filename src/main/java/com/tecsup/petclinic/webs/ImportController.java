@@ -0,0 +1,57 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.ImportReportDTO;
+import com.tecsup.petclinic.services.ImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * REST Controller for the bulk CSV import of owners and pets.
+ * The request body is read as a stream, it is never buffered whole.
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class ImportController {
+
+    private ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Import owners from a CSV with a header line
+     * @param body
+     * @return the import report, 400 if a required column is missing
+     */
+    @PostMapping(value = "/owners/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDTO> importOwners(InputStream body) {
+        try {
+            return ResponseEntity.ok(importService.importOwners(body));
+        } catch (IllegalArgumentException e) {
+            log.info("Rejected owners import: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Import pets from a CSV with a header line
+     * @param body
+     * @return the import report, 400 if a required column is missing
+     */
+    @PostMapping(value = "/pets/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDTO> importPets(InputStream body) {
+        try {
+            return ResponseEntity.ok(importService.importPets(body));
+        } catch (IllegalArgumentException e) {
+            log.info("Rejected pets import: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.RecordingDTO;
+import com.tecsup.petclinic.jfr.RecordingManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Optional;
+
+/**
+ * REST Controller starting, stopping and downloading a JFR recording
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class JfrController {
+
+    private RecordingManager recordingManager;
+
+    public JfrController(RecordingManager recordingManager) {
+        this.recordingManager = recordingManager;
+    }
+
+    /**
+     * The running recording, else the last stopped one
+     * @return
+     */
+    @GetMapping(value = "/admin/jfr")
+    public ResponseEntity<RecordingDTO> findRecording() {
+        return ResponseEntity.of(recordingManager.status());
+    }
+
+    /**
+     * Start a recording with the JDK default or profile settings
+     * @param settings
+     * @return 409 when one is running already
+     */
+    @PostMapping(value = "/admin/jfr/start")
+    public ResponseEntity<RecordingDTO> start(@RequestParam(defaultValue = "default") String settings) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(recordingManager.start(settings));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(recordingManager.status().orElse(null));
+        } catch (IOException | ParseException e) {
+            log.info("Unknown JFR settings {}: {}", settings, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stop the running recording, GET /admin/jfr/recording downloads it
+     * @return 404 when none is running
+     */
+    @PostMapping(value = "/admin/jfr/stop")
+    public ResponseEntity<RecordingDTO> stop() throws IOException {
+        return ResponseEntity.of(recordingManager.stop());
+    }
+
+    /**
+     * The last stopped recording, or a snapshot of the running one, as a .jfr file
+     * @return
+     */
+    @GetMapping(value = "/admin/jfr/recording")
+    public ResponseEntity<Resource> download() throws IOException {
+        Optional<Path> file = recordingManager.dump();
+        if (file.isEmpty())
+            return ResponseEntity.notFound().build();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("petclinic.jfr").build().toString())
+                .body(new FileSystemResource(file.get()));
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.PageDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation tokens for the keyset paginated list endpoints.
+ * A token is the url-safe base64 of "scope|key", where key is the sort key
+ * of the last row of the previous page.
+ * @author jgomezm
+ */
+final class KeysetCursor {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_LIMIT = 50;
+
+    static final int MAX_LIMIT = 200;
+
+    private static final char SEPARATOR = '|';
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encode the key of the last row of a page
+     * @param scope
+     * @param key
+     * @return
+     */
+    static String encode(String scope, String key) {
+        String raw = scope + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token issued by encode for the same scope
+     * @param scope
+     * @param token
+     * @return the key
+     * @throws IllegalArgumentException if the token is malformed or belongs to another scope
+     */
+    static String decode(String scope, String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int idx = raw.indexOf(SEPARATOR);
+        if (idx < 0 || !scope.equals(raw.substring(0, idx)))
+            throw new IllegalArgumentException("Invalid cursor");
+        return raw.substring(idx + 1);
+    }
+
+    /**
+     * Resolve the numeric key to seek after, from either a raw id or a token
+     * @param scope
+     * @param after
+     * @param cursor
+     * @return 0 when neither is given
+     */
+    static long resolveAfter(String scope, Long after, String cursor) {
+        if (cursor != null && !cursor.isEmpty())
+            return Long.parseLong(decode(scope, cursor));
+        return after == null ? 0L : after;
+    }
+
+    /**
+     * Same as resolveAfter, for entities keyed by an Integer id
+     * @param scope
+     * @param after
+     * @param cursor
+     * @return
+     */
+    static int resolveIntAfter(String scope, Long after, String cursor) {
+        long key = resolveAfter(scope, after, cursor);
+        if (key < Integer.MIN_VALUE || key > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid cursor");
+        return (int) key;
+    }
+
+    /**
+     * Validate the requested page size and bound it by MAX_LIMIT
+     * @param limit
+     * @return
+     */
+    static int resolveLimit(Integer limit) {
+        if (limit == null)
+            return DEFAULT_LIMIT;
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be positive");
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Build the response for a page, adding the continuation token of the next page
+     * as X-Next-Cursor and as a Link rel="next" header
+     * @param scope
+     * @param page
+     * @param key extracts the sort key of a row
+     * @return
+     */
+    static <T> ResponseEntity<List<T>> toResponse(String scope, PageDTO<T> page, Function<T, Object> key) {
+        List<T> content = page.getContent();
+        if (!page.isHasNext() || content.isEmpty())
+            return ResponseEntity.ok(content);
+
+        String token = encode(scope, String.valueOf(key.apply(content.get(content.size() - 1))));
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after")
+                .replaceQueryParam("cursor", token)
+                .toUriString();
+
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, token)
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(content);
+    }
+
+}
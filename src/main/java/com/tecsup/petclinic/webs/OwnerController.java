@@ -1,8 +1,9 @@
 package com.tecsup.petclinic.webs;
 
 import com.tecsup.petclinic.dtos.OwnerDTO;
-import com.tecsup.petclinic.entities.Owner;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.exceptions.OwnerNotFoundException;
+import com.tecsup.petclinic.logging.EntityDumpSampler;
 import com.tecsup.petclinic.mapper.OwnerMapper;
 import com.tecsup.petclinic.services.OwnerService;
 import lombok.extern.slf4j.Slf4j;
@@ -22,27 +23,55 @@ public class OwnerController {
 
     private OwnerService ownerService;
     private OwnerMapper mapper;
+    private EntityDumpSampler dumpSampler;
 
-    public OwnerController(OwnerService ownerService, OwnerMapper mapper) {
+    public OwnerController(OwnerService ownerService, OwnerMapper mapper, EntityDumpSampler dumpSampler) {
         this.ownerService = ownerService;
         this.mapper = mapper;
+        this.dumpSampler = dumpSampler;
     }
 
     /**
-     * Get all owners
+     * Get a page of owners ordered by id
+     * @param after id of the last owner already read
+     * @param cursor continuation token returned in X-Next-Cursor
+     * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
      * @return
      */
     @GetMapping(value = "/owners")
-    public ResponseEntity<List<OwnerDTO>> findAllOwners() {
-        List<Owner> owners = ownerService.findAll();
-        log.info("owners: " + owners);
-        owners.forEach(item -> log.info("Owner >> {} ", item));
+    public ResponseEntity<List<OwnerDTO>> findAllOwners(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        PageDTO<OwnerDTO> page;
+        try {
+            long from = KeysetCursor.resolveAfter("owners", after, cursor);
+            page = ownerService.findPage(from, KeysetCursor.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        List<OwnerDTO> ownersDTO = this.mapper.mapToDtoList(owners);
-        log.info("ownersDTO: " + ownersDTO);
-        ownersDTO.forEach(item -> log.info("OwnerDTO >> {} ", item));
+        dumpSampler.dump(log, "GET /owners", page.getContent());
+
+        return KeysetCursor.toResponse("owners", page, OwnerDTO::getId);
+    }
 
-        return ResponseEntity.ok(ownersDTO);
+    /**
+     * Search owners by name prefix and/or city, ignoring case and accents.
+     * Owners whose last name matches come first, then those whose first name matches.
+     * @param q start of the last or first name
+     * @param city exact city
+     * @param limit maximum number of owners, bounded by KeysetCursor.MAX_LIMIT
+     * @return 400 if neither q nor city is given
+     */
+    @GetMapping(value = "/owners/search")
+    public ResponseEntity<List<OwnerDTO>> search(@RequestParam(required = false) String q,
+                                                 @RequestParam(required = false) String city,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(ownerService.search(q, city, KeysetCursor.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -83,7 +112,8 @@ public class OwnerController {
     ResponseEntity<OwnerDTO> update(@RequestBody OwnerDTO ownerDTO, @PathVariable Long id) {
         OwnerDTO updateOwnerDTO = null;
         try {
-            updateOwnerDTO = ownerService.findById(id);
+            // Copy, the instance returned by findById is shared through the cache
+            updateOwnerDTO = ownerService.findById(id).toBuilder().build();
             updateOwnerDTO.setFirstName(ownerDTO.getFirstName());
             updateOwnerDTO.setLastName(ownerDTO.getLastName());
             updateOwnerDTO.setAddress(ownerDTO.getAddress());
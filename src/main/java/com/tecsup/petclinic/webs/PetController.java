@@ -1,6 +1,9 @@
 package com.tecsup.petclinic.webs;
 
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.logging.EntityDumpSampler;
 import com.tecsup.petclinic.mapper.PetMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -11,10 +14,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.tecsup.petclinic.entities.Pet;
 import com.tecsup.petclinic.exceptions.PetNotFoundException;
 import com.tecsup.petclinic.services.PetService;
 
@@ -29,6 +32,8 @@ import java.util.List;
 @Slf4j
 public class PetController {
 
+	static final int SUGGEST_DEFAULT_LIMIT = 10;
+
 	String name = null;
 
 	//@Autowired
@@ -37,34 +42,66 @@ public class PetController {
 	//@Autowired
 	private PetMapper mapper;
 
+	private EntityDumpSampler dumpSampler;
+
 	/**
 	 *  Change
 	 * @param petService
 	 * @param mapper
+	 * @param dumpSampler
 	 */
-	public PetController(PetService petService, PetMapper mapper){
+	public PetController(PetService petService, PetMapper mapper, EntityDumpSampler dumpSampler){
 		this.petService = petService;
 		this.mapper = mapper ;
+		this.dumpSampler = dumpSampler;
 	}
 
 	/**
-	 * Get all pets
+	 * Get a page of pets ordered by id
 	 *
+	 * @param after id of the last pet already read
+	 * @param cursor continuation token returned in X-Next-Cursor
+	 * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
 	 * @return
 	 */
 	@GetMapping(value = "/pets")
-	public ResponseEntity<List<PetDTO>> findAllPets() {
+	public ResponseEntity<List<PetDTO>> findAllPets(@RequestParam(required = false) Long after,
+													@RequestParam(required = false) String cursor,
+													@RequestParam(required = false) Integer limit) {
+
+		PageDTO<PetDTO> page;
+
+		try {
+			int from = KeysetCursor.resolveIntAfter("pets", after, cursor);
+			page = petService.findPage(from, KeysetCursor.resolveLimit(limit));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		dumpSampler.dump(log, "GET /pets", page.getContent());
 
-		List<Pet> pets = petService.findAll();
-		log.info("pets: " + pets);
-		pets.forEach(item -> log.info("Pet >>  {} ", item));
+		return KeysetCursor.toResponse("pets", page, PetDTO::getId);
 
-		List<PetDTO> petsTO = this.mapper.mapToDtoList(pets);
-		log.info("petsTO: " + petsTO);
-		petsTO.forEach(item -> log.info("PetTO >>  {} ", item));
+	}
 
-		return ResponseEntity.ok(petsTO);
 
+	/**
+	 * Typeahead on pet names, served from memory
+	 *
+	 * @param prefix start of the name, case and accents are ignored
+	 * @param limit number of names, 10 by default, bounded by KeysetCursor.MAX_LIMIT
+	 * @return distinct names in alphabetical order, with their number of pets
+	 */
+	@GetMapping(value = "/pets/suggest")
+	public ResponseEntity<List<NameSuggestionDTO>> suggest(@RequestParam(required = false) String prefix,
+														   @RequestParam(required = false) Integer limit) {
+
+		try {
+			int size = limit == null ? SUGGEST_DEFAULT_LIMIT : KeysetCursor.resolveLimit(limit);
+			return ResponseEntity.ok(petService.suggestNames(prefix, size));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
 	}
 
 
@@ -121,7 +158,8 @@ public class PetController {
 
 		try {
 
-            updatePetDto = petService.findById(id);
+            // Copy, the instance returned by findById is shared through the cache
+            updatePetDto = petService.findById(id).toBuilder().build();
 
             updatePetDto.setName(petTO.getName());
             updatePetDto.setOwnerId(petTO.getOwnerId());
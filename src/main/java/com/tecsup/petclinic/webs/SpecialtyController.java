@@ -1,15 +1,21 @@
 package com.tecsup.petclinic.webs;
 
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.SpecialtyDTO;
-import com.tecsup.petclinic.entities.Specialty;
 import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
+import com.tecsup.petclinic.logging.EntityDumpSampler;
 import com.tecsup.petclinic.mapper.SpecialtyMapper;
 import com.tecsup.petclinic.services.SpecialtyService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,29 +26,40 @@ import java.util.List;
 @Slf4j
 public class SpecialtyController {
 
+    static final long OPEN_MAX_AGE_SECONDS = 60;
+
     private SpecialtyService specialtyService;
     private SpecialtyMapper mapper;
+    private EntityDumpSampler dumpSampler;
 
-    public SpecialtyController(SpecialtyService specialtyService, SpecialtyMapper mapper) {
+    public SpecialtyController(SpecialtyService specialtyService, SpecialtyMapper mapper, EntityDumpSampler dumpSampler) {
         this.specialtyService = specialtyService;
         this.mapper = mapper;
+        this.dumpSampler = dumpSampler;
     }
 
     /**
-     * Get all specialties
+     * Get a page of specialties ordered by id
+     * @param after id of the last specialty already read
+     * @param cursor continuation token returned in X-Next-Cursor
+     * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
      * @return
      */
     @GetMapping(value = "/specialties")
-    public ResponseEntity<List<SpecialtyDTO>> findAllSpecialties() {
-        List<Specialty> specialties = specialtyService.findAll();
-        log.info("specialties: " + specialties);
-        specialties.forEach(item -> log.info("Specialty >> {} ", item));
+    public ResponseEntity<List<SpecialtyDTO>> findAllSpecialties(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        PageDTO<SpecialtyDTO> page;
+        try {
+            int from = KeysetCursor.resolveIntAfter("specialties", after, cursor);
+            page = specialtyService.findPage(from, KeysetCursor.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        List<SpecialtyDTO> specialtiesDTO = this.mapper.mapToDtoList(specialties);
-        log.info("specialtiesDTO: " + specialtiesDTO);
-        specialtiesDTO.forEach(item -> log.info("SpecialtyDTO >> {} ", item));
+        dumpSampler.dump(log, "GET /specialties", page.getContent());
 
-        return ResponseEntity.ok(specialtiesDTO);
+        return KeysetCursor.toResponse("specialties", page, SpecialtyDTO::getId);
     }
 
     /**
@@ -53,10 +70,52 @@ public class SpecialtyController {
     @PostMapping(value = "/specialties")
     @ResponseStatus(HttpStatus.CREATED)
     ResponseEntity<SpecialtyDTO> create(@RequestBody SpecialtyDTO specialtyDTO) {
-        SpecialtyDTO newSpecialtyDTO = specialtyService.create(specialtyDTO);
+        SpecialtyDTO newSpecialtyDTO = null;
+        try {
+            newSpecialtyDTO = specialtyService.create(specialtyDTO);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(newSpecialtyDTO);
     }
 
+    /**
+     * Specialties open at a time, for the kiosk displays
+     * @param at local date-time, now when left out
+     * @param office only the specialties of this office, ignoring case
+     * @return ordered by name; left out at, the response may be cached up to a minute,
+     * never past the next hour
+     */
+    @GetMapping(value = "/specialties/open")
+    ResponseEntity<List<SpecialtyDTO>> findOpen(@RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+                                                @RequestParam(required = false) String office) {
+        if (at != null)
+            return ResponseEntity.ok(specialtyService.findOpen(at, office));
+
+        LocalDateTime now = LocalDateTime.now();
+        long toNextHour = Duration.between(now, now.plusHours(1).withMinute(0).withSecond(0).withNano(0)).toSeconds();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(Math.min(toNextHour, OPEN_MAX_AGE_SECONDS))))
+                .body(specialtyService.findOpen(now, office));
+    }
+
+    /**
+     * When a specialty opens next
+     * @param id
+     * @param at local date-time, now when left out
+     * @return
+     */
+    @GetMapping(value = "/specialties/{id}/next-opening")
+    ResponseEntity<OpeningDTO> findNextOpening(@PathVariable Integer id, @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return ResponseEntity.ok(specialtyService.findNextOpening(id, at == null ? LocalDateTime.now() : at));
+        } catch (SpecialtyNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Find specialty by id
      * @param id
@@ -85,9 +144,18 @@ public class SpecialtyController {
         try {
             updateSpecialtyDTO = specialtyService.findById(id);
             updateSpecialtyDTO.setName(specialtyDTO.getName());
+            // Office and hours are kept when left out
+            if (specialtyDTO.getOffice() != null)
+                updateSpecialtyDTO.setOffice(specialtyDTO.getOffice());
+            if (specialtyDTO.getOpenHour() != null)
+                updateSpecialtyDTO.setOpenHour(specialtyDTO.getOpenHour());
+            if (specialtyDTO.getCloseHour() != null)
+                updateSpecialtyDTO.setCloseHour(specialtyDTO.getCloseHour());
             specialtyService.update(updateSpecialtyDTO);
         } catch (SpecialtyNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
         return ResponseEntity.ok(updateSpecialtyDTO);
     }
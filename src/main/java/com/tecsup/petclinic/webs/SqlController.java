@@ -0,0 +1,58 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.SlowQueryStatsDTO;
+import com.tecsup.petclinic.sql.SlowQueryLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST Controller exposing the slow-query log
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class SqlController {
+
+    private ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public SqlController(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Threshold, number of slow statements and the most recent ones, oldest first
+     * @return
+     */
+    @GetMapping(value = "/admin/sql/slow-queries")
+    public ResponseEntity<SlowQueryStatsDTO> findSlowQueries() {
+        SlowQueryLog queries = slowQueryLog.getIfAvailable();
+        if (queries == null)
+            return ResponseEntity.ok(SlowQueryStatsDTO.builder().recent(List.of()).build());
+
+        return ResponseEntity.ok(SlowQueryStatsDTO.builder()
+                .enabled(true)
+                .thresholdMillis(queries.getThresholdMillis())
+                .slowCount(queries.getSlowCount())
+                .recent(queries.getRecent())
+                .build());
+    }
+
+    /**
+     * Empty the ring buffer, the count is kept
+     * @return
+     */
+    @DeleteMapping(value = "/admin/sql/slow-queries")
+    public ResponseEntity<Void> clearSlowQueries() {
+        SlowQueryLog queries = slowQueryLog.getIfAvailable();
+        if (queries != null)
+            queries.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+}
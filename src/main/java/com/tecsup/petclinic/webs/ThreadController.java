@@ -0,0 +1,60 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.ThreadStatsDTO;
+import com.tecsup.petclinic.threads.PinningMonitor;
+import com.tecsup.petclinic.threads.PoolLimitFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST Controller reporting how requests are executed
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class ThreadController {
+
+    private Environment environment;
+    private ObjectProvider<PoolLimitFilter> poolLimitFilter;
+    private ObjectProvider<PinningMonitor> pinningMonitor;
+
+    public ThreadController(Environment environment, ObjectProvider<PoolLimitFilter> poolLimitFilter,
+                            ObjectProvider<PinningMonitor> pinningMonitor) {
+        this.environment = environment;
+        this.poolLimitFilter = poolLimitFilter;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    /**
+     * Execution mode, in-flight limit and pinned virtual threads
+     * @return
+     */
+    @GetMapping(value = "/admin/threads")
+    public ResponseEntity<ThreadStatsDTO> findThreadStats() {
+        ThreadStatsDTO.ThreadStatsDTOBuilder stats = ThreadStatsDTO.builder()
+                .virtualThreads(Threading.VIRTUAL.isActive(environment))
+                .recentPinned(List.of());
+
+        PoolLimitFilter filter = poolLimitFilter.getIfAvailable();
+        if (filter != null)
+            stats.maxInFlight(filter.getMaxInFlight())
+                    .inFlight(filter.getInFlight())
+                    .rejected(filter.getRejected());
+
+        PinningMonitor monitor = pinningMonitor.getIfAvailable();
+        if (monitor != null)
+            stats.pinningMonitor(monitor.isActive())
+                    .pinnedCount(monitor.getPinnedCount())
+                    .recentPinned(monitor.getRecent());
+
+        return ResponseEntity.ok(stats.build());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.TraceDTO;
+import com.tecsup.petclinic.tracing.InMemorySpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST Controller querying the spans of the in-memory exporter
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class TraceController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private ObjectProvider<InMemorySpanExporter> spanExporter;
+
+    public TraceController(ObjectProvider<InMemorySpanExporter> spanExporter) {
+        this.spanExporter = spanExporter;
+    }
+
+    /**
+     * The most recent traces, newest first
+     * @param limit
+     * @return
+     */
+    @GetMapping(value = "/admin/traces")
+    public ResponseEntity<List<TraceDTO>> findTraces(@RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT)
+            return ResponseEntity.badRequest().build();
+        InMemorySpanExporter exporter = spanExporter.getIfAvailable();
+        return ResponseEntity.ok(exporter == null ? List.of() : exporter.findTraces(limit));
+    }
+
+    /**
+     * The spans of one trace
+     * @param traceId
+     * @return
+     */
+    @GetMapping(value = "/admin/traces/{traceId}")
+    public ResponseEntity<TraceDTO> findTrace(@PathVariable String traceId) {
+        InMemorySpanExporter exporter = spanExporter.getIfAvailable();
+        return ResponseEntity.of(exporter == null ? Optional.empty() : exporter.findTrace(traceId));
+    }
+
+    @DeleteMapping(value = "/admin/traces")
+    public ResponseEntity<Void> clearTraces() {
+        InMemorySpanExporter exporter = spanExporter.getIfAvailable();
+        if (exporter != null)
+            exporter.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -1,8 +1,13 @@
 package com.tecsup.petclinic.webs;
 
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.SpecialtyAssignmentDTO;
+import com.tecsup.petclinic.dtos.SpecialtyChangesDTO;
 import com.tecsup.petclinic.dtos.VetDTO;
-import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.dtos.VetSpecialtiesDTO;
+import com.tecsup.petclinic.exceptions.SpecialtyNotFoundException;
 import com.tecsup.petclinic.exceptions.VetNotFoundException;
+import com.tecsup.petclinic.logging.EntityDumpSampler;
 import com.tecsup.petclinic.mapper.VetMapper;
 import com.tecsup.petclinic.services.VetService;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -22,29 +28,61 @@ public class VetController {
 
     private VetService vetService;
     private VetMapper mapper;
+    private EntityDumpSampler dumpSampler;
 
-    public VetController(VetService vetService, VetMapper mapper) {
+    public VetController(VetService vetService, VetMapper mapper, EntityDumpSampler dumpSampler) {
         this.vetService = vetService;
         this.mapper = mapper;
+        this.dumpSampler = dumpSampler;
     }
 
     /**
-     * Get all vets
+     * Get a page of vets ordered by id
+     * @param after id of the last vet already read
+     * @param cursor continuation token returned in X-Next-Cursor
+     * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
+     * @param withSpecialties include the specialty names of every vet
      * @return
      */
     @GetMapping(value = "/vets")
-    public ResponseEntity<List<VetDTO>> findAllVets() {
-        List<Vet> vets = vetService.findAll();
-        log.info("Número de vets: {}", vets.size());
-        vets.forEach(item -> log.info("Vet >> id={}, firstName={}, lastName={}",
-                item.getId(), item.getFirstName(), item.getLastName()));
+    public ResponseEntity<List<VetDTO>> findAllVets(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(defaultValue = "false") boolean withSpecialties) {
+        PageDTO<VetDTO> page;
+        try {
+            int from = KeysetCursor.resolveIntAfter("vets", after, cursor);
+            int size = KeysetCursor.resolveLimit(limit);
+            page = withSpecialties ? vetService.findPageWithSpecialties(from, size) : vetService.findPage(from, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
+        dumpSampler.dump(log, "GET /vets", page.getContent());
 
-        List<VetDTO> vetsDTO = this.mapper.mapToDtoList(vets);
-        log.info("vetsDTO: " + vetsDTO);
-        vetsDTO.forEach(item -> log.info("VetDTO >> {} ", item));
+        return KeysetCursor.toResponse("vets", page, VetDTO::getId);
+    }
 
-        return ResponseEntity.ok(vetsDTO);
+    /**
+     * Find the vets having every one of the specialties, with their specialties
+     * @param all comma separated specialty names, e.g. surgery,dentistry
+     * @param limit bounded by KeysetCursor.MAX_LIMIT
+     * @return vets ordered by id
+     */
+    @GetMapping(value = "/vets/by-specialties")
+    public ResponseEntity<List<VetDTO>> findBySpecialties(@RequestParam String all,
+                                                          @RequestParam(required = false) Integer limit) {
+        List<String> specialties = Arrays.stream(all.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        if (specialties.isEmpty())
+            return ResponseEntity.badRequest().build();
+        try {
+            return ResponseEntity.ok(vetService.findBySpecialties(specialties, KeysetCursor.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -85,7 +123,8 @@ public class VetController {
     ResponseEntity<VetDTO> update(@RequestBody VetDTO vetDTO, @PathVariable Integer id) {
         VetDTO updateVetDTO = null;
         try {
-            updateVetDTO = vetService.findById(id);
+            // Copy, the instance returned by findById is shared through the cache
+            updateVetDTO = vetService.findById(id).toBuilder().build();
             updateVetDTO.setFirstName(vetDTO.getFirstName());
             updateVetDTO.setLastName(vetDTO.getLastName());
             vetService.update(updateVetDTO);
@@ -95,6 +134,56 @@ public class VetController {
         return ResponseEntity.ok(updateVetDTO);
     }
 
+    /**
+     * Replace the specialties of a vet
+     * @param id
+     * @param specialtyIds all the specialty ids of the vet, [] for none
+     * @return the vet with its specialties, 404 for an unknown vet, 400 for an unknown specialty
+     */
+    @PutMapping(value = "/vets/{id}/specialties")
+    ResponseEntity<VetDTO> assignSpecialties(@PathVariable Integer id, @RequestBody List<Integer> specialtyIds) {
+        try {
+            return ResponseEntity.ok(vetService.assignSpecialties(id, specialtyIds));
+        } catch (VetNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SpecialtyNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Give specialties to a vet and take others from it
+     * @param id
+     * @param changes {"add": [...], "remove": [...]}, either may be left out
+     * @return the vet with its specialties, 404 for an unknown vet, 400 for an unknown specialty
+     */
+    @PatchMapping(value = "/vets/{id}/specialties")
+    ResponseEntity<VetDTO> changeSpecialties(@PathVariable Integer id, @RequestBody SpecialtyChangesDTO changes) {
+        try {
+            return ResponseEntity.ok(vetService.changeSpecialties(id, changes));
+        } catch (VetNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SpecialtyNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Replace the specialties of many vets at once, in one transaction
+     * @param assignments [{"vetId": 1, "specialtyIds": [...]}, ...]
+     * @return the vets and the rows written; nothing is changed when a vet or a specialty is unknown
+     */
+    @PutMapping(value = "/vets/specialties")
+    ResponseEntity<SpecialtyAssignmentDTO> assignSpecialties(@RequestBody List<VetSpecialtiesDTO> assignments) {
+        try {
+            return ResponseEntity.ok(vetService.assignSpecialties(assignments));
+        } catch (VetNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SpecialtyNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Delete vet by id
      * @param id
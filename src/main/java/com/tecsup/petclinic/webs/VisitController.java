@@ -1,2 +1,215 @@
-package com.tecsup.petclinic.webs;public class VisitController {
+package com.tecsup.petclinic.webs;
+
+import com.tecsup.petclinic.dtos.IngestionStatsDTO;
+import com.tecsup.petclinic.dtos.PageDTO;
+import com.tecsup.petclinic.dtos.VisitBulkResultDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.PetNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitNotFoundException;
+import com.tecsup.petclinic.exceptions.VisitQueueFullException;
+import com.tecsup.petclinic.services.SlotCalendar;
+import com.tecsup.petclinic.services.VisitIngestionBuffer;
+import com.tecsup.petclinic.services.VisitService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * REST Controller for Visit entity.
+ * POST answers once the visits are committed, or 503 when the ingestion queue is full.
+ * @author jgomezm
+ */
+@RestController
+@Slf4j
+public class VisitController {
+
+    private VisitService visitService;
+    private VisitIngestionBuffer ingestionBuffer;
+
+    public VisitController(VisitService visitService, VisitIngestionBuffer ingestionBuffer) {
+        this.visitService = visitService;
+        this.ingestionBuffer = ingestionBuffer;
+    }
+
+    /**
+     * Get a page of visits ordered by id
+     * @param after id of the last visit already read
+     * @param cursor continuation token returned in X-Next-Cursor
+     * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
+     * @return
+     */
+    @GetMapping(value = "/visits")
+    public ResponseEntity<List<VisitDTO>> findAllVisits(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        PageDTO<VisitDTO> page;
+        try {
+            long from = KeysetCursor.resolveAfter("visits", after, cursor);
+            page = visitService.findPage(from, KeysetCursor.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return KeysetCursor.toResponse("visits", page, VisitDTO::getId);
+    }
+
+    /**
+     * Get a page of the visit history of a pet, newest first
+     * @param id pet id
+     * @param cursor continuation token returned in X-Next-Cursor
+     * @param limit page size, bounded by KeysetCursor.MAX_LIMIT
+     * @return 404 if the pet does not exist
+     */
+    @GetMapping(value = "/pets/{id}/visits")
+    public ResponseEntity<List<VisitDTO>> findPetVisits(@PathVariable Integer id,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        // The pet id is part of the scope, a cursor is only valid for the pet that issued it
+        String scope = "pets/" + id + "/visits";
+        PageDTO<VisitDTO> page;
+        try {
+            LocalDate beforeDate = null;
+            Long beforeId = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                String[] key = KeysetCursor.decode(scope, cursor).split(",", 2);
+                if (key.length != 2)
+                    throw new IllegalArgumentException("Invalid cursor");
+                beforeDate = LocalDate.parse(key[0]);
+                beforeId = Long.parseLong(key[1]);
+            }
+            page = visitService.findHistory(id, beforeDate, beforeId, KeysetCursor.resolveLimit(limit));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (PetNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return KeysetCursor.toResponse(scope, page, visit -> visit.getVisitDate() + "," + visit.getId());
+    }
+
+    /**
+     * Create visit
+     * @param visitDTO
+     * @return 201 once stored, 400 if invalid, 503 if the ingestion queue is full
+     */
+    @PostMapping(value = "/visits")
+    CompletableFuture<ResponseEntity<VisitDTO>> create(@RequestBody VisitDTO visitDTO) {
+        try {
+            return visitService.submit(visitDTO)
+                    .thenApply(visit -> ResponseEntity.status(HttpStatus.CREATED).body(visit))
+                    .exceptionally(this::notStored);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (VisitQueueFullException e) {
+            return CompletableFuture.completedFuture(queueFull());
+        }
+    }
+
+    /**
+     * Create visits in bulk
+     * @param visitDTOs
+     * @return 200 with the stored and the rejected visits, 400 if one is invalid,
+     * 503 if the ingestion queue has no room for all of them
+     */
+    @PostMapping(value = "/visits/bulk")
+    CompletableFuture<ResponseEntity<VisitBulkResultDTO>> createAll(@RequestBody List<VisitDTO> visitDTOs) {
+        try {
+            return visitService.submitAll(visitDTOs).thenApply(ResponseEntity::ok);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (VisitQueueFullException e) {
+            return CompletableFuture.completedFuture(queueFull());
+        }
+    }
+
+    /**
+     * Find visit by id
+     * @param id
+     * @return
+     */
+    @GetMapping(value = "/visits/{id}")
+    ResponseEntity<VisitDTO> findById(@PathVariable Long id) {
+        VisitDTO visitDTO = null;
+        try {
+            visitDTO = visitService.findById(id);
+        } catch (VisitNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(visitDTO);
+    }
+
+    /**
+     * Update visit
+     * @param visitDTO
+     * @param id
+     * @return
+     */
+    @PutMapping(value = "/visits/{id}")
+    ResponseEntity<VisitDTO> update(@RequestBody VisitDTO visitDTO, @PathVariable Long id) {
+        VisitDTO updateVisitDTO = null;
+        try {
+            updateVisitDTO = visitService.findById(id);
+            updateVisitDTO.setPetId(visitDTO.getPetId());
+            updateVisitDTO.setVetId(visitDTO.getVetId());
+            updateVisitDTO.setVisitDate(visitDTO.getVisitDate());
+            updateVisitDTO.setDescription(visitDTO.getDescription());
+            updateVisitDTO.setCost(visitDTO.getCost());
+            updateVisitDTO = visitService.update(updateVisitDTO);
+        } catch (VisitNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            return notStored(e);
+        }
+        return ResponseEntity.ok(updateVisitDTO);
+    }
+
+    /**
+     * Delete visit by id
+     * @param id
+     */
+    @DeleteMapping(value = "/visits/{id}")
+    ResponseEntity<String> delete(@PathVariable Long id) {
+        try {
+            visitService.delete(id);
+            return ResponseEntity.ok("Delete ID: " + id);
+        } catch (VisitNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * State of the ingestion queue
+     * @return
+     */
+    @GetMapping(value = "/admin/visits/ingestion")
+    ResponseEntity<IngestionStatsDTO> findIngestionStats() {
+        return ResponseEntity.ok(ingestionBuffer.getStats());
+    }
+
+    private <T> ResponseEntity<T> queueFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    private ResponseEntity<VisitDTO> notStored(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        // Moved onto a slot the vet already has booked
+        if (cause instanceof DataIntegrityViolationException e && SlotCalendar.isSlotConflict(e))
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        if (cause instanceof DataIntegrityViolationException)
+            return ResponseEntity.badRequest().build();
+        log.error("Visit not stored", cause);
+        return ResponseEntity.internalServerError().build();
+    }
+
 }
@@ -63,6 +63,9 @@ INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES
 (9, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435'),
 (10, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487');
 
+-- Search columns, normalized as SearchText does (these names have no accents)
+UPDATE owners SET first_name_norm = LOWER(first_name), last_name_norm = LOWER(last_name), city_norm = LOWER(city);
+
 -- ===============================================
 -- 6. INSERT PETS (Mascotas)
 -- ===============================================
@@ -92,6 +95,18 @@ INSERT INTO visits (id, pet_id, vet_id, visit_date, description, cost) VALUES
 (5, 1, 1, '2024-01-15', 'general checkup', 65.00),
 (6, 3, 4, '2024-02-20', 'dental cleaning', 150.00);
 
+-- ===============================================
+-- 8. INSERT ID_SEQUENCES (Secuencias de IDs)
+-- First block handed out is next_val - 49 .. next_val
+-- ===============================================
+INSERT INTO id_sequences (seq_name, next_val) VALUES
+('vets', 100),
+('specialties', 100),
+('types', 100),
+('owners', 100),
+('pets', 100),
+('visits', 100);
+
 -- ===============================================
 -- END OF DATA INSERTION
 -- ===============================================
@@ -16,6 +16,7 @@ DROP TABLE IF EXISTS owners;
 DROP TABLE IF EXISTS types;
 DROP TABLE IF EXISTS specialties;
 DROP TABLE IF EXISTS vets;
+DROP TABLE IF EXISTS id_sequences;
 
 -- ===============================================
 -- TABLE: vets (Veterinarios)
@@ -96,11 +97,22 @@ CREATE TABLE IF NOT EXISTS owners (
   address       VARCHAR(255),
   city          VARCHAR(80),
   telephone     VARCHAR(20),
+  first_name_norm VARCHAR(30),
+  last_name_norm  VARCHAR(30),
+  city_norm       VARCHAR(80),
   PRIMARY KEY (id)
 );
 
 CREATE INDEX idx_owners_last_name ON owners(last_name);
 
+-- Prefix search (/owners/search) on the *_norm columns: lower case, no accents,
+-- kept by the Owner entity. Each index serves one name prefix, alone or
+-- after an exact city, already in the order the results are returned
+CREATE INDEX idx_owners_last_norm ON owners(last_name_norm, first_name_norm);
+CREATE INDEX idx_owners_first_norm ON owners(first_name_norm, last_name_norm);
+CREATE INDEX idx_owners_city_last_norm ON owners(city_norm, last_name_norm, first_name_norm);
+CREATE INDEX idx_owners_city_first_norm ON owners(city_norm, first_name_norm, last_name_norm);
+
 -- ===============================================
 -- TABLE: pets (Mascotas)
 -- Description: Stores pet information
@@ -132,6 +144,7 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id          INT NOT NULL,
   vet_id          INT,
   visit_date      DATE NOT NULL,
+  visit_time      TIME,
   description     VARCHAR(255),
   cost            DECIMAL(10,2),
   PRIMARY KEY (id),
@@ -143,9 +156,26 @@ CREATE TABLE IF NOT EXISTS visits (
     ON UPDATE CASCADE
 );
 
-CREATE INDEX idx_visits_pet_id ON visits(pet_id);
+-- Serves a pet's history newest first (GET /pets/{id}/visits) without a sort step,
+-- and the pet_id foreign key through its leading column
+CREATE INDEX idx_visits_pet_history ON visits(pet_id, visit_date DESC, id DESC);
 CREATE INDEX idx_visits_vet_id ON visits(vet_id);
 CREATE INDEX idx_visits_date ON visits(visit_date);
+-- One booked visit per vet and slot: the last word on double bookings, whatever the
+-- SlotCalendar of each instance believes. Visits without a time are never in conflict
+CREATE UNIQUE INDEX uk_visits_vet_slot ON visits(vet_id, visit_date, visit_time);
+
+-- ===============================================
+-- TABLE: id_sequences (Secuencias de IDs)
+-- Description: Pooled id allocation for every entity. Hibernate reserves
+-- blocks of 50 ids per round-trip, so inserts can be JDBC-batched.
+-- next_val must stay above the highest id of its table.
+-- ===============================================
+CREATE TABLE IF NOT EXISTS id_sequences (
+  seq_name      VARCHAR(40) NOT NULL,
+  next_val      BIGINT NOT NULL,
+  PRIMARY KEY (seq_name)
+);
 
 -- ===============================================
 -- END OF SCHEMA CREATION
@@ -0,0 +1,142 @@
+package com.tecsup.petclinic.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load driver: N clients, each sending its next request as soon as
+ * the previous one answered, for a fixed duration after a warm-up.
+ * Clients are chains of async calls, so 5k clients need 5k sockets but no threads.
+ * <pre>
+ * java -cp target/test-classes com.tecsup.petclinic.load.HttpLoadDriver \
+ *      --url=http://localhost:8080 --paths=/pets/1,/owners --clients=5000 --duration=30 --warmup=10
+ * </pre>
+ * Run it against the application started with and without the vthreads profile
+ * (raise ulimit -n on both sides first).
+ */
+public class HttpLoadDriver {
+
+	private static final int MAX_LATENCY_MILLIS = 60_000;
+
+	private final HttpClient client;
+	private final List<HttpRequest> requests;
+	private final Map<String, PathStats> stats = new LinkedHashMap<>();
+	private volatile boolean measuring;
+	private volatile boolean running = true;
+
+	HttpLoadDriver(String url, List<String> paths) {
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+		this.requests = paths.stream()
+				.map(path -> HttpRequest.newBuilder(URI.create(url + path)).timeout(Duration.ofSeconds(30)).GET().build())
+				.toList();
+		paths.forEach(path -> stats.put(path, new PathStats()));
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> options = new HashMap<>(Map.of(
+				"url", "http://localhost:8080",
+				"paths", "/pets/1,/owners",
+				"clients", "5000",
+				"duration", "30",
+				"warmup", "10"));
+		for (String arg : args) {
+			int idx = arg.indexOf('=');
+			if (arg.startsWith("--") && idx > 2)
+				options.put(arg.substring(2, idx), arg.substring(idx + 1));
+		}
+
+		HttpLoadDriver driver = new HttpLoadDriver(options.get("url"), List.of(options.get("paths").split(",")));
+		driver.run(Integer.parseInt(options.get("clients")),
+				Integer.parseInt(options.get("warmup")), Integer.parseInt(options.get("duration")));
+	}
+
+	void run(int clients, int warmupSeconds, int durationSeconds) throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(clients);
+		for (int i = 0; i < clients; i++)
+			next(i % requests.size(), done);
+
+		System.out.printf("%d clients, warming up %d s%n", clients, warmupSeconds);
+		Thread.sleep(warmupSeconds * 1000L);
+		measuring = true;
+		long start = System.nanoTime();
+		Thread.sleep(durationSeconds * 1000L);
+		measuring = false;
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		running = false;
+		done.await();
+
+		System.out.printf("%-20s %10s %10s %8s %8s %8s %8s %8s%n",
+				"path", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "503", "errors");
+		stats.forEach((path, s) -> s.print(path, elapsed));
+	}
+
+	/**
+	 * Send the next request of a client, alternating over the paths
+	 */
+	private void next(int idx, CountDownLatch done) {
+		if (!running) {
+			done.countDown();
+			return;
+		}
+		HttpRequest request = requests.get(idx);
+		PathStats pathStats = stats.get(request.uri().getPath());
+		long start = System.nanoTime();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, error) -> {
+					if (measuring)
+						pathStats.record((System.nanoTime() - start) / 1_000_000,
+								error != null ? -1 : response.statusCode());
+					next((idx + 1) % requests.size(), done);
+				});
+	}
+
+	private static class PathStats {
+
+		private final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MILLIS + 1);
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+
+		void record(long millis, int status) {
+			latencies.incrementAndGet((int) Math.min(millis, MAX_LATENCY_MILLIS));
+			requests.increment();
+			if (status == 503)
+				rejected.increment();
+			else if (status < 200 || status >= 300)
+				errors.increment();
+		}
+
+		void print(String path, double elapsedSeconds) {
+			long count = requests.sum();
+			System.out.printf("%-20s %10d %10.0f %8d %8d %8d %8d %8d%n", path, count, count / elapsedSeconds,
+					percentile(count, 0.50), percentile(count, 0.99), percentile(count, 1.0),
+					rejected.sum(), errors.sum());
+		}
+
+		private long percentile(long count, double p) {
+			long rank = (long) Math.ceil(count * p);
+			long seen = 0;
+			for (int millis = 0; millis <= MAX_LATENCY_MILLIS; millis++) {
+				seen += latencies.get(millis);
+				if (seen >= rank && seen > 0)
+					return millis;
+			}
+			return 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.tecsup.petclinic.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for EntityDumpSampler
+ */
+public class EntityDumpSamplerTest {
+
+	private final List<Integer> rows = IntStream.rangeClosed(1, 50).boxed().toList();
+
+	private Logger log;
+	private ListAppender<ILoggingEvent> appender;
+
+	@BeforeEach
+	public void setUp() {
+		log = new LoggerContext().getLogger("dump");
+		appender = new ListAppender<>();
+		appender.start();
+		log.addAppender(appender);
+	}
+
+	/**
+	 * One call in every dump-every is logged per endpoint, with at most dump-max-rows rows
+	 */
+	@Test
+	public void testSamplesPerEndpoint() {
+
+		EntityDumpSampler sampler = new EntityDumpSampler(10, 3);
+		log.setLevel(Level.DEBUG);
+
+		for (int i = 0; i < 25; i++) {
+			sampler.dump(log, "GET /pets", rows);
+			sampler.dump(log, "GET /owners", rows);
+		}
+
+		// Calls 1, 11 and 21 of each endpoint
+		assertEquals(6, appender.list.size());
+		String message = appender.list.get(0).getFormattedMessage();
+		assertTrue(message.endsWith("GET /pets returned 50 rows, first 3: [1, 2, 3]"), message);
+	}
+
+	/**
+	 * Nothing is logged, or counted, while DEBUG is off
+	 */
+	@Test
+	public void testNothingWhileDebugIsOff() {
+
+		EntityDumpSampler sampler = new EntityDumpSampler(2, 3);
+		log.setLevel(Level.INFO);
+		for (int i = 0; i < 5; i++)
+			sampler.dump(log, "GET /pets", rows);
+		assertEquals(0, appender.list.size());
+
+		// The first sampled call once DEBUG is on is logged
+		log.setLevel(Level.DEBUG);
+		sampler.dump(log, "GET /pets", rows);
+		assertEquals(1, appender.list.size());
+	}
+
+}
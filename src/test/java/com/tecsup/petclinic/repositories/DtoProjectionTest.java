@@ -0,0 +1,83 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.entities.Owner;
+import com.tecsup.petclinic.entities.Pet;
+import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.entities.Visit;
+import com.tecsup.petclinic.mapper.OwnerMapper;
+import com.tecsup.petclinic.mapper.PetMapper;
+import com.tecsup.petclinic.mapper.VetMapper;
+import com.tecsup.petclinic.mapper.VisitMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The constructor expression queries must build the same DTOs
+ * as loading the entities and mapping them
+ */
+@SpringBootTest
+@Transactional
+public class DtoProjectionTest {
+
+    private static final Limit ALL = Limit.of(100_000);
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PetMapper petMapper;
+
+    @Autowired
+    private OwnerMapper ownerMapper;
+
+    @Autowired
+    private VetMapper vetMapper;
+
+    @Autowired
+    private VisitMapper visitMapper;
+
+    @Test
+    public void testPetProjection() {
+        // Rolled back with the test
+        petRepository.saveAndFlush(new Pet("NoBirthDate", 1, 1, null));
+
+        List<Pet> pets = petRepository.findByIdGreaterThanOrderByIdAsc(0, ALL);
+        assertEquals(petMapper.mapToDtoList(pets), petRepository.findPageAfter(0, ALL));
+    }
+
+    @Test
+    public void testOwnerProjection() {
+        List<Owner> owners = ownerRepository.findByIdGreaterThanOrderByIdAsc(0L, ALL);
+        assertEquals(ownerMapper.mapToDtoList(owners), ownerRepository.findPageAfter(0L, ALL));
+    }
+
+    @Test
+    public void testVetProjection() {
+        List<Vet> vets = vetRepository.findAll().stream().sorted(Comparator.comparing(Vet::getId)).toList();
+        assertEquals(vetMapper.mapToDtoList(vets), vetRepository.findPageAfter(0, ALL));
+    }
+
+    @Test
+    public void testVisitProjection() {
+        List<Visit> visits = visitRepository.findAll().stream().sorted(Comparator.comparing(Visit::getId)).toList();
+        assertEquals(visitMapper.mapToDtoList(visits), visitRepository.findPageAfter(0L, ALL));
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.entities.Pet;
+import com.tecsup.petclinic.util.JdbcCountingConfig;
+import com.tecsup.petclinic.util.JdbcExecutionCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(JdbcCountingConfig.class)
+@Slf4j
+public class PetRepositoryBatchTest {
+
+	private static final int BATCH_SIZE = 50;
+
+	@Autowired
+	private PetRepository petRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcExecutionCounter counter;
+
+	/**
+	 * N inserts in one transaction must reach the database
+	 * as N / BATCH_SIZE JDBC batches
+	 */
+	@Test
+	public void testInsertsAreBatched() {
+
+		int N = 4 * BATCH_SIZE;
+
+		List<Pet> pets = new ArrayList<>();
+		for (int i = 0; i < N; i++)
+			pets.add(new Pet("Batch" + i, 1, 1, null));
+
+		counter.reset();
+
+		List<Pet> saved = transactionTemplate.execute(status -> petRepository.saveAll(pets));
+
+		long inserts = counter.countStatements("insert into pets");
+		long executions = counter.countExecutions("insert into pets");
+		long idRoundTrips = counter.countExecutions("update id_sequences");
+
+		log.info("{} inserts in {} executions, {} id allocations", inserts, executions, idRoundTrips);
+
+		assertEquals(N, inserts);
+		assertEquals(N / BATCH_SIZE, executions);
+		assertTrue(idRoundTrips <= N / BATCH_SIZE + 1);
+
+		petRepository.deleteAllInBatch(saved);
+	}
+}
@@ -0,0 +1,105 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.entities.Specialty;
+import com.tecsup.petclinic.entities.Vet;
+import com.tecsup.petclinic.services.VetService;
+import com.tecsup.petclinic.util.JdbcCountingConfig;
+import com.tecsup.petclinic.util.JdbcExecutionCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reference data read a second time, in a new session, must not reach the database
+ */
+@SpringBootTest
+@Import(JdbcCountingConfig.class)
+@Slf4j
+public class SecondLevelCacheTest {
+
+	@Autowired
+	private VetRepository vetRepository;
+
+	@Autowired
+	private SpecialtyRepository specialtyRepository;
+
+	@Autowired
+	private PetTypeRepository petTypeRepository;
+
+	@Autowired
+	private VetService vetService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcExecutionCounter counter;
+
+	@Test
+	public void testVetSpecialtiesAreCached() {
+
+		Set<String> first = transactionTemplate.execute(status -> specialtyNames(3));
+
+		counter.reset();
+		Set<String> second = transactionTemplate.execute(status -> specialtyNames(3));
+
+		assertEquals(Set.of("surgery", "dentistry"), second);
+		assertEquals(first, second);
+		assertEquals(0, counter.countSelectsOn("vet_specialties"));
+		assertEquals(0, counter.countSelectsOn("specialties"));
+	}
+
+	@Test
+	public void testSpecialtyAssignmentEvictsVetSpecialties() throws Exception {
+
+		transactionTemplate.execute(status -> specialtyNames(2));
+		try {
+			vetService.assignSpecialties(2, List.of(1, 3));
+
+			counter.reset();
+			Set<String> assigned = transactionTemplate.execute(status -> specialtyNames(2));
+
+			assertEquals(Set.of("radiology", "dentistry"), assigned);
+			assertEquals(1, counter.countSelectsOn("vet_specialties"));
+		} finally {
+			vetService.assignSpecialties(2, List.of(1));
+		}
+		assertEquals(Set.of("radiology"), transactionTemplate.execute(status -> specialtyNames(2)));
+	}
+
+	@Test
+	public void testFindSpecialtyByNameIsCached() {
+
+		specialtyRepository.findByName("radiology");
+
+		counter.reset();
+		List<Specialty> specialties = specialtyRepository.findByName("radiology");
+
+		assertEquals(1, specialties.size());
+		assertEquals(0, counter.countSelectsOn("specialties"));
+	}
+
+	@Test
+	public void testPetTypeIsCached() {
+
+		petTypeRepository.findById(2);
+
+		counter.reset();
+		assertEquals("dog", petTypeRepository.findById(2).orElseThrow().getName());
+		assertEquals(0, counter.countSelectsOn("types"));
+	}
+
+	private Set<String> specialtyNames(Integer vetId) {
+		Vet vet = vetRepository.findById(vetId).orElseThrow();
+		return vet.getSpecialties().stream().map(Specialty::getName).collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,59 @@
+package com.tecsup.petclinic.repositories;
+
+import com.tecsup.petclinic.dtos.VisitDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Slf4j
+public class VisitRepositoryTest {
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The history of a pet comes newest first, and the next page
+     * seeks past the last visit read
+     */
+    @Test
+    public void testFindHistory() {
+        List<VisitDTO> first = visitRepository.findHistory(8, Limit.of(1));
+        assertEquals(1, first.size());
+        assertEquals(2L, first.get(0).getId());
+
+        List<VisitDTO> next = visitRepository.findHistoryBefore(8, LocalDate.parse(first.get(0).getVisitDate()),
+                first.get(0).getId(), Limit.of(10));
+        assertEquals(1, next.size());
+        assertEquals(3L, next.get(0).getId());
+
+        assertTrue(visitRepository.findHistoryBefore(8, LocalDate.of(2009, 6, 4), 3L, Limit.of(10)).isEmpty());
+    }
+
+    /**
+     * The history query is read in index order, without a sort step
+     */
+    @Test
+    public void testHistoryUsesIndexOrder() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM visits WHERE pet_id = 8 ORDER BY pet_id, visit_date DESC, id DESC LIMIT 50",
+                String.class);
+        log.info("History plan: {}", plan);
+
+        assertTrue(plan.contains("IDX_VISITS_PET_HISTORY"));
+        assertTrue(plan.contains("index sorted"));
+    }
+
+}
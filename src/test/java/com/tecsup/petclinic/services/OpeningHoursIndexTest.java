@@ -0,0 +1,98 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.OpeningDTO;
+import com.tecsup.petclinic.dtos.SpecialtyDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for OpeningHoursIndex, without a database
+ * @author jgomezm
+ */
+public class OpeningHoursIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 18, 0, 0);
+
+    private static SpecialtyDTO specialty(int id, String name, String office, Integer open, Integer close) {
+        return SpecialtyDTO.builder().id(id).name(name).office(office).openHour(open).closeHour(close).build();
+    }
+
+    private static List<String> open(OpeningHoursIndex index, int hour, String office) {
+        return index.findOpen(DAY.withHour(hour).withMinute(30), office).stream().map(SpecialtyDTO::getName).toList();
+    }
+
+    @Test
+    public void testFindOpenSpecialties() {
+        OpeningHoursIndex index = new OpeningHoursIndex(null);
+        index.put(specialty(1, "radiology", "Farewell", 8, 18));
+        index.put(specialty(2, "surgery", "Maryland", 8, 12));
+        index.put(specialty(3, "dentistry", "Terranova", 9, 19));
+        index.put(specialty(4, "emergency", "Maryland", 20, 6));
+        index.put(specialty(5, "cardiology", null, null, null));
+
+        assertEquals(List.of("radiology", "surgery"), open(index, 8, null));
+        assertEquals(List.of("dentistry", "radiology"), open(index, 12, null));
+        assertEquals(List.of("emergency"), open(index, 23, null));
+        assertEquals(List.of("emergency"), open(index, 5, "maryland"));
+        assertTrue(open(index, 6, "Maryland").isEmpty());
+        assertTrue(open(index, 10, "Lima").isEmpty());
+        assertEquals(5, index.size());
+
+        // Surgery moves to the afternoon, in another office
+        index.put(specialty(2, "surgery", "Farewell", 14, 18));
+        assertEquals(List.of("radiology"), open(index, 8, null));
+        assertEquals(List.of("radiology", "surgery"), open(index, 15, "FAREWELL"));
+        assertTrue(open(index, 10, "Maryland").isEmpty());
+
+        index.remove(1);
+        assertEquals(List.of("surgery"), open(index, 15, "Farewell"));
+        index.remove(2);
+        assertTrue(open(index, 15, "Farewell").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testFindNextOpening() {
+        OpeningHoursIndex index = new OpeningHoursIndex(null);
+        index.put(specialty(2, "surgery", "Maryland", 8, 12));
+        index.put(specialty(4, "emergency", "Maryland", 20, 6));
+        index.put(specialty(6, "daycare", "Maryland", 0, 24));
+        index.put(specialty(5, "cardiology", null, null, null));
+
+        OpeningDTO surgery = index.findNextOpening(2, DAY.withHour(7)).orElseThrow();
+        assertFalse(surgery.isOpen());
+        assertEquals("2026-10-18T08:00", surgery.getOpensAt());
+        assertEquals("2026-10-18T12:00", surgery.getClosesAt());
+
+        surgery = index.findNextOpening(2, DAY.withHour(13)).orElseThrow();
+        assertEquals("2026-10-19T08:00", surgery.getOpensAt());
+
+        surgery = index.findNextOpening(2, DAY.withHour(9).withMinute(15)).orElseThrow();
+        assertTrue(surgery.isOpen());
+        assertEquals("2026-10-18T09:15", surgery.getOpensAt());
+        assertEquals("2026-10-18T12:00", surgery.getClosesAt());
+
+        // Past midnight
+        OpeningDTO emergency = index.findNextOpening(4, DAY.withHour(22)).orElseThrow();
+        assertTrue(emergency.isOpen());
+        assertEquals("2026-10-19T06:00", emergency.getClosesAt());
+        emergency = index.findNextOpening(4, DAY.withHour(12)).orElseThrow();
+        assertEquals("2026-10-18T20:00", emergency.getOpensAt());
+        assertEquals("2026-10-19T06:00", emergency.getClosesAt());
+
+        assertEquals("2026-10-19T00:00", index.findNextOpening(6, DAY.withHour(12)).orElseThrow().getClosesAt());
+
+        OpeningDTO cardiology = index.findNextOpening(5, DAY).orElseThrow();
+        assertFalse(cardiology.isOpen());
+        assertNull(cardiology.getOpensAt());
+        assertTrue(index.findNextOpening(99, DAY).isEmpty());
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.NameSuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for PetNameIndex, without a database
+ * @author jgomezm
+ */
+public class PetNameIndexTest {
+
+    private static List<String> names(List<NameSuggestionDTO> suggestions) {
+        return suggestions.stream().map(NameSuggestionDTO::getName).toList();
+    }
+
+    @Test
+    public void testSuggestInOrderAndBounded() {
+        PetNameIndex index = new PetNameIndex(null);
+        for (String name : List.of("Max", "Maxwell", "Mango", "Milo", "Leo", "Maya"))
+            index.add(name);
+
+        assertEquals(List.of("Mango", "Max", "Maxwell", "Maya"), names(index.suggest("ma", 10)));
+        assertEquals(List.of("Mango", "Max"), names(index.suggest("MA", 2)));
+        assertEquals(List.of("Max", "Maxwell"), names(index.suggest("max", 10)));
+        assertTrue(index.suggest("z", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.suggest(" ", 10));
+    }
+
+    @Test
+    public void testSpellingsShareOneEntry() {
+        PetNameIndex index = new PetNameIndex(null);
+        index.add("Chloé");
+        index.add("chloe");
+        index.add(" CHLOE ");
+
+        List<NameSuggestionDTO> suggestions = index.suggest("chlo", 10);
+        assertEquals(1, suggestions.size());
+        assertEquals("Chloé", suggestions.get(0).getName());
+        assertEquals(3, suggestions.get(0).getPets());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testRemoveAndRename() {
+        PetNameIndex index = new PetNameIndex(null);
+        index.add("Rex");
+        index.add("Rex");
+
+        index.rename("Rex", "Rocky");
+        assertEquals(1, index.suggest("rex", 10).get(0).getPets());
+        assertEquals(List.of("Rocky"), names(index.suggest("ro", 10)));
+
+        index.remove("Rex");
+        assertTrue(index.suggest("rex", 10).isEmpty());
+        assertEquals(1, index.size());
+
+        // Unknown and missing names are ignored
+        index.remove("Ghost");
+        index.add(null);
+        assertEquals(1, index.size());
+    }
+
+}
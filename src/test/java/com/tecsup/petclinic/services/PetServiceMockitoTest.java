@@ -61,6 +61,23 @@ public class PetServiceMockitoTest {
 
     }
 
+    /**
+     * A second lookup of the same id is served by the cache
+     */
+    @Test
+    public void testFindPetByIdCached() throws PetNotFoundException {
+
+        Integer ID = 4242;
+        Mockito.when(this.repository.findById(ID))
+                .thenReturn(Optional.of(new Pet(ID, "Cached", 1, 1, null)));
+
+        PetDTO first = this.petService.findById(ID);
+        PetDTO second = this.petService.findById(ID);
+
+        assertEquals(first, second);
+        Mockito.verify(this.repository, Mockito.times(1)).findById(ID);
+    }
+
     /**
      *
      */
@@ -121,7 +138,7 @@ public class PetServiceMockitoTest {
      * setup in id primary key in your
      * entity this annotation :
      *
-     * @GeneratedValue(strategy = GenerationType.IDENTITY)
+     * @GeneratedValue(strategy = GenerationType.TABLE, generator = "pets_seq")
      */
     @Test
     public void testCreatePet() {
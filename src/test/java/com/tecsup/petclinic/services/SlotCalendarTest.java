@@ -0,0 +1,160 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Unit tests for SlotCalendar, the database mocked
+ * @author jgomezm
+ */
+@Slf4j
+public class SlotCalendarTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 20);
+
+    private static final int THREADS = 8;
+
+    private static SlotCalendar calendar(VisitRepository visitRepository) {
+        return new SlotCalendar(visitRepository, 1000, Duration.ofHours(1));
+    }
+
+    @Test
+    public void testSlots() {
+        assertEquals(48, SlotCalendar.SLOTS);
+        assertEquals(19, SlotCalendar.slot(LocalTime.of(9, 30)));
+        assertEquals(-1, SlotCalendar.slot(LocalTime.of(9, 10)));
+        assertEquals(LocalTime.of(23, 30), SlotCalendar.time(47));
+    }
+
+    @Test
+    public void testClaimAndRelease() {
+        VisitRepository visitRepository = Mockito.mock(VisitRepository.class);
+        Mockito.when(visitRepository.findBookedTimes(eq(DAY), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1, LocalTime.of(8, 0)}));
+        SlotCalendar calendar = calendar(visitRepository);
+
+        assertFalse(calendar.claim(1, DAY, 16));
+        assertTrue(calendar.claim(1, DAY, 17));
+        assertFalse(calendar.claim(1, DAY, 17));
+        assertTrue(calendar.claim(2, DAY, 17));
+        calendar.release(1, DAY, 17);
+        assertTrue(calendar.claim(1, DAY, 17));
+
+        // Both days read already, the third vet alone is read
+        Map<Integer, Long> booked = calendar.booked(List.of(1, 2, 3), DAY);
+        assertEquals((1L << 16) | (1L << 17), booked.get(1));
+        assertEquals(1L << 17, booked.get(2));
+        assertEquals(0L, booked.get(3));
+        Mockito.verify(visitRepository).findBookedTimes(DAY, List.of(3));
+        assertEquals(2, calendar.getConflicts());
+
+        calendar.invalidate(1, DAY);
+        assertEquals(1L << 16, calendar.booked(List.of(1), DAY).get(1));
+    }
+
+    /**
+     * THREADS receptionists book the slots of one vet's day at random: every slot is
+     * booked exactly once, whatever the interleaving
+     */
+    @Test
+    public void testConcurrentBookingsNeverDoubleBook() throws Exception {
+        VisitRepository visitRepository = Mockito.mock(VisitRepository.class);
+        Mockito.when(visitRepository.findBookedTimes(any(), any())).thenReturn(List.of());
+        SlotCalendar calendar = calendar(visitRepository);
+
+        AtomicIntegerArray winners = new AtomicIntegerArray(SlotCalendar.SLOTS);
+        int attempts = 20_000;
+        runConcurrently(() -> {
+            for (int i = 0; i < attempts; i++) {
+                int slot = ThreadLocalRandom.current().nextInt(SlotCalendar.SLOTS);
+                if (calendar.claim(1, DAY, slot))
+                    winners.incrementAndGet(slot);
+            }
+        });
+
+        for (int slot = 0; slot < SlotCalendar.SLOTS; slot++)
+            assertEquals(1, winners.get(slot), "slot " + slot);
+        assertEquals(SlotCalendar.SLOTS, calendar.getClaims());
+        assertEquals(THREADS * attempts - SlotCalendar.SLOTS, calendar.getConflicts());
+    }
+
+    /**
+     * Bookings cancelled right away keep the few slots of a popular vet changing hands:
+     * a slot never has two holders at once, and the attempts never wait on a lock
+     */
+    @Test
+    public void testContendedSlotsHaveOneHolder() throws Exception {
+        VisitRepository visitRepository = Mockito.mock(VisitRepository.class);
+        Mockito.when(visitRepository.findBookedTimes(any(), any())).thenReturn(List.of());
+        SlotCalendar calendar = calendar(visitRepository);
+
+        int slots = 4;
+        AtomicIntegerArray holders = new AtomicIntegerArray(slots);
+        LongAdder overlaps = new LongAdder();
+        LongAdder booked = new LongAdder();
+        int attempts = 50_000;
+        long start = System.nanoTime();
+        runConcurrently(() -> {
+            for (int i = 0; i < attempts; i++) {
+                int slot = ThreadLocalRandom.current().nextInt(slots);
+                if (!calendar.claim(7, DAY, slot))
+                    continue;
+                booked.increment();
+                if (holders.incrementAndGet(slot) != 1)
+                    overlaps.increment();
+                holders.decrementAndGet(slot);
+                calendar.release(7, DAY, slot);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("{} booking attempts in {} ms ({} per second), {} booked, {} CAS retries", THREADS * attempts,
+                Math.round(seconds * 1000), Math.round(THREADS * attempts / seconds), booked.sum(), calendar.getRetries());
+        assertEquals(0, overlaps.sum());
+        assertEquals(THREADS * attempts, calendar.getClaims() + calendar.getConflicts());
+        assertTrue(booked.sum() > 0);
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+                done.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            start.countDown();
+            for (Future<?> future : done)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.repositories.VetRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for VetSpecialtyIndex, without a database
+ * @author jgomezm
+ */
+public class VetSpecialtyIndexTest {
+
+    @Test
+    public void testFindVetsWithAllSpecialties() {
+        VetSpecialtyIndex index = new VetSpecialtyIndex(null);
+        index.put(2, List.of("radiology"));
+        index.put(3, List.of("surgery", "dentistry"));
+        index.put(4, List.of("surgery"));
+        index.put(1, List.of());
+
+        assertEquals(List.of(3, 4), index.findAll(List.of("surgery"), 10));
+        assertEquals(List.of(3), index.findAll(List.of("Surgery", " DENTISTRY"), 10));
+        assertEquals(List.of(3), index.findAll(List.of("surgery"), 1));
+        assertTrue(index.findAll(List.of("surgery", "radiology"), 10).isEmpty());
+        assertTrue(index.findAll(List.of("surgery", "cardiology"), 10).isEmpty());
+        assertEquals(List.of("dentistry", "surgery"), index.specialtiesOf(3));
+        assertTrue(index.specialtiesOf(1).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Specialties beyond the first 64 take a second word
+     */
+    @Test
+    public void testManySpecialties() {
+        VetSpecialtyIndex index = new VetSpecialtyIndex(null);
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 70; i++)
+            all.add("specialty " + i);
+        index.put(1, all);
+        index.put(2, List.of("specialty 1", "specialty 69"));
+        index.put(3, List.of("specialty 69"));
+
+        assertEquals(List.of(1, 2), index.findAll(List.of("specialty 1", "specialty 69"), 10));
+        assertEquals(List.of(1, 2, 3), index.findAll(List.of("specialty 69"), 10));
+        assertEquals(70, index.specialtiesOf(1).size());
+    }
+
+    @Test
+    public void testWritesAreApplied() {
+        VetSpecialtyIndex index = new VetSpecialtyIndex(null);
+        index.put(3, List.of("surgery", "dentistry"));
+        index.put(4, List.of("surgery"));
+
+        index.put(4, List.of("surgery", "dentistry"));
+        assertEquals(List.of(3, 4), index.findAll(List.of("dentistry"), 10));
+
+        index.remove(3);
+        assertEquals(List.of(4), index.findAll(List.of("surgery"), 10));
+
+        index.renameSpecialty("surgery", "Orthopedics");
+        assertTrue(index.findAll(List.of("surgery"), 10).isEmpty());
+        assertEquals(List.of("Orthopedics", "dentistry"), index.specialtiesOf(4));
+
+        index.removeSpecialty("dentistry");
+        assertTrue(index.findAll(List.of("dentistry"), 10).isEmpty());
+        assertEquals(List.of("Orthopedics"), index.specialtiesOf(4));
+    }
+
+    /**
+     * A specialty renamed to the name of another one: vets of both are found by that name
+     */
+    @Test
+    public void testRenameToTakenName() {
+        VetRepository vetRepository = Mockito.mock(VetRepository.class);
+        Mockito.when(vetRepository.findAllSpecialtyNames()).thenReturn(List.of(
+                new Object[]{2, "radiology"}, new Object[]{3, "Radiology"}));
+        VetSpecialtyIndex index = new VetSpecialtyIndex(vetRepository);
+        index.put(2, List.of("radiology"));
+        index.put(3, List.of("surgery"));
+
+        index.renameSpecialty("surgery", "Radiology");
+
+        assertEquals(List.of(2, 3), index.findAll(List.of("radiology"), 10));
+        assertTrue(index.findAll(List.of("surgery"), 10).isEmpty());
+    }
+
+    /**
+     * A vet updated while the index is read again: its write waits for the reload
+     * and is not lost
+     */
+    @Test
+    public void testWriteDuringReloadIsKept() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        VetRepository vetRepository = Mockito.mock(VetRepository.class);
+        Mockito.when(vetRepository.findAllSpecialtyNames()).thenAnswer(invocation -> {
+            reading.countDown();
+            committed.await(10, TimeUnit.SECONDS);
+            return List.<Object[]>of(new Object[]{2, "radiology"});
+        });
+        VetSpecialtyIndex index = new VetSpecialtyIndex(vetRepository);
+
+        Thread reload = new Thread(index::load);
+        reload.start();
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+        Thread write = new Thread(() -> index.put(3, List.of("surgery")));
+        write.start();
+        while (write.getState() != Thread.State.BLOCKED && write.isAlive())
+            Thread.onSpinWait();
+        committed.countDown();
+        reload.join(10_000);
+        write.join(10_000);
+
+        assertEquals(List.of("radiology"), index.specialtiesOf(2));
+        assertEquals(List.of("surgery"), index.specialtiesOf(3));
+    }
+
+}
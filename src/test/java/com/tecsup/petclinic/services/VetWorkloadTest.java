@@ -0,0 +1,198 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Unit tests for VetWorkload, the database mocked
+ * @author jgomezm
+ */
+@Slf4j
+public class VetWorkloadTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private static final int THREADS = 8;
+
+    private static VetWorkload workload(VisitRepository visitRepository, int surgeons) {
+        VetSpecialtyIndex index = new VetSpecialtyIndex(null);
+        index.put(1, List.of("radiology"));
+        for (int vetId = 2; vetId < 2 + surgeons; vetId++)
+            index.put(vetId, List.of("surgery"));
+        return new VetWorkload(visitRepository, index, Duration.ZERO);
+    }
+
+    private static VisitRepository visits(Object[]... rows) {
+        VisitRepository visitRepository = Mockito.mock(VisitRepository.class);
+        Mockito.when(visitRepository.countVisitsByVetFrom(any())).thenReturn(List.of(rows));
+        return visitRepository;
+    }
+
+    @Test
+    public void testAssignLeastLoaded() {
+        VetWorkload workload = workload(visits(new Object[]{2, 3L}, new Object[]{3, 1L}, new Object[]{4, 2L}), 3);
+        workload.reconcile();
+
+        assertEquals(3, workload.assign("surgery").get());
+        // 3 and 4 now both have 2 visits
+        List<Integer> next = List.of(workload.assign("Surgery").get(), workload.assign("surgery").get());
+        assertTrue(next.containsAll(List.of(3, 4)), next.toString());
+        assertEquals(3, workload.load(3));
+        assertEquals(3, workload.load(4));
+        assertTrue(workload.assign("cardiology").isEmpty());
+        assertEquals(3, workload.getAssignments());
+
+        // Past visits are no workload once stored
+        workload.add(1, TODAY.minusDays(1), 1);
+        assertEquals(0, workload.load(1));
+        workload.queued(1);
+        assertEquals(1, workload.load(1));
+        workload.stored(1, TODAY.minusDays(1));
+        assertEquals(0, workload.load(1));
+        workload.add(null, TODAY, 1);
+    }
+
+    /**
+     * The stored counts are set back to visits; queued visits, not in visits yet, are kept
+     */
+    @Test
+    public void testReconcile() {
+        VisitRepository visitRepository = visits(new Object[]{2, 5L});
+        VetWorkload workload = workload(visitRepository, 2);
+        workload.add(2, TODAY, 1);
+        workload.add(3, TODAY, 4);
+
+        workload.reconcile();
+        assertEquals(5, workload.load(2));
+        assertEquals(0, workload.load(3));
+
+        // Assigned, still in the ingestion queue
+        assertEquals(3, workload.assign("surgery").get());
+        workload.queued(2);
+        workload.reconcile();
+        assertEquals(6, workload.load(2));
+        assertEquals(1, workload.load(3));
+
+        // Committed: stored now, and in visits
+        workload.stored(2, TODAY);
+        workload.stored(3, TODAY);
+        Mockito.when(visitRepository.countVisitsByVetFrom(any()))
+                .thenReturn(List.of(new Object[]{2, 6L}, new Object[]{3, 1L}));
+        workload.reconcile();
+        assertEquals(6, workload.load(2));
+        assertEquals(1, workload.load(3));
+    }
+
+    /**
+     * A visit committed while the count runs may or may not be in it: that vet is left
+     * for the next reconcile
+     */
+    @Test
+    public void testReconcileLeavesVetsChangingDuringTheCount() {
+        VisitRepository visitRepository = visits(new Object[]{2, 5L});
+        VetWorkload workload = workload(visitRepository, 2);
+        workload.reconcile();
+
+        Mockito.when(visitRepository.countVisitsByVetFrom(any())).thenAnswer(invocation -> {
+            workload.add(2, TODAY, 1);
+            return List.<Object[]>of(new Object[]{2, 6L}, new Object[]{3, 2L});
+        });
+        workload.reconcile();
+        assertEquals(6, workload.load(2));
+        assertEquals(2, workload.load(3));
+
+        Mockito.when(visitRepository.countVisitsByVetFrom(any()))
+                .thenReturn(List.of(new Object[]{2, 6L}, new Object[]{3, 2L}));
+        workload.reconcile();
+        assertEquals(6, workload.load(2));
+    }
+
+    /**
+     * A vet storing visits during every count is still corrected, every MAX_SKIPS reconciles
+     */
+    @Test
+    public void testReconcileBusyVet() {
+        VisitRepository visitRepository = visits();
+        VetWorkload workload = workload(visitRepository, 2);
+        // Drifted: 10 visits counted that visits does not have
+        workload.add(2, TODAY, 10);
+
+        long[] committed = {0};
+        Mockito.when(visitRepository.countVisitsByVetFrom(any())).thenAnswer(invocation -> {
+            workload.add(2, TODAY, 1);
+            return List.<Object[]>of(new Object[]{2, ++committed[0]});
+        });
+        for (int i = 1; i < VetWorkload.MAX_SKIPS; i++) {
+            workload.reconcile();
+            assertEquals(10 + committed[0], workload.load(2));
+        }
+        workload.reconcile();
+        // Off by at most the visit stored during that count
+        assertTrue(Math.abs(workload.load(2) - committed[0]) <= 1, workload.load(2) + " for " + committed[0]);
+    }
+
+    /**
+     * THREADS receptionists assign visits at once: the vets end up with the same workload,
+     * give or take the assignments made at the same moment
+     */
+    @Test
+    public void testConcurrentAssignmentsBalance() throws Exception {
+        int surgeons = 10;
+        VetWorkload workload = workload(visits(), surgeons);
+        workload.reconcile();
+
+        int attempts = 20_000;
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+                done.add(executor.submit(() -> {
+                    ready.await();
+                    for (int i = 0; i < attempts; i++)
+                        workload.assign("surgery");
+                    return null;
+                }));
+            ready.countDown();
+            for (Future<?> future : done)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = 0;
+        long least = Long.MAX_VALUE;
+        long most = 0;
+        for (int vetId = 2; vetId < 2 + surgeons; vetId++) {
+            long load = workload.load(vetId);
+            total += load;
+            least = Math.min(least, load);
+            most = Math.max(most, load);
+        }
+        log.info("{} assignments in {} ms ({} per second), workloads {} to {}", THREADS * attempts,
+                Math.round(seconds * 1000), Math.round(THREADS * attempts / seconds), least, most);
+        assertEquals(THREADS * attempts, total);
+        assertEquals(THREADS * attempts, workload.getAssignments());
+        assertTrue(most - least <= THREADS, least + " to " + most);
+        assertEquals(0, workload.load(1));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.exceptions.VisitQueueFullException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Backpressure of VisitIngestionBuffer. The writer is not started, so nothing drains the queue
+ */
+public class VisitIngestionBufferTest {
+
+    @Test
+    public void testRefusesWhenStopped() throws Exception {
+
+        VisitIngestionBuffer buffer = newBuffer(3);
+        buffer.stop();
+
+        assertThrows(VisitQueueFullException.class, () -> buffer.submit(List.of(visit())));
+    }
+
+    @Test
+    public void testBulkIsAllOrNothing() throws Exception {
+
+        VisitIngestionBuffer buffer = newBuffer(3);
+
+        buffer.submit(List.of(visit(), visit()));
+        assertThrows(VisitQueueFullException.class, () -> buffer.submit(List.of(visit(), visit())));
+        buffer.submit(List.of(visit()));
+        assertThrows(VisitQueueFullException.class, () -> buffer.submit(List.of(visit())));
+
+        assertEquals(3, buffer.getStats().getQueued());
+        assertEquals(3, buffer.getStats().getRowsRejected());
+    }
+
+    /**
+     * What the writer does when interrupted: the queued visits fail and free their room
+     */
+    @Test
+    public void testQueuedVisitsFailWhenWriterStops() throws Exception {
+
+        VisitIngestionBuffer buffer = newBuffer(3);
+        List<CompletableFuture<VisitDTO>> acks = buffer.submit(List.of(visit(), visit()));
+
+        buffer.failQueued(new InterruptedException());
+
+        acks.forEach(ack -> assertTrue(ack.isCompletedExceptionally()));
+        assertEquals(0, buffer.getStats().getQueued());
+        assertThrows(VisitQueueFullException.class, () -> buffer.submit(List.of(visit())));
+    }
+
+    /**
+     * Visits still queued when stop returns, the writer gone or too slow, fail as well
+     */
+    @Test
+    public void testQueuedVisitsFailOnStop() throws Exception {
+
+        VisitIngestionBuffer buffer = newBuffer(3);
+        List<CompletableFuture<VisitDTO>> acks = buffer.submit(List.of(visit(), visit()));
+
+        buffer.stop();
+
+        acks.forEach(ack -> assertTrue(ack.isCompletedExceptionally()));
+        assertEquals(0, buffer.getStats().getQueued());
+    }
+
+    private static VisitIngestionBuffer newBuffer(int capacity) {
+        return new VisitIngestionBuffer(null, null, (TransactionTemplate) null, capacity, 10, Duration.ofMillis(10));
+    }
+
+    private static VisitDTO visit() {
+        return new VisitDTO(null, 1, "2024-01-01", "queued", null, null);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tecsup.petclinic.services;
+
+import com.tecsup.petclinic.dtos.VisitBulkResultDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import com.tecsup.petclinic.util.JdbcCountingConfig;
+import com.tecsup.petclinic.util.JdbcExecutionCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(JdbcCountingConfig.class)
+@Slf4j
+public class VisitServiceTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private JdbcExecutionCounter counter;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    /**
+     * Visits submitted together reach the database as JDBC batches
+     */
+    @Test
+    public void testSubmittedVisitsAreBatched() throws Exception {
+
+        int N = 4 * BATCH_SIZE;
+        List<VisitDTO> visits = new ArrayList<>();
+        for (int i = 0; i < N; i++)
+            visits.add(new VisitDTO(null, 1 + i % 13, "2024-02-01", "batched " + i, null, null));
+
+        counter.reset();
+        VisitBulkResultDTO result = visitService.submitAll(visits).get(10, TimeUnit.SECONDS);
+
+        try {
+            long executions = counter.countExecutions("insert into visits");
+            log.info("{} visits stored in {} insert executions", result.getVisits().size(), executions);
+
+            assertEquals(N, result.getVisits().size());
+            assertEquals(0, result.getErrors().size());
+            assertTrue(executions <= N / BATCH_SIZE + 1);
+        } finally {
+            // The pets' histories are read by other tests of the same database
+            visitRepository.deleteAllByIdInBatch(result.getVisits().stream().map(VisitDTO::getId).toList());
+        }
+    }
+
+}
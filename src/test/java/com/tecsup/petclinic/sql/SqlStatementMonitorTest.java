@@ -0,0 +1,67 @@
+package com.tecsup.petclinic.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for SqlStatementMonitor
+ */
+public class SqlStatementMonitorTest {
+
+	private static void run(SqlStatementMonitor monitor, String sql) {
+		monitor.afterQuery(new ExecutionInfo(), List.of(new QueryInfo(sql)));
+	}
+
+	/**
+	 * One select per row of a list is flagged once, by the call where it happens
+	 */
+	@Test
+	public void testFlagsRepeatedSelect() {
+
+		SqlStatementMonitor monitor = new SqlStatementMonitor(10, 3);
+
+		try (SqlStatementMonitor.Scope request = monitor.openRequest("GET /vets")) {
+			try (SqlStatementMonitor.Scope call = monitor.openCall("VetServiceImpl.findPage")) {
+				run(monitor, "select v.id from vets v");
+				for (int vet = 0; vet < 3; vet++)
+					run(monitor, "select s.name from vet_specialties s where s.vet_id=?");
+				assertEquals(4, call.getStatements());
+			}
+			assertEquals(4, request.getStatements());
+		}
+
+		assertEquals(1, monitor.getFlagged());
+	}
+
+	/**
+	 * Distinct statements are flagged only beyond the request budget
+	 */
+	@Test
+	public void testFlagsRequestOverBudget() {
+
+		SqlStatementMonitor monitor = new SqlStatementMonitor(2, 3);
+
+		try (SqlStatementMonitor.Scope request = monitor.openRequest("GET /owners/search")) {
+			run(monitor, "select o.id from owners o where o.last_name_norm like ?");
+			run(monitor, "select o.id from owners o where o.first_name_norm like ?");
+		}
+		assertEquals(0, monitor.getFlagged());
+
+		try (SqlStatementMonitor.Scope request = monitor.openRequest("PUT /owners/10")) {
+			run(monitor, "select o.id from owners o where o.id=?");
+			run(monitor, "update owners set city=? where id=?");
+			run(monitor, "update owners set telephone=? where id=?");
+		}
+		assertEquals(1, monitor.getFlagged());
+
+		// Nothing is counted outside a scope
+		run(monitor, "select 1");
+		assertEquals(1, monitor.getFlagged());
+	}
+
+}
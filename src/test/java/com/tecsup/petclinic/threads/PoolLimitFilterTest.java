@@ -0,0 +1,80 @@
+package com.tecsup.petclinic.threads;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for PoolLimitFilter
+ */
+public class PoolLimitFilterTest {
+
+	/**
+	 * With every permit held, the next request is rejected with 503 after the timeout
+	 */
+	@Test
+	public void testRejectsWhenSaturated() throws Exception {
+
+		PoolLimitFilter filter = new PoolLimitFilter(1, 50);
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Thread holder = new Thread(() -> {
+			try {
+				filter.doFilter(new MockHttpServletRequest("GET", "/pets/1"), new MockHttpServletResponse(),
+						(req, res) -> {
+							entered.countDown();
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						});
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		holder.start();
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/owners"), rejected, (req, res) -> {
+		});
+
+		assertEquals(503, rejected.getStatus());
+		assertEquals("1", rejected.getHeader("Retry-After"));
+		assertEquals(1, filter.getInFlight());
+		assertEquals(1, filter.getRejected());
+
+		release.countDown();
+		holder.join();
+
+		MockHttpServletResponse admitted = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/owners"), admitted, (req, res) -> {
+		});
+		assertEquals(200, admitted.getStatus());
+		assertEquals(0, filter.getInFlight());
+	}
+
+	/**
+	 * Admin endpoints stay reachable when the pool is saturated
+	 */
+	@Test
+	public void testAdminIsNotLimited() throws Exception {
+
+		PoolLimitFilter filter = new PoolLimitFilter(0, 0);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/admin/threads"), response, (req, res) -> {
+		});
+
+		assertEquals(200, response.getStatus());
+		assertEquals(0, filter.getRejected());
+	}
+}
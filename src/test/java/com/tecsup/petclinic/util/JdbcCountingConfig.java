@@ -0,0 +1,37 @@
+package com.tecsup.petclinic.util;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource so tests can count JDBC executions and connections
+ */
+@TestConfiguration
+public class JdbcCountingConfig {
+
+	@Bean
+	public JdbcExecutionCounter jdbcExecutionCounter() {
+		return new JdbcExecutionCounter();
+	}
+
+	@Bean
+	public static BeanPostProcessor countingDataSourcePostProcessor(ObjectProvider<JdbcExecutionCounter> counter) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource)
+					return ProxyDataSourceBuilder.create(dataSource)
+							.name(beanName)
+							.listener(counter.getObject())
+							.methodListener(counter.getObject())
+							.build();
+				return bean;
+			}
+		};
+	}
+}
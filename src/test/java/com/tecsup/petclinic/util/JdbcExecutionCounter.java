@@ -0,0 +1,115 @@
+package com.tecsup.petclinic.util;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Records every JDBC execution seen by the proxied DataSource.
+ * A batch counts as one execution of batchSize statements.
+ * Connections handed out by the DataSource are counted too.
+ */
+public class JdbcExecutionCounter implements QueryExecutionListener, MethodExecutionListener {
+
+	private final List<Execution> executions = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong connections = new AtomicLong();
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		for (QueryInfo queryInfo : queryInfoList) {
+			int statements = execInfo.isBatch() ? Math.max(execInfo.getBatchSize(), 1) : 1;
+			executions.add(new Execution(queryInfo.getQuery().trim().toLowerCase(Locale.ROOT), statements));
+		}
+	}
+
+	@Override
+	public void beforeMethod(MethodExecutionContext executionContext) {
+	}
+
+	@Override
+	public void afterMethod(MethodExecutionContext executionContext) {
+		if (executionContext.getTarget() instanceof DataSource
+				&& executionContext.getMethod().getName().equals("getConnection")
+				&& executionContext.getThrown() == null)
+			connections.incrementAndGet();
+	}
+
+	public void reset() {
+		executions.clear();
+		connections.set(0);
+	}
+
+	/**
+	 * Connections acquired from the DataSource since the last reset
+	 */
+	public long countConnections() {
+		return connections.get();
+	}
+
+	/**
+	 * Round-trips since the last reset, whatever the statement
+	 */
+	public long countExecutions() {
+		return executions.size();
+	}
+
+	/**
+	 * Times the most repeated select ran since the last reset,
+	 * more than one usually means one query per row of a previous result
+	 */
+	public long maxSelectRepeats() {
+		return executions.stream()
+				.filter(e -> e.sql().startsWith("select"))
+				.collect(Collectors.groupingBy(Execution::sql, Collectors.counting()))
+				.values().stream().mapToLong(Long::longValue).max().orElse(0);
+	}
+
+	/**
+	 * SQL of every round-trip since the last reset, in order
+	 */
+	public List<String> executedSql() {
+		return executions.stream().map(Execution::sql).toList();
+	}
+
+	/**
+	 * Round-trips whose SQL starts with the prefix
+	 */
+	public long countExecutions(String sqlPrefix) {
+		return executions.stream().filter(e -> e.sql().startsWith(sqlPrefix)).count();
+	}
+
+	/**
+	 * Selects reading the table, directly or through a join
+	 */
+	public long countSelectsOn(String table) {
+		String from = " from " + table + " ";
+		String join = " join " + table + " ";
+		return executions.stream()
+				.filter(e -> e.sql().startsWith("select") && (e.sql().contains(from) || e.sql().contains(join)))
+				.count();
+	}
+
+	/**
+	 * Statements whose SQL starts with the prefix, counting each entry of a batch
+	 */
+	public long countStatements(String sqlPrefix) {
+		return executions.stream().filter(e -> e.sql().startsWith(sqlPrefix)).mapToLong(Execution::statements).sum();
+	}
+
+	private record Execution(String sql, int statements) {
+	}
+}
@@ -0,0 +1,230 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.entities.Pet;
+import com.tecsup.petclinic.entities.Visit;
+import com.tecsup.petclinic.repositories.VisitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for AppointmentController.
+ * Every test books its own day, far enough ahead to always be in the future
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+public class AppointmentControllerTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    private static VisitDTO appointment(int vetId, LocalDate date, String time) {
+        return VisitDTO.builder().petId(1).vetId(vetId).visitDate(date.toString()).visitTime(time)
+                .description("appointment").build();
+    }
+
+    private int book(VisitDTO visit) throws Exception {
+        return mockMvc.perform(post("/appointments")
+                        .content(om.writeValueAsString(visit))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getStatus();
+    }
+
+    /**
+     * Test book an appointment, then the same slot again
+     * @throws Exception
+     */
+    @Test
+    public void testBookAppointment() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(40);
+
+        String response = mockMvc.perform(post("/appointments")
+                        .content(om.writeValueAsString(appointment(3, date, "09:30")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.visitTime", is("09:30")))
+                .andExpect(jsonPath("$.vetId", is(3)))
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.parse(response).read("$.id");
+
+        assertEquals(409, book(appointment(3, date, "09:30")));
+        assertEquals(201, book(appointment(4, date, "09:30")));
+        mockMvc.perform(get("/visits/" + id))
+                .andExpect(jsonPath("$.visitTime", is("09:30")));
+
+        // Cancelled, the slot is free again
+        mockMvc.perform(delete("/visits/" + id)).andExpect(status().isOk());
+        assertEquals(201, book(appointment(3, date, "09:30")));
+    }
+
+    /**
+     * Test bookings refused before any slot is taken
+     * @throws Exception
+     */
+    @Test
+    public void testBookAppointmentKO() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(41);
+
+        assertEquals(404, book(appointment(1000, date, "10:00")));
+        assertEquals(400, book(appointment(3, date, "10:10")));
+        assertEquals(400, book(appointment(3, date, null)));
+        assertEquals(400, book(appointment(3, LocalDate.now().minusDays(1), "10:00")));
+
+        VisitDTO unknownPet = appointment(3, date, "10:00");
+        unknownPet.setPetId(999999);
+        assertEquals(404, book(unknownPet));
+        assertEquals(201, book(appointment(3, date, "10:00")));
+
+        // Visits queued through POST /visits are never appointments
+        MvcResult queued = mockMvc.perform(post("/visits")
+                        .content(om.writeValueAsString(appointment(3, date, "11:00")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(queued))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * A visit stored without the calendar, as another instance would: the unique index
+     * refuses the booking, and the calendar remembers the slot as taken
+     * @throws Exception
+     */
+    @Test
+    public void testSlotBookedElsewhere() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(42);
+        mockMvc.perform(get("/specialties/2/free-slots").param("date", date.toString()))
+                .andExpect(jsonPath("$[0].times", hasItem("11:00")));
+
+        Visit elsewhere = new Visit();
+        Pet pet = new Pet();
+        pet.setId(2);
+        elsewhere.setPet(pet);
+        elsewhere.setVetId(3);
+        elsewhere.setVisitDate(date);
+        elsewhere.setVisitTime(LocalTime.of(11, 0));
+        visitRepository.save(elsewhere);
+
+        assertEquals(409, book(appointment(3, date, "11:00")));
+        mockMvc.perform(get("/specialties/2/free-slots").param("date", date.toString()))
+                .andExpect(jsonPath("$[0].times", not(hasItem("11:00"))));
+    }
+
+    /**
+     * Test find the free slots of the surgeons (vets 3 and 4), open 8 to 12
+     * @throws Exception
+     */
+    @Test
+    public void testFindFreeSlots() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(43);
+        assertEquals(201, book(appointment(3, date, "08:00")));
+        assertEquals(201, book(appointment(4, date, "11:30")));
+        assertEquals(201, book(appointment(4, date, "14:00")));
+
+        mockMvc.perform(get("/specialties/2/free-slots").param("date", date.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].vetId", contains(3, 4)))
+                .andExpect(jsonPath("$[0].times", contains("08:30", "09:00", "09:30", "10:00", "10:30", "11:00", "11:30")))
+                .andExpect(jsonPath("$[1].times", contains("08:00", "08:30", "09:00", "09:30", "10:00", "10:30", "11:00")));
+
+        mockMvc.perform(get("/specialties/2/free-slots").param("date", LocalDate.now().minusDays(1).toString()))
+                .andExpect(jsonPath("$[*]").isEmpty());
+        mockMvc.perform(get("/specialties/1000/free-slots").param("date", date.toString()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/specialties/2/free-slots").param("date", "soon"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Receptionists racing for the same slot of a popular vet: one booking, the others 409
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentBookingsOfOneSlot() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(44);
+        int receptionists = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(receptionists);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < receptionists; i++)
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return book(appointment(2, date, "15:00"));
+                }));
+            start.countDown();
+
+            int booked = 0;
+            int conflicts = 0;
+            for (Future<Integer> status : statuses) {
+                int code = status.get(30, TimeUnit.SECONDS);
+                booked += code == 201 ? 1 : 0;
+                conflicts += code == 409 ? 1 : 0;
+            }
+            assertEquals(1, booked);
+            assertEquals(receptionists - 1, conflicts);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, visitRepository.findBookedTimes(date, List.of(2)).size());
+    }
+
+    /**
+     * Test move an appointment to a vet already booked at that time: 409, the visit unchanged
+     * @throws Exception
+     */
+    @Test
+    public void testMoveAppointmentToBookedSlot() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(45);
+        assertEquals(201, book(appointment(3, date, "10:30")));
+        String response = mockMvc.perform(post("/appointments")
+                        .content(om.writeValueAsString(appointment(4, date, "10:30")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.parse(response).read("$.id");
+
+        VisitDTO moved = VisitDTO.builder().petId(1).vetId(3).visitDate(date.toString())
+                .description("appointment").build();
+        mockMvc.perform(put("/visits/" + id)
+                        .content(om.writeValueAsString(moved))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/visits/" + id))
+                .andExpect(jsonPath("$.vetId", is(4)));
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.tecsup.petclinic.webs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for CacheController
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+public class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test a repeated owner lookup is served from the cache
+     * @throws Exception
+     */
+    @Test
+    public void testOwnerLookupHitsCache() throws Exception {
+        this.mockMvc.perform(get("/owners/3")).andExpect(status().isOk());
+        this.mockMvc.perform(get("/owners/3")).andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", hasItems("owners", "pets", "vets")))
+                .andExpect(jsonPath("$[?(@.name == 'owners')].hitCount", hasItems(greaterThanOrEqualTo(1))))
+                .andExpect(jsonPath("$[?(@.name == 'owners')].size", hasItems(greaterThanOrEqualTo(1))));
+    }
+
+    /**
+     * Test a repeated specialty lookup is served from the second-level cache
+     * @throws Exception
+     */
+    @Test
+    public void testSpecialtyLookupHitsSecondLevelCache() throws Exception {
+        this.mockMvc.perform(get("/specialties/2")).andExpect(status().isOk());
+        this.mockMvc.perform(get("/specialties/2")).andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/admin/caches/hibernate"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].region", hasItems("types", "specialties", "vets-specialties")))
+                .andExpect(jsonPath("$[?(@.region == 'specialties')].hitCount", hasItems(greaterThanOrEqualTo(1))));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.util.JdbcCountingConfig;
+import com.tecsup.petclinic.util.JdbcExecutionCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Each request takes at most one connection: one transaction per service call,
+ * several queries share it, and cache hits take none
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Import(JdbcCountingConfig.class)
+public class ConnectionsPerRequestTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcExecutionCounter counter;
+
+    private long connectionsFor(RequestBuilder request) throws Exception {
+        counter.reset();
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        return counter.countConnections();
+    }
+
+    @Test
+    public void testListAndSearchTakeOneConnection() throws Exception {
+        assertEquals(1, connectionsFor(get("/owners").param("limit", "5")));
+        assertEquals(1, connectionsFor(get("/pets").param("limit", "5")));
+        // Last name and first name queries in one read-only transaction
+        assertEquals(1, connectionsFor(get("/owners/search").param("q", "dav")));
+        assertEquals(1, connectionsFor(get("/pets/8/visits")));
+    }
+
+    @Test
+    public void testCacheHitTakesNoConnection() throws Exception {
+        assertEquals(1, connectionsFor(get("/vets/3")));
+        assertEquals(0, connectionsFor(get("/vets/3")));
+    }
+
+    @Test
+    public void testUpdateTakesOneConnection() throws Exception {
+        // Warm the cache read by the controller before updating
+        connectionsFor(get("/pets/11"));
+        PetDTO pet = PetDTO.builder().name("Freddy").typeId(5).ownerId(9).birthDate("2000-03-09").build();
+        assertEquals(1, connectionsFor(put("/pets/11")
+                .contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsString(pet))));
+
+        connectionsFor(get("/owners/10"));
+        OwnerDTO owner = OwnerDTO.builder().firstName("Carlos").lastName("Estaban")
+                .address("2335 Independence La.").city("Waunakee").telephone("6085555487").build();
+        assertEquals(1, connectionsFor(put("/owners/10")
+                .contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsString(owner))));
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ExportController
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+public class ExportControllerTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test export pets as NDJSON
+     * @throws Exception
+     */
+    @Test
+    public void testExportPetsNdjson() throws Exception {
+        MvcResult mvcResult = this.mockMvc.perform(get("/pets/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        JsonNode first = om.readTree(lines[0]);
+
+        assertTrue(lines.length >= 13);
+        assertEquals(1, first.get("id").asInt());
+        assertEquals("Leo", first.get("name").asText());
+        assertEquals("2000-09-07", first.get("birthDate").asText());
+    }
+
+    /**
+     * Test export owners as CSV
+     * @throws Exception
+     */
+    @Test
+    public void testExportOwnersCsv() throws Exception {
+        MvcResult mvcResult = this.mockMvc.perform(get("/owners/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"));
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\r\n");
+
+        assertEquals("id,firstName,lastName,address,city,telephone", lines[0]);
+        assertEquals("1,George,Franklin,110 W. Liberty St.,Madison,6085551023", lines[1]);
+    }
+
+    /**
+     * Test export visits as NDJSON
+     * @throws Exception
+     */
+    @Test
+    public void testExportVisits() throws Exception {
+        MvcResult mvcResult = this.mockMvc.perform(get("/visits/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk());
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        JsonNode first = om.readTree(lines[0]);
+
+        assertEquals(1, first.get("id").asInt());
+        assertEquals(7, first.get("petId").asInt());
+        assertEquals("2010-03-04", first.get("visitDate").asText());
+        assertEquals(2, first.get("vetId").asInt());
+        assertEquals(45.0, first.get("cost").asDouble());
+    }
+
+    /**
+     * Test export with an unknown format
+     * @throws Exception
+     */
+    @Test
+    public void testExportBadFormat() throws Exception {
+        this.mockMvc.perform(get("/pets/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.tecsup.petclinic.webs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ImportController
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+public class ImportControllerTest {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test import owners, one valid row with a quoted multi-line address and one invalid row
+     * @throws Exception
+     */
+    @Test
+    public void testImportOwners() throws Exception {
+        String csv = "id,firstName,lastName,address,city,telephone\r\n"
+                + "99,Ada,Lovelace,\"12 St James's Square,\nLondon\",London,5551234\r\n"
+                + ",,Nameless,,Lima,\r\n";
+
+        this.mockMvc.perform(post("/owners/import").contentType(TEXT_CSV).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead", is(2)))
+                .andExpect(jsonPath("$.rowsImported", is(1)))
+                .andExpect(jsonPath("$.rowsRejected", is(1)))
+                .andExpect(jsonPath("$.completed", is(true)))
+                .andExpect(jsonPath("$.errors[0].line", is(4)))
+                .andExpect(jsonPath("$.errors[0].message", is("firstName is required")));
+    }
+
+    /**
+     * Test import pets, rows referencing a missing owner or type are rejected
+     * @throws Exception
+     */
+    @Test
+    public void testImportPets() throws Exception {
+        String csv = "name,typeId,ownerId,birthDate\n"
+                + "ImportedCat,1,1,2020-01-31\n"
+                + "ImportedDog,2,1,\n"
+                + "OrphanPet,1,999999,2020-01-31\n"
+                + "AlienPet,999,1,2020-01-31\n"
+                + "BadDatePet,1,1,31/01/2020\n";
+
+        this.mockMvc.perform(post("/pets/import").contentType(TEXT_CSV).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead", is(5)))
+                .andExpect(jsonPath("$.rowsImported", is(2)))
+                .andExpect(jsonPath("$.rowsRejected", is(3)))
+                .andExpect(jsonPath("$.errors[0].message", is("ownerId 999999 does not exist")))
+                .andExpect(jsonPath("$.errors[1].message", is("typeId 999 does not exist")))
+                .andExpect(jsonPath("$.errors[2].line", is(6)));
+
+        // Imported names are suggested, rejected ones are not
+        this.mockMvc.perform(get("/pets/suggest").param("prefix", "imported"))
+                .andExpect(jsonPath("$[0].name", is("ImportedCat")))
+                .andExpect(jsonPath("$[1].name", is("ImportedDog")));
+        this.mockMvc.perform(get("/pets/suggest").param("prefix", "orphan"))
+                .andExpect(jsonPath("$.size()", is(0)));
+    }
+
+    /**
+     * Test import with a malformed record, the rows before it are kept
+     * @throws Exception
+     */
+    @Test
+    public void testImportOwnersMalformed() throws Exception {
+        String csv = "firstName,lastName\n"
+                + "Grace,Hopper\n"
+                + "\"Alan,Turing\n";
+
+        this.mockMvc.perform(post("/owners/import").contentType(TEXT_CSV).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported", is(1)))
+                .andExpect(jsonPath("$.completed", is(false)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)));
+    }
+
+    /**
+     * Test import without the required columns
+     * @throws Exception
+     */
+    @Test
+    public void testImportPetsMissingColumn() throws Exception {
+        this.mockMvc.perform(post("/pets/import").contentType(TEXT_CSV).content("name,ownerId\nLeo,1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+}
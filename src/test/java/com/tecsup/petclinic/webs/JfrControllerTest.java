@@ -0,0 +1,99 @@
+package com.tecsup.petclinic.webs;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for JfrController and the petclinic JFR events
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+public class JfrControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * A recording holds the request, service and repository events of the requests made while it ran
+     * @throws Exception
+     */
+    @Test
+    public void testRecordingHoldsPetclinicEvents(@TempDir Path directory) throws Exception {
+        mockMvc.perform(post("/admin/jfr/stop")).andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/admin/jfr/start"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.settings").value("default"));
+        mockMvc.perform(post("/admin/jfr/start")).andExpect(status().isConflict());
+
+        mockMvc.perform(get("/pets/4")).andExpect(status().isOk());
+        mockMvc.perform(get("/pets").param("limit", "5")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/admin/jfr/stop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("STOPPED"));
+
+        byte[] recording = mockMvc.perform(get("/admin/jfr/recording"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        Path file = Files.write(directory.resolve("petclinic.jfr"), recording);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        RecordedEvent request = only(events, "petclinic.Request", "path", "/pets/{id}");
+        assertEquals("PetController.findById", request.getString("handler"));
+        assertEquals(4, request.getLong("entityId"));
+        assertEquals(200, request.getInt("status"));
+
+        RecordedEvent findById = only(events, "petclinic.ServiceCall", "method", "findById");
+        assertEquals("Pet", findById.getString("entityType"));
+        assertEquals(4, findById.getLong("entityId"));
+        assertEquals(1, findById.getInt("rows"));
+
+        RecordedEvent findPage = only(events, "petclinic.ServiceCall", "method", "findPage");
+        assertEquals(0, findPage.getLong("entityId"));
+        assertEquals(5, findPage.getInt("rows"));
+
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("petclinic.RepositoryQuery")
+                && "PetRepository".equals(event.getString("repository"))
+                && "Pet".equals(event.getString("entityType"))
+                && event.getInt("rows") == 6), "no PetRepository query of the page (limit + 1 rows)");
+    }
+
+    /**
+     * Unknown settings are refused
+     * @throws Exception
+     */
+    @Test
+    public void testUnknownSettings() throws Exception {
+        mockMvc.perform(post("/admin/jfr/start").param("settings", "everything"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String type, String field, String value) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(type) && value.equals(event.getString(field)))
+                .toList();
+        assertEquals(1, matching.size(), type + " " + field + "=" + value + ": " + matching);
+        return matching.get(0);
+    }
+
+}
@@ -46,6 +46,19 @@ public class OwnerControllerTest {
                 .andExpect(jsonPath("$[0].id", is(ID_FIRST_RECORD)));
     }
 
+    /**
+     * Test find owners after a given id
+     * @throws Exception
+     */
+    @Test
+    public void testFindOwnersAfterId() throws Exception {
+        this.mockMvc.perform(get("/owners").param("after", "8").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(9)))
+                .andExpect(jsonPath("$[1].id", is(10)));
+    }
+
     /**
      * Test find owner by id - OK
      * @throws Exception
@@ -112,6 +125,82 @@ public class OwnerControllerTest {
                 .andExpect(jsonPath("$.telephone", is(TELEPHONE)));
     }
 
+    /**
+     * Test search by name prefix, last name matches ranked before first name matches
+     * @throws Exception
+     */
+    @Test
+    public void testSearchOwners() throws Exception {
+        mockMvc.perform(get("/owners/search").param("q", " DAV "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].firstName", is("Betty")))
+                .andExpect(jsonPath("$[1].firstName", is("Harold")))
+                .andExpect(jsonPath("$[2].lastName", is("Schroeder")));
+
+        mockMvc.perform(get("/owners/search").param("q", "dav").param("city", "MADISON"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].firstName", is("David")));
+
+        mockMvc.perform(get("/owners/search").param("q", "dav").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)));
+
+        mockMvc.perform(get("/owners/search").param("city", "monona"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].lastName", is("Black")));
+
+        // Wildcards are matched literally
+        mockMvc.perform(get("/owners/search").param("q", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(0)));
+
+        mockMvc.perform(get("/owners/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test search ignores accents, and follows updates of the name
+     * @throws Exception
+     */
+    @Test
+    public void testSearchOwnersNormalized() throws Exception {
+        OwnerDTO newOwnerDTO = OwnerDTO.builder()
+                .firstName("José")
+                .lastName("Núñez")
+                .address("12 Plaza de Armas")
+                .city("Cusco")
+                .telephone("984123456")
+                .build();
+
+        String response = mockMvc.perform(post("/owners")
+                        .content(om.writeValueAsString(newOwnerDTO))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.parse(response).read("$.id");
+
+        mockMvc.perform(get("/owners/search").param("q", "nun").param("city", "cusco"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].lastName", is("Núñez")));
+
+        newOwnerDTO.setLastName("Quispe");
+        mockMvc.perform(put("/owners/" + id)
+                        .content(om.writeValueAsString(newOwnerDTO))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/owners/search").param("q", "nun").param("city", "cusco"))
+                .andExpect(jsonPath("$.size()", is(0)));
+        mockMvc.perform(get("/owners/search").param("q", "quis").param("city", "Cusco"))
+                .andExpect(jsonPath("$.size()", is(1)));
+
+        mockMvc.perform(delete("/owners/" + id))
+                .andExpect(status().isOk());
+    }
+
     /**
      * Test delete owner
      * @throws Exception
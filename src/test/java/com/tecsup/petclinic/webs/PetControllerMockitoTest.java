@@ -2,6 +2,7 @@ package com.tecsup.petclinic.webs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.PageDTO;
 import com.tecsup.petclinic.dtos.PetDTO;
 import com.tecsup.petclinic.entities.Pet;
 import com.tecsup.petclinic.exceptions.PetNotFoundException;
@@ -70,10 +71,8 @@ public class PetControllerMockitoTest {
 
 		List<PetDTO> petTOs  = TObjectCreator.getAllPetTOs();
 
-		List<Pet> pets  = this.mapper.mapToEntityList(petTOs);
-
-		Mockito.when(petService.findAll())
-				.thenReturn(pets);
+		Mockito.when(petService.findPage(0, KeysetCursor.DEFAULT_LIMIT))
+				.thenReturn(new PageDTO<>(petTOs, false));
 
 		this.mockMvc.perform(get("/pets"))
 				.andExpect(status().isOk())
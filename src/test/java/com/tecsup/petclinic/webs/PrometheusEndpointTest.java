@@ -0,0 +1,46 @@
+package com.tecsup.petclinic.webs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The Prometheus scrape exposes request, service and repository histograms
+ * with their SLO buckets, the pool, Hibernate and JVM metrics
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest
+public class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testScrapeExposesHistograms() throws Exception {
+        mockMvc.perform(get("/owners").param("limit", "5")).andExpect(status().isOk());
+        mockMvc.perform(get("/pets/1")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/admin/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds_bucket{application=\"petclinic\",error=\"none\",exception=\"none\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/pets/{id}\",le=\"0.005\"}")))
+                .andExpect(content().string(containsString(
+                        "petclinic_service_seconds_bucket{application=\"petclinic\",exception=\"none\",method=\"findById\",service=\"PetServiceImpl\",le=\"0.001\"}")))
+                .andExpect(content().string(containsString(
+                        "spring_data_repository_invocations_seconds_bucket{application=\"petclinic\",exception=\"None\",method=\"findPageAfter\",repository=\"OwnerRepository\",state=\"SUCCESS\",le=\"0.001\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("jvm_memory_used_bytes")));
+    }
+
+}
@@ -14,6 +14,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -127,6 +129,90 @@ public class SpecialtyControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    /**
+     * Test find the specialties open at a time, seeded hours
+     * @throws Exception
+     */
+    @Test
+    public void testFindOpenSpecialties() throws Exception {
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T08:30:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("radiology", "surgery")))
+                .andExpect(jsonPath("$[1].office", is("Maryland")))
+                .andExpect(jsonPath("$[1].openHour", is(8)))
+                .andExpect(jsonPath("$[1].closeHour", is(12)));
+
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T12:00:00").param("office", "terranova"))
+                .andExpect(jsonPath("$[*].name", contains("dentistry")));
+
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T23:00:00"))
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/specialties/open"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL));
+
+        mockMvc.perform(get("/specialties/open").param("at", "tomorrow"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test find when a specialty opens next
+     * @throws Exception
+     */
+    @Test
+    public void testFindNextOpening() throws Exception {
+        mockMvc.perform(get("/specialties/2/next-opening").param("at", "2026-10-18T13:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("surgery")))
+                .andExpect(jsonPath("$.open", is(false)))
+                .andExpect(jsonPath("$.opensAt", is("2026-10-19T08:00")))
+                .andExpect(jsonPath("$.closesAt", is("2026-10-19T12:00")));
+
+        mockMvc.perform(get("/specialties/1000/next-opening"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test the opening hours follow the writes to a specialty
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateSpecialtyHours() throws Exception {
+        SpecialtyDTO night = SpecialtyDTO.builder().name("emergency").office("Lima").openHour(20).closeHour(6).build();
+        String response = mockMvc.perform(post("/specialties")
+                        .content(om.writeValueAsString(night))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.parse(response).read("$.id");
+
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T21:00:00").param("office", "lima"))
+                .andExpect(jsonPath("$[*].id", contains(id)));
+
+        // Only the opening hour is sent, office and closing hour are kept
+        mockMvc.perform(put("/specialties/" + id)
+                        .content(om.writeValueAsString(SpecialtyDTO.builder().name("emergency").openHour(22).build()))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.office", is("Lima")))
+                .andExpect(jsonPath("$.closeHour", is(6)));
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T21:00:00").param("office", "lima"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T05:00:00").param("office", "lima"))
+                .andExpect(jsonPath("$[*].id", contains(id)));
+
+        mockMvc.perform(put("/specialties/" + id)
+                        .content(om.writeValueAsString(SpecialtyDTO.builder().name("emergency").closeHour(25).build()))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/specialties/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/specialties/open").param("at", "2026-10-18T05:00:00").param("office", "lima"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     /**
      * Test update specialty
      * @throws Exception
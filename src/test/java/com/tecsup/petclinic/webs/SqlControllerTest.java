@@ -0,0 +1,79 @@
+package com.tecsup.petclinic.webs;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for SqlController, every statement counts as slow
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "petclinic.sql.slow-queries.threshold=0ms")
+public class SqlControllerTest {
+
+    private static final String PET_BY_ID = "$.recent[?(@.endpoint == 'GET /pets/{id}' && @.sql =~ /.*from pets.*/)]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String slowQueries() throws Exception {
+        return mockMvc.perform(get("/admin/sql/slow-queries"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    /**
+     * A slow select is kept with its endpoint, service method, bind values and plan
+     * @throws Exception
+     */
+    @Test
+    public void testSlowSelectIsLoggedWithPlan() throws Exception {
+        mockMvc.perform(delete("/admin/sql/slow-queries")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/pets/4")).andExpect(status().isOk());
+
+        String json = slowQueries();
+        assertEquals(0, JsonPath.<Integer>read(json, "$.thresholdMillis"));
+        List<String> services = JsonPath.read(json, PET_BY_ID + ".serviceMethod");
+        assertEquals(List.of("PetServiceImpl.findById"), services);
+        List<List<String>> parameters = JsonPath.read(json, PET_BY_ID + ".parameters");
+        assertEquals(List.of("4"), parameters.get(0));
+
+        // The plan is read in the background
+        List<String> plans = List.of();
+        for (int i = 0; i < 50 && (plans.isEmpty() || plans.get(0) == null); i++) {
+            Thread.sleep(100);
+            plans = JsonPath.read(slowQueries(), PET_BY_ID + ".plan");
+        }
+        assertFalse(plans.isEmpty());
+        assertTrue(plans.get(0) != null && plans.get(0).toUpperCase().contains("PETS"), String.valueOf(plans));
+    }
+
+    /**
+     * Clearing empties the ring buffer
+     * @throws Exception
+     */
+    @Test
+    public void testClearSlowQueries() throws Exception {
+        mockMvc.perform(delete("/admin/sql/slow-queries")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/admin/sql/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.recent", empty()));
+    }
+
+}
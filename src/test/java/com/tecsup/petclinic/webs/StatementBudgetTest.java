@@ -0,0 +1,166 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.OwnerDTO;
+import com.tecsup.petclinic.dtos.PetDTO;
+import com.tecsup.petclinic.dtos.SpecialtyChangesDTO;
+import com.tecsup.petclinic.dtos.SpecialtyDTO;
+import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.sql.SqlStatementMonitor;
+import com.tecsup.petclinic.util.JdbcCountingConfig;
+import com.tecsup.petclinic.util.JdbcExecutionCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budget of every endpoint of the Pet, Owner, Vet and Specialty controllers.
+ * A budget is the number of round-trips an endpoint may take whatever the size of its
+ * result; a change loading a relation row by row (1 + N selects) breaks it, and so does
+ * any select repeated within one request. The runtime SqlStatementMonitor is enabled
+ * too and must flag nothing.
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "petclinic.sql.monitor.enabled=true")
+@Import(JdbcCountingConfig.class)
+public class StatementBudgetTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcExecutionCounter counter;
+
+    @Autowired
+    private SqlStatementMonitor monitor;
+
+    /**
+     * Perform the request and check it took at most budget round-trips, none of them a repeated select
+     * @return the response body
+     */
+    private String withinBudget(int budget, RequestBuilder request) throws Exception {
+        counter.reset();
+        String body = mockMvc.perform(request).andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        long executions = counter.countExecutions();
+        assertTrue(executions <= budget,
+                "ran " + executions + " statements, budget " + budget + ": " + counter.executedSql());
+        assertTrue(counter.maxSelectRepeats() <= 1, "repeated select: " + counter.executedSql());
+        return body;
+    }
+
+    private static RequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsString(body));
+    }
+
+    @AfterEach
+    public void checkMonitor() {
+        assertEquals(0, monitor.getFlagged());
+    }
+
+    @Test
+    public void testPetEndpoints() throws Exception {
+        withinBudget(1, get("/pets").param("limit", "200"));
+        withinBudget(1, get("/pets/1"));
+        withinBudget(0, get("/pets/suggest").param("prefix", "l"));
+        withinBudget(1, get("/pets/8/visits").param("limit", "200"));
+
+        PetDTO pet = PetDTO.builder().name("Budget").typeId(1).ownerId(1).birthDate("2020-01-01").build();
+        String created = withinBudget(3, json(post("/pets"), pet));
+        Integer id = JsonPath.parse(created).read("$.id");
+        withinBudget(2, json(put("/pets/" + id), pet.toBuilder().name("Budgeted").build()));
+        withinBudget(2, delete("/pets/" + id));
+    }
+
+    @Test
+    public void testOwnerEndpoints() throws Exception {
+        withinBudget(1, get("/owners").param("limit", "200"));
+        withinBudget(1, get("/owners/1"));
+        // Last name matches, then first name matches
+        withinBudget(2, get("/owners/search").param("q", "da"));
+        withinBudget(1, get("/owners/search").param("city", "madison"));
+
+        OwnerDTO owner = OwnerDTO.builder().firstName("Ada").lastName("Budget")
+                .address("1 Main St.").city("Madison").telephone("6085550000").build();
+        String created = withinBudget(3, json(post("/owners"), owner));
+        Integer id = JsonPath.parse(created).read("$.id");
+        owner.setCity("Monona");
+        withinBudget(2, json(put("/owners/" + id), owner));
+        withinBudget(2, delete("/owners/" + id));
+    }
+
+    @Test
+    public void testVetEndpoints() throws Exception {
+        withinBudget(1, get("/vets").param("limit", "200"));
+        // The page, then the specialties of all its vets
+        withinBudget(2, get("/vets").param("limit", "200").param("withSpecialties", "true"));
+        // Matched in the index, then the vets read at once
+        withinBudget(1, get("/vets/by-specialties").param("all", "surgery,dentistry"));
+        withinBudget(1, get("/vets/1"));
+
+        VetDTO vet = VetDTO.builder().firstName("Vera").lastName("Budget").build();
+        String created = withinBudget(3, json(post("/vets"), vet));
+        Integer id = JsonPath.parse(created).read("$.id");
+        withinBudget(2, json(put("/vets/" + id), vet.toBuilder().lastName("Budgeted").build()));
+        // Lock, current specialties, specialties named, then one batch per kind of change
+        withinBudget(5, json(put("/vets/" + id + "/specialties"), List.of(1, 3)));
+        withinBudget(4, json(patch("/vets/" + id + "/specialties"), SpecialtyChangesDTO.builder().remove(List.of(1)).build()));
+        // Nothing to change, nothing written
+        withinBudget(3, json(put("/vets/" + id + "/specialties"), List.of(3)));
+        withinBudget(4, json(put("/vets/" + id + "/specialties"), List.of()));
+        withinBudget(3, delete("/vets/" + id));
+    }
+
+    @Test
+    public void testAppointmentEndpoints() throws Exception {
+        String date = LocalDate.now().plusDays(60).toString();
+        // The day of every surgeon read at once, then from the calendar
+        withinBudget(1, get("/specialties/2/free-slots").param("date", date));
+        withinBudget(0, get("/specialties/2/free-slots").param("date", date));
+
+        VisitDTO appointment = VisitDTO.builder().petId(1).vetId(3).visitDate(date).visitTime("10:00").build();
+        // Vet and pet read once then cached, a block of ids reserved one visit in 50, the insert
+        withinBudget(4, json(post("/appointments"), appointment));
+        withinBudget(3, json(post("/appointments"), VisitDTO.builder().petId(1).vetId(3).visitDate(date).visitTime("10:30").build()));
+    }
+
+    @Test
+    public void testSpecialtyEndpoints() throws Exception {
+        withinBudget(1, get("/specialties"));
+        withinBudget(1, get("/specialties/1"));
+        // Answered by the opening hours index
+        withinBudget(0, get("/specialties/open"));
+        withinBudget(0, get("/specialties/1/next-opening"));
+
+        SpecialtyDTO specialty = SpecialtyDTO.builder().name("budgeting").build();
+        String created = withinBudget(3, json(post("/specialties"), specialty));
+        Integer id = JsonPath.parse(created).read("$.id");
+        withinBudget(2, json(put("/specialties/" + id), SpecialtyDTO.builder().name("budgets").build()));
+        withinBudget(2, delete("/specialties/" + id));
+    }
+
+}
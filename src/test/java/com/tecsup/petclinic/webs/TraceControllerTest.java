@@ -0,0 +1,105 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.PetDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for TraceController, every request is traced
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@SpringBootTest(properties = {
+        "management.tracing.sampling.probability=1.0",
+        "management.tracing.opentelemetry.export.schedule-delay=50ms"})
+public class TraceControllerTest {
+
+    private static final String UPDATE_TRACE = "$[?(@.name == 'http put /pets/{id}')]";
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * PUT /pets/{id} is traced through the controller, the service and the repository,
+     * each span with the SQL statements it ran
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateIsTracedAcrossLayers() throws Exception {
+        mockMvc.perform(delete("/admin/traces")).andExpect(status().isNoContent());
+
+        PetDTO pet = PetDTO.builder().name("Traced").typeId(1).ownerId(1).birthDate("2020-01-01").build();
+        mockMvc.perform(put("/pets/5").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsString(pet)))
+                .andExpect(status().isOk());
+
+        // Spans are exported in the background
+        List<Map<String, Object>> spans = List.of();
+        for (int i = 0; i < 50 && spans.size() < 6; i++) {
+            Thread.sleep(100);
+            String traces = mockMvc.perform(get("/admin/traces"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<List<Map<String, Object>>> updates = JsonPath.read(traces, UPDATE_TRACE + ".spans");
+            spans = updates.isEmpty() ? List.of() : updates.get(0);
+        }
+
+        Map<String, Object> server = span(spans, "http put /pets/{id}");
+        Map<String, Object> controller = span(spans, "PetController.update");
+        Map<String, Object> find = span(spans, "PetServiceImpl.findById");
+        Map<String, Object> update = span(spans, "PetServiceImpl.update");
+        Map<String, Object> repository = child(spans, update, "PetRepository.findById");
+
+        assertEquals(server.get("spanId"), controller.get("parentSpanId"));
+        assertEquals(controller.get("spanId"), find.get("parentSpanId"));
+        assertEquals(controller.get("spanId"), update.get("parentSpanId"));
+
+        // The update selects the pet, then flushes its change at commit
+        assertEquals("1", statements(repository));
+        assertEquals("2", statements(update));
+        assertEquals(Long.parseLong(statements(find)) + 2, Long.parseLong(statements(controller)));
+
+        String traceId = (String) server.get("traceId");
+        mockMvc.perform(get("/admin/traces/" + traceId)).andExpect(status().isOk());
+        mockMvc.perform(get("/admin/traces/" + "0".repeat(32))).andExpect(status().isNotFound());
+    }
+
+    private static Map<String, Object> span(List<Map<String, Object>> spans, String name) {
+        List<Map<String, Object>> named = spans.stream().filter(span -> name.equals(span.get("name"))).toList();
+        assertFalse(named.isEmpty(), "no span " + name + " in " + spans);
+        return named.get(0);
+    }
+
+    private static Map<String, Object> child(List<Map<String, Object>> spans, Map<String, Object> parent, String name) {
+        List<Map<String, Object>> named = spans.stream()
+                .filter(span -> name.equals(span.get("name")) && parent.get("spanId").equals(span.get("parentSpanId")))
+                .toList();
+        assertEquals(1, named.size(), "no span " + name + " under " + parent.get("name") + " in " + spans);
+        return named.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String statements(Map<String, Object> span) {
+        return ((Map<String, String>) span.get("attributes")).get("sql.statements");
+    }
+
+}
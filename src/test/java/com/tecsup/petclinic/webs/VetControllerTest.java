@@ -2,7 +2,9 @@ package com.tecsup.petclinic.webs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.SpecialtyChangesDTO;
 import com.tecsup.petclinic.dtos.VetDTO;
+import com.tecsup.petclinic.dtos.VetSpecialtiesDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +15,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,6 +52,129 @@ public class VetControllerTest {
                 .andExpect(jsonPath("$[0].id", is(ID_FIRST_RECORD)));
     }
 
+    /**
+     * Test find all vets with their specialties, by name
+     * @throws Exception
+     */
+    @Test
+    public void testFindAllVetsWithSpecialties() throws Exception {
+        this.mockMvc.perform(get("/vets").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].specialties").doesNotExist());
+
+        this.mockMvc.perform(get("/vets").param("limit", "5").param("withSpecialties", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].specialties", hasSize(0)))
+                .andExpect(jsonPath("$[2].id", is(3)))
+                .andExpect(jsonPath("$[2].specialties", contains("dentistry", "surgery")));
+    }
+
+    /**
+     * Test find the vets having all the specialties
+     * @throws Exception
+     */
+    @Test
+    public void testFindVetsBySpecialties() throws Exception {
+        this.mockMvc.perform(get("/vets/by-specialties").param("all", "surgery,dentistry"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(3)))
+                .andExpect(jsonPath("$[0].specialties", contains("dentistry", "surgery")));
+
+        this.mockMvc.perform(get("/vets/by-specialties").param("all", "Surgery"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(3, 4)));
+
+        this.mockMvc.perform(get("/vets/by-specialties").param("all", "surgery,cardiology"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        this.mockMvc.perform(get("/vets/by-specialties").param("all", " , "))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test replace, change and bulk assign the specialties of vets.
+     * Radiology (1) and dentistry (3) only, the seeded surgeons are matched by other tests
+     * @throws Exception
+     */
+    @Test
+    public void testAssignVetSpecialties() throws Exception {
+        Integer first = createVet("Ann", "Assigned");
+        Integer second = createVet("Bob", "Assigned");
+
+        mockMvc.perform(put("/vets/" + first + "/specialties")
+                        .content(om.writeValueAsString(List.of(1, 3)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(first)))
+                .andExpect(jsonPath("$.specialties", contains("dentistry", "radiology")));
+        mockMvc.perform(get("/vets/by-specialties").param("all", "radiology,dentistry"))
+                .andExpect(jsonPath("$[*].id", contains(first)));
+
+        SpecialtyChangesDTO changes = SpecialtyChangesDTO.builder().remove(List.of(1)).build();
+        mockMvc.perform(patch("/vets/" + first + "/specialties")
+                        .content(om.writeValueAsString(changes))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.specialties", contains("dentistry")));
+        mockMvc.perform(get("/vets/by-specialties").param("all", "radiology,dentistry"))
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        // The first vet keeps dentistry: only the two rows of the second one are written
+        List<VetSpecialtiesDTO> assignments = List.of(new VetSpecialtiesDTO(first, List.of(3)),
+                new VetSpecialtiesDTO(second, List.of(1, 3)));
+        mockMvc.perform(put("/vets/specialties")
+                        .content(om.writeValueAsString(assignments))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(2)))
+                .andExpect(jsonPath("$.deleted", is(0)))
+                .andExpect(jsonPath("$.vets[*].id", contains(first, second)));
+
+        // An unknown vet or specialty fails the whole request
+        assignments = List.of(new VetSpecialtiesDTO(second, List.of()), new VetSpecialtiesDTO(0, List.of(1)));
+        mockMvc.perform(put("/vets/specialties")
+                        .content(om.writeValueAsString(assignments))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/vets/" + second + "/specialties")
+                        .content(om.writeValueAsString(List.of(1, 999)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/vets").param("after", String.valueOf(second - 1)).param("limit", "1")
+                        .param("withSpecialties", "true"))
+                .andExpect(jsonPath("$[0].specialties", contains("dentistry", "radiology")));
+
+        mockMvc.perform(delete("/vets/" + first)).andExpect(status().isOk());
+        mockMvc.perform(delete("/vets/" + second)).andExpect(status().isOk());
+        mockMvc.perform(get("/vets/by-specialties").param("all", "dentistry"))
+                .andExpect(jsonPath("$[*].id", contains(3)));
+    }
+
+    /**
+     * Test assign the specialties of an unknown vet
+     * @throws Exception
+     */
+    @Test
+    public void testAssignVetSpecialtiesKO() throws Exception {
+        mockMvc.perform(put("/vets/1000/specialties")
+                        .content(om.writeValueAsString(List.of(1)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    private Integer createVet(String firstName, String lastName) throws Exception {
+        VetDTO vet = VetDTO.builder().firstName(firstName).lastName(lastName).build();
+        String response = mockMvc.perform(post("/vets")
+                        .content(om.writeValueAsString(vet))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.parse(response).read("$.id");
+    }
+
     /**
      * Test find vet by id - OK
      * @throws Exception
@@ -0,0 +1,217 @@
+package com.tecsup.petclinic.webs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.tecsup.petclinic.dtos.VisitDTO;
+import com.tecsup.petclinic.services.VetWorkload;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for VisitController
+ * @author jgomezm
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+public class VisitControllerTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private VetWorkload vetWorkload;
+
+    /**
+     * Test find visit by id
+     * @throws Exception
+     */
+    @Test
+    public void testFindVisitOK() throws Exception {
+        this.mockMvc.perform(get("/visits/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.petId", is(7)))
+                .andExpect(jsonPath("$.vetId", is(2)))
+                .andExpect(jsonPath("$.visitDate", is("2010-03-04")))
+                .andExpect(jsonPath("$.description", is("rabies shot")));
+    }
+
+    /**
+     * Test find visit not found
+     * @throws Exception
+     */
+    @Test
+    public void testFindVisitKO() throws Exception {
+        this.mockMvc.perform(get("/visits/666"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test the history of a pet is paged newest first, following X-Next-Cursor
+     * @throws Exception
+     */
+    @Test
+    public void testFindPetVisitsPaged() throws Exception {
+        MvcResult first = this.mockMvc.perform(get("/pets/8/visits").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].visitDate", is("2011-03-04")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        String cursor = first.getResponse().getHeader("X-Next-Cursor");
+
+        this.mockMvc.perform(get("/pets/8/visits").param("limit", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(3)))
+                .andExpect(jsonPath("$[0].visitDate", is("2009-06-04")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // A cursor belongs to the pet it was issued for
+        this.mockMvc.perform(get("/pets/7/visits").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test the history of a pet without visits, and of a pet that does not exist
+     * @throws Exception
+     */
+    @Test
+    public void testFindPetVisitsEmptyAndKO() throws Exception {
+        this.mockMvc.perform(get("/pets/13/visits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(0)));
+
+        this.mockMvc.perform(get("/pets/666/visits"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test create, update and delete a visit
+     * @throws Exception
+     */
+    @Test
+    public void testCreateUpdateDeleteVisit() throws Exception {
+        VisitDTO newVisit = new VisitDTO(null, 1, "2024-05-10", "checkup", 2, new BigDecimal("30.00"));
+
+        MvcResult created = this.mockMvc.perform(asyncDispatch(started(post("/visits")
+                        .content(om.writeValueAsString(newVisit)))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", notNullValue()))
+                .andExpect(jsonPath("$.petId", is(1)))
+                .andExpect(jsonPath("$.description", is("checkup")))
+                .andReturn();
+
+        Integer id = JsonPath.parse(created.getResponse().getContentAsString()).read("$.id");
+
+        this.mockMvc.perform(get("/visits/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cost", is(30.0)));
+
+        VisitDTO upVisit = new VisitDTO(null, 1, "2024-05-11", "checkup and vaccine", 2, new BigDecimal("55.50"));
+        this.mockMvc.perform(put("/visits/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(upVisit)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.visitDate", is("2024-05-11")))
+                .andExpect(jsonPath("$.cost", is(55.5)));
+
+        this.mockMvc.perform(delete("/visits/" + id))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/visits/" + id))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test create visits in bulk, a visit of an unknown pet is reported without failing the others
+     * @throws Exception
+     */
+    @Test
+    public void testCreateVisitsBulk() throws Exception {
+        List<VisitDTO> visits = List.of(
+                new VisitDTO(null, 2, "2024-06-01", "bulk one", null, null),
+                new VisitDTO(null, 999999, "2024-06-01", "unknown pet", null, null),
+                new VisitDTO(null, 3, "2024-06-02", "bulk two", 3, new BigDecimal("12.00")));
+
+        this.mockMvc.perform(asyncDispatch(started(post("/visits/bulk")
+                        .content(om.writeValueAsString(visits)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.visits.size()", is(2)))
+                .andExpect(jsonPath("$.visits[0].description", is("bulk one")))
+                .andExpect(jsonPath("$.visits[1].description", is("bulk two")))
+                .andExpect(jsonPath("$.errors.size()", is(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)));
+    }
+
+    /**
+     * Test create visits of surgery (vets 3 and 4) without a vet: each one goes to the vet
+     * with the fewest visits to come
+     * @throws Exception
+     */
+    @Test
+    public void testCreateVisitAssignsLeastLoadedVet() throws Exception {
+        String date = LocalDate.now().plusDays(50).toString();
+        for (int i = 0; i < 3; i++) {
+            long surgeon3 = vetWorkload.load(3);
+            long surgeon4 = vetWorkload.load(4);
+            VisitDTO visit = VisitDTO.builder().petId(1).visitDate(date).description("surgery").specialtyId(2).build();
+
+            MvcResult created = this.mockMvc.perform(asyncDispatch(started(post("/visits")
+                            .content(om.writeValueAsString(visit)))))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.specialtyId").doesNotExist())
+                    .andReturn();
+
+            int vetId = JsonPath.parse(created.getResponse().getContentAsString()).read("$.vetId");
+            if (surgeon3 != surgeon4)
+                assertEquals(surgeon3 < surgeon4 ? 3 : 4, vetId);
+            assertEquals(surgeon3 + surgeon4 + 1, vetWorkload.load(3) + vetWorkload.load(4));
+        }
+
+        VisitDTO unknown = VisitDTO.builder().petId(1).visitDate(date).specialtyId(1000).build();
+        this.mockMvc.perform(asyncDispatch(started(post("/visits")
+                        .content(om.writeValueAsString(unknown)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test create an invalid visit
+     * @throws Exception
+     */
+    @Test
+    public void testCreateVisitBadRequest() throws Exception {
+        VisitDTO noDate = new VisitDTO(null, 1, null, "no date", null, null);
+
+        this.mockMvc.perform(asyncDispatch(started(post("/visits")
+                        .content(om.writeValueAsString(noDate)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult started(MockHttpServletRequestBuilder request) throws Exception {
+        return this.mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+}